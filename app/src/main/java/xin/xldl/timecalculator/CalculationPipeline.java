@@ -0,0 +1,131 @@
+package xin.xldl.timecalculator;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import xin.xldl.timecalculator.core.NumberFormatter;
+
+/**
+ * 后台计算管线
+ *
+ * 每次输入变化提交一个计算任务，在单独的工作线程中执行，只把最新一次的结果送回主线程。
+ * 新任务提交时，尚未开始的旧任务直接取消；已经开始的旧任务结果会被丢弃。
+ * 工作线程持有自己的 {@link NumberFormatter}，任务中可以放心复用。
+ * submit/cancel/shutdown 只能在主线程调用。
+ */
+final class CalculationPipeline {
+
+    /**
+     * 在工作线程中执行的计算
+     */
+    interface Task<T> {
+        T compute(NumberFormatter formatter) throws Exception;
+    }
+
+    /**
+     * 在主线程中接收结果
+     */
+    interface Callback<T> {
+        void onResult(T result);
+
+        void onError(Exception e);
+    }
+
+    private final ExecutorService worker;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // 只在工作线程中使用
+    private final NumberFormatter formatter = new NumberFormatter();
+
+    // 每次提交或取消加一，结果只有在代数未变时才会送达
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> pending;
+    private boolean shutdown;
+
+    CalculationPipeline(String name) {
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交计算，取代之前所有未送达的计算
+     */
+    <T> void submit(Task<T> task, Callback<T> callback) {
+        if (shutdown) {
+            return;
+        }
+        long id = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = worker.submit(() -> {
+            // 排队期间已有更新的输入
+            if (generation.get() != id) {
+                return;
+            }
+
+            T result = null;
+            Exception error = null;
+            try {
+                result = task.compute(formatter);
+            } catch (Exception e) {
+                error = e;
+            }
+
+            if (generation.get() != id) {
+                return;
+            }
+            T finalResult = result;
+            Exception finalError = error;
+            mainHandler.post(() -> {
+                // 回到主线程前可能又有新的输入
+                if (generation.get() != id || shutdown) {
+                    return;
+                }
+                pending = null;
+                if (finalError != null) {
+                    callback.onError(finalError);
+                } else {
+                    callback.onResult(finalResult);
+                }
+            });
+        });
+    }
+
+    /**
+     * 在工作线程中按提交顺序执行后台工作（如写入历史记录），不会被取消
+     */
+    void execute(Runnable work) {
+        if (!shutdown) {
+            worker.execute(work);
+        }
+    }
+
+    /**
+     * 丢弃所有未送达的计算
+     */
+    void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /**
+     * 停止接收新的任务，已提交的后台工作仍会执行完毕
+     */
+    void shutdown() {
+        cancel();
+        shutdown = true;
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package xin.xldl.timecalculator;
+
+import org.threeten.bp.LocalDateTime;
+
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+
+/**
+ * LocalDateTime 与 DateTimeRenderer 之间的适配
+ */
+final class DateTimeTexts {
+
+    private DateTimeTexts() {
+    }
+
+    /**
+     * 按渲染器格式化日期时间
+     */
+    static String format(DateTimeRenderer renderer, LocalDateTime dateTime) {
+        return renderer.format(
+                dateTime.getYear(),
+                dateTime.getMonthValue(),
+                dateTime.getDayOfMonth(),
+                dateTime.getHour(),
+                dateTime.getMinute(),
+                dateTime.getSecond()
+        );
+    }
+
+    /**
+     * 按渲染器格式化并追加到 out，不产生中间字符串
+     */
+    static StringBuilder appendTo(StringBuilder out, DateTimeRenderer renderer, LocalDateTime dateTime) {
+        return renderer.appendTo(out,
+                dateTime.getYear(),
+                dateTime.getMonthValue(),
+                dateTime.getDayOfMonth(),
+                dateTime.getHour(),
+                dateTime.getMinute(),
+                dateTime.getSecond()
+        );
+    }
+}
@@ -0,0 +1,110 @@
+package xin.xldl.timecalculator;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * 性能诊断界面
+ *
+ * 显示各计算阶段的耗时分布、结果缓存的命中情况和主线程磁盘读写，界面可见时每秒刷新；
+ * 统计数据可以导出为JSON分享。只在可调试的构建中从主界面菜单进入。
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    private TextView tvStages;
+    private TextView tvCaches;
+    private TextView tvDiskIo;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            updateDisplay();
+            handler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        tvStages = findViewById(R.id.tv_stages);
+        tvCaches = findViewById(R.id.tv_caches);
+        tvDiskIo = findViewById(R.id.tv_disk_io);
+
+        findViewById(R.id.btn_back).setOnClickListener(v -> finish());
+        findViewById(R.id.btn_reset).setOnClickListener(v -> {
+            Metrics.reset();
+            StrictModeReporter.clear();
+            updateDisplay();
+        });
+        findViewById(R.id.btn_export).setOnClickListener(v -> exportJson());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh.run();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refresh);
+    }
+
+    private void updateDisplay() {
+        String stages = Metrics.describe();
+        if (!Metrics.isAllocationCounting()) {
+            stages += "\n（分配统计只在可调试的构建中开启）";
+        }
+        tvStages.setText(stages);
+
+        String caches = ResultCaches.describe();
+        tvCaches.setText(caches.isEmpty() ? "尚未使用" : caches);
+
+        if (!StrictModeReporter.isInstalled()) {
+            tvDiskIo.setText("未开启");
+        } else {
+            String diskIo = StrictModeReporter.describe();
+            tvDiskIo.setText(diskIo.isEmpty() ? "没有发现" : diskIo);
+        }
+    }
+
+    /**
+     * 以JSON文本分享当前的统计数据（与界面显示的内容相同）
+     */
+    private void exportJson() {
+        String json;
+        try {
+            JSONObject metrics = Metrics.toJson();
+            metrics.put("caches", ResultCaches.toJson());
+            metrics.put("mainThreadIoDetection", StrictModeReporter.isInstalled());
+            if (StrictModeReporter.isInstalled()) {
+                metrics.put("mainThreadIo", StrictModeReporter.toJson());
+            }
+            json = metrics.toString(2);
+        } catch (JSONException e) {
+            Toast.makeText(this, "导出失败：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("application/json");
+        intent.putExtra(Intent.EXTRA_SUBJECT, "时间计算器性能统计");
+        intent.putExtra(Intent.EXTRA_TEXT, json);
+        startActivity(Intent.createChooser(intent, "导出性能统计"));
+    }
+}
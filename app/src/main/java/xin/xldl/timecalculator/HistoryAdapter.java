@@ -0,0 +1,111 @@
+package xin.xldl.timecalculator;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Locale;
+
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+import xin.xldl.timecalculator.core.NumberFormatter;
+
+/**
+ * 历史记录列表适配器（三个计算界面共用）
+ *
+ * 每次提交新的列表快照，由 DiffUtil 在后台计算差异，
+ * 在开头插入一条记录时只绑定新的一项。记录项的显示文本在绑定时生成，行被回收时释放。
+ */
+final class HistoryAdapter extends ListAdapter<HistoryItem, HistoryAdapter.ViewHolder> {
+
+    /**
+     * 历史项点击监听
+     */
+    interface OnItemClickListener {
+        void onItemClick(HistoryItem item);
+    }
+
+    private static final DiffUtil.ItemCallback<HistoryItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<HistoryItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull HistoryItem oldItem, @NonNull HistoryItem newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull HistoryItem oldItem, @NonNull HistoryItem newItem) {
+            // 重新读取或搜索得到的是新的对象，按内容比较
+            return oldItem == newItem || oldItem.sameContent(newItem);
+        }
+    };
+
+    private final OnItemClickListener listener;
+
+    // 生成显示文本（仅在主线程使用）
+    private final NumberFormatter formatter = new NumberFormatter();
+    private final StringBuilder builder = new StringBuilder(64);
+    private final DateTimeRenderer timeRenderer =
+            DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, true);
+    private final DateTimeRenderer dateTimeRenderer =
+            DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, true);
+
+    HistoryAdapter(OnItemClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+
+        // 点击监听只在创建时设置一次
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onItemClick(getItem(position));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        HistoryItem item = getItem(position);
+        holder.tvItem.setText(item.getDisplayText(formatter, dateTimeRenderer, builder));
+        holder.tvTime.setText(item.getTimeText(timeRenderer));
+        holder.item = item;
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        if (holder.item != null) {
+            holder.item.releaseText();
+            holder.item = null;
+        }
+    }
+
+    static final class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvItem;
+        final TextView tvTime;
+        // 当前绑定的记录项
+        HistoryItem item;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvItem = itemView.findViewById(R.id.tv_history_item);
+            tvTime = itemView.findViewById(R.id.tv_history_time);
+        }
+    }
+}
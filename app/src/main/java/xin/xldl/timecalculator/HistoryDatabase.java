@@ -0,0 +1,590 @@
+package xin.xldl.timecalculator;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import xin.xldl.timecalculator.core.HistoryExport;
+import xin.xldl.timecalculator.core.HistoryLog;
+import xin.xldl.timecalculator.core.HistorySearchIndex;
+import xin.xldl.timecalculator.core.IoGuard;
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 历史记录数据库
+ *
+ * 三种计算各一张表，按记录时间和单位建索引。列表按（记录时间, 行号）键集分页读取，
+ * 每页一次带 LIMIT 的查询，游标窗口只装一页，十万条的历史打开时也只读第一页。
+ * 所有读写都在共用的数据库线程上进行（{@link #execute}）；
+ * 第一次创建时把旧版的日志文件和JSON历史导入换算表。
+ * 搜索使用内存中的 {@link HistorySearchIndex}，第一次搜索某张表时读取整张表建立，之后随写入更新。
+ * 换算记录可以用 {@link HistoryExport} 流式导出和导入。
+ */
+final class HistoryDatabase extends SQLiteOpenHelper {
+
+    private static final String TAG = "HistoryDatabase";
+
+    static final String NAME = "history.db";
+    static final int VERSION = 1;
+
+    static final String CONVERSIONS = "conversions";
+    static final String INTERVALS = "intervals";
+    static final String PROJECTIONS = "projections";
+
+    // 旧版历史记录，只用于导入
+    static final String LEGACY_LOG_FILE = "conversion_history.log";
+    static final String LEGACY_PREF_HISTORY = "conversion_history";
+
+    // 键集分页的排序，与 created_at 索引（隐含行号）一致
+    private static final String ORDER = "created_at DESC, _id DESC";
+    private static final String AFTER_KEY = "created_at <= ? AND (created_at < ? OR _id < ?)";
+
+    private static HistoryDatabase instance;
+
+    // 所有数据库读写共用一个线程，写入和分页读取按提交顺序进行
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "history-db");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Context context;
+    // 本次创建时导入了旧版记录，提交后删除旧数据
+    private boolean legacyImported;
+
+    // 各表的搜索索引和生成索引文本用的格式化器，只在数据库线程访问
+    private final Map<String, HistorySearchIndex> searchIndexes = new HashMap<>();
+    private final NumberFormatter indexFormatter = new NumberFormatter();
+
+    /**
+     * 键集分页的位置：上一页最后一条的记录时间和行号
+     */
+    static final class PageKey {
+        long createdAt = Long.MAX_VALUE;
+        long rowId = Long.MAX_VALUE;
+        boolean exhausted;
+
+        void reset() {
+            createdAt = Long.MAX_VALUE;
+            rowId = Long.MAX_VALUE;
+            exhausted = false;
+        }
+    }
+
+    /**
+     * @param name 数据库文件名，为 null 时使用内存数据库（测试用）
+     */
+    HistoryDatabase(Context context, String name) {
+        super(context.getApplicationContext(), name, null, VERSION);
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * 取得共享的实例（不会打开数据库文件）
+     */
+    static synchronized HistoryDatabase get(Context context) {
+        if (instance == null) {
+            instance = new HistoryDatabase(context, NAME);
+        }
+        return instance;
+    }
+
+    /**
+     * 在数据库线程上执行
+     */
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + CONVERSIONS + " ("
+                + "_id INTEGER PRIMARY KEY, "
+                + "created_at INTEGER NOT NULL, "
+                + "from_unit INTEGER NOT NULL, "
+                + "to_unit INTEGER NOT NULL, "
+                + "precision INTEGER NOT NULL, "
+                + "from_value REAL NOT NULL, "
+                + "to_value REAL NOT NULL)");
+        db.execSQL("CREATE INDEX conversions_created ON " + CONVERSIONS + " (created_at)");
+        db.execSQL("CREATE INDEX conversions_units ON " + CONVERSIONS + " (from_unit, to_unit, created_at)");
+
+        db.execSQL("CREATE TABLE " + INTERVALS + " ("
+                + "_id INTEGER PRIMARY KEY, "
+                + "created_at INTEGER NOT NULL, "
+                + "start_second INTEGER NOT NULL, "
+                + "start_nano INTEGER NOT NULL, "
+                + "end_second INTEGER NOT NULL, "
+                + "end_nano INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX intervals_created ON " + INTERVALS + " (created_at)");
+
+        db.execSQL("CREATE TABLE " + PROJECTIONS + " ("
+                + "_id INTEGER PRIMARY KEY, "
+                + "created_at INTEGER NOT NULL, "
+                + "base_second INTEGER NOT NULL, "
+                + "base_nano INTEGER NOT NULL, "
+                + "amount REAL NOT NULL, "
+                + "unit INTEGER NOT NULL, "
+                + "add_operation INTEGER NOT NULL, "
+                + "result_second INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX projections_created ON " + PROJECTIONS + " (created_at)");
+        db.execSQL("CREATE INDEX projections_unit ON " + PROJECTIONS + " (unit, created_at)");
+
+        // 在创建表的同一个事务中导入，中途失败时下次打开重新导入
+        importLegacyLog(db);
+        importLegacyJson(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 目前只有第一版
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        if (legacyImported) {
+            legacyImported = false;
+            if (!new File(context.getFilesDir(), LEGACY_LOG_FILE).delete()) {
+                Log.d(TAG, "没有旧版历史日志");
+            }
+            PreferenceStore.get(context, TimeConverterActivity.PREFS_NAME).remove(LEGACY_PREF_HISTORY);
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    long insertConversion(int fromUnit, int toUnit, int precision,
+                          double fromValue, double toValue, long createdAt) {
+        long start = IoGuard.begin();
+        long rowId;
+        try {
+            rowId = getWritableDatabase().insertOrThrow(CONVERSIONS, null,
+                    conversionValues(fromUnit, toUnit, precision, fromValue, toValue, createdAt));
+        } finally {
+            IoGuard.end(IoGuard.WRITE, "history.insert", start);
+        }
+        if (searchIndexes.containsKey(CONVERSIONS)) {
+            index(CONVERSIONS, rowId, new HistoryItem.Conversion(rowId, fromUnit, toUnit, precision,
+                    fromValue, toValue, createdAt), false);
+        }
+        return rowId;
+    }
+
+    /**
+     * 用新内容覆盖最新的一条换算记录（按创建时间，与列表第一条相同；合并连续的同类记录），没有记录时插入
+     */
+    void replaceLatestConversion(int fromUnit, int toUnit, int precision,
+                                 double fromValue, double toValue, long createdAt) {
+        long start = IoGuard.begin();
+        long rowId;
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            ContentValues values = conversionValues(fromUnit, toUnit, precision, fromValue, toValue, createdAt);
+            // 导入的旧记录行号较大，不能按最大行号取最新一条
+            rowId = DatabaseUtils.longForQuery(db, "SELECT IFNULL((SELECT _id FROM " + CONVERSIONS
+                    + " ORDER BY " + ORDER + " LIMIT 1), 0)", null);
+            if (rowId > 0) {
+                db.update(CONVERSIONS, values, "_id = " + rowId, null);
+            } else {
+                rowId = db.insertOrThrow(CONVERSIONS, null, values);
+            }
+        } finally {
+            IoGuard.end(IoGuard.WRITE, "history.replace", start);
+        }
+        if (searchIndexes.containsKey(CONVERSIONS)) {
+            index(CONVERSIONS, rowId, new HistoryItem.Conversion(rowId, fromUnit, toUnit, precision,
+                    fromValue, toValue, createdAt), true);
+        }
+    }
+
+    long insertInterval(long startSecond, int startNano, long endSecond, int endNano, long createdAt) {
+        long start = IoGuard.begin();
+        long rowId;
+        try {
+            ContentValues values = new ContentValues(5);
+            values.put("created_at", createdAt);
+            values.put("start_second", startSecond);
+            values.put("start_nano", startNano);
+            values.put("end_second", endSecond);
+            values.put("end_nano", endNano);
+            rowId = getWritableDatabase().insertOrThrow(INTERVALS, null, values);
+        } finally {
+            IoGuard.end(IoGuard.WRITE, "history.insert", start);
+        }
+        if (searchIndexes.containsKey(INTERVALS)) {
+            index(INTERVALS, rowId, new HistoryItem.Interval(rowId, startSecond, startNano, endSecond, endNano, createdAt),
+                    false);
+        }
+        return rowId;
+    }
+
+    long insertProjection(long baseSecond, int baseNano, double amount, int unit, boolean add,
+                          long resultSecond, long createdAt) {
+        long start = IoGuard.begin();
+        long rowId;
+        try {
+            ContentValues values = new ContentValues(7);
+            values.put("created_at", createdAt);
+            values.put("base_second", baseSecond);
+            values.put("base_nano", baseNano);
+            values.put("amount", amount);
+            values.put("unit", unit);
+            values.put("add_operation", add ? 1 : 0);
+            values.put("result_second", resultSecond);
+            rowId = getWritableDatabase().insertOrThrow(PROJECTIONS, null, values);
+        } finally {
+            IoGuard.end(IoGuard.WRITE, "history.insert", start);
+        }
+        if (searchIndexes.containsKey(PROJECTIONS)) {
+            index(PROJECTIONS, rowId, new HistoryItem.Projection(rowId, baseSecond, baseNano, amount, unit, add,
+                    resultSecond, createdAt), false);
+        }
+        return rowId;
+    }
+
+    /**
+     * 删除表中的所有记录
+     */
+    void clear(String table) {
+        long start = IoGuard.begin();
+        try {
+            getWritableDatabase().delete(table, null, null);
+        } finally {
+            IoGuard.end(IoGuard.WRITE, "history.clear", start);
+        }
+        HistorySearchIndex index = searchIndexes.get(table);
+        if (index != null) {
+            index.clear();
+        }
+    }
+
+    long count(String table) {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), table);
+    }
+
+    private static ContentValues conversionValues(int fromUnit, int toUnit, int precision,
+                                                  double fromValue, double toValue, long createdAt) {
+        ContentValues values = new ContentValues(6);
+        values.put("created_at", createdAt);
+        values.put("from_unit", fromUnit);
+        values.put("to_unit", toUnit);
+        values.put("precision", precision);
+        values.put("from_value", fromValue);
+        values.put("to_value", toValue);
+        return values;
+    }
+
+    // ==================== 分页读取 ====================
+
+    /**
+     * 读取 key 之后（更早）的一页记录，最新的在前，并把 key 移到这一页的末尾
+     */
+    List<HistoryItem> loadPage(String table, PageKey key, int limit) {
+        List<HistoryItem> page = new ArrayList<>(limit);
+        if (key.exhausted) {
+            return page;
+        }
+
+        long start = IoGuard.begin();
+        String createdAt = Long.toString(key.createdAt);
+        String[] args = {createdAt, createdAt, Long.toString(key.rowId)};
+        try (Cursor cursor = getReadableDatabase().query(table, null, AFTER_KEY, args,
+                null, null, ORDER, Integer.toString(limit))) {
+            int idColumn = cursor.getColumnIndexOrThrow("_id");
+            int createdColumn = cursor.getColumnIndexOrThrow("created_at");
+            while (cursor.moveToNext()) {
+                key.createdAt = cursor.getLong(createdColumn);
+                key.rowId = cursor.getLong(idColumn);
+                HistoryItem item = readItem(table, cursor, key.rowId, key.createdAt);
+                if (item != null) {
+                    page.add(item);
+                }
+            }
+            key.exhausted = cursor.getCount() < limit;
+        } finally {
+            IoGuard.end(IoGuard.READ, "history.page", start);
+        }
+        return page;
+    }
+
+    /**
+     * 当前行转换为记录项（ID为行号），单位无效的换算记录返回 null
+     */
+    private static HistoryItem readItem(String table, Cursor cursor, long rowId, long createdAt) {
+        switch (table) {
+            case CONVERSIONS: {
+                int fromUnit = cursor.getInt(cursor.getColumnIndexOrThrow("from_unit"));
+                int toUnit = cursor.getInt(cursor.getColumnIndexOrThrow("to_unit"));
+                if (fromUnit < 0 || fromUnit >= TimeUnits.COUNT || toUnit < 0 || toUnit >= TimeUnits.COUNT) {
+                    return null;
+                }
+                return new HistoryItem.Conversion(rowId, fromUnit, toUnit,
+                        cursor.getInt(cursor.getColumnIndexOrThrow("precision")),
+                        cursor.getDouble(cursor.getColumnIndexOrThrow("from_value")),
+                        cursor.getDouble(cursor.getColumnIndexOrThrow("to_value")),
+                        createdAt);
+            }
+            case INTERVALS:
+                return new HistoryItem.Interval(rowId,
+                        cursor.getLong(cursor.getColumnIndexOrThrow("start_second")),
+                        cursor.getInt(cursor.getColumnIndexOrThrow("start_nano")),
+                        cursor.getLong(cursor.getColumnIndexOrThrow("end_second")),
+                        cursor.getInt(cursor.getColumnIndexOrThrow("end_nano")),
+                        createdAt);
+            case PROJECTIONS:
+                return new HistoryItem.Projection(rowId,
+                        cursor.getLong(cursor.getColumnIndexOrThrow("base_second")),
+                        cursor.getInt(cursor.getColumnIndexOrThrow("base_nano")),
+                        cursor.getDouble(cursor.getColumnIndexOrThrow("amount")),
+                        cursor.getInt(cursor.getColumnIndexOrThrow("unit")),
+                        cursor.getInt(cursor.getColumnIndexOrThrow("add_operation")) != 0,
+                        cursor.getLong(cursor.getColumnIndexOrThrow("result_second")),
+                        createdAt);
+            default:
+                throw new IllegalArgumentException("table: " + table);
+        }
+    }
+
+    // ==================== 搜索 ====================
+
+    /**
+     * 搜索记录，最新的在前；第一次搜索某张表时先读取整张表建立索引
+     *
+     * @param text 搜索文本，写法见 {@link HistorySearchIndex.Query}
+     */
+    List<HistoryItem> search(String table, CharSequence text, int limit) {
+        HistorySearchIndex index = searchIndex(table);
+        HistorySearchIndex.Query query = HistorySearchIndex.Query.parse(text,
+                localEpochDay(System.currentTimeMillis()));
+        long[] rowIds = new long[limit];
+        int count = index.search(query, rowIds);
+        List<HistoryItem> result = new ArrayList<>(count);
+        if (count == 0) {
+            return result;
+        }
+
+        // 只按行号读取匹配的记录
+        StringBuilder selection = new StringBuilder(16 + count * 8).append("_id IN (");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                selection.append(',');
+            }
+            selection.append(rowIds[i]);
+        }
+        selection.append(')');
+
+        long start = IoGuard.begin();
+        try (Cursor cursor = getReadableDatabase().query(table, null, selection.toString(), null,
+                null, null, ORDER)) {
+            int idColumn = cursor.getColumnIndexOrThrow("_id");
+            int createdColumn = cursor.getColumnIndexOrThrow("created_at");
+            while (cursor.moveToNext()) {
+                HistoryItem item = readItem(table, cursor, cursor.getLong(idColumn), cursor.getLong(createdColumn));
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+        } finally {
+            IoGuard.end(IoGuard.READ, "history.search", start);
+        }
+        return result;
+    }
+
+    private HistorySearchIndex searchIndex(String table) {
+        HistorySearchIndex index = searchIndexes.get(table);
+        if (index != null) {
+            return index;
+        }
+
+        index = new HistorySearchIndex();
+        searchIndexes.put(table, index);
+        long start = IoGuard.begin();
+        try (Cursor cursor = getReadableDatabase().query(table, null, null, null, null, null,
+                "created_at, _id")) {
+            int idColumn = cursor.getColumnIndexOrThrow("_id");
+            int createdColumn = cursor.getColumnIndexOrThrow("created_at");
+            while (cursor.moveToNext()) {
+                long rowId = cursor.getLong(idColumn);
+                HistoryItem item = readItem(table, cursor, rowId, cursor.getLong(createdColumn));
+                if (item != null) {
+                    index(table, rowId, item, false);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 没有建完的索引不能保留
+            searchIndexes.remove(table);
+            throw e;
+        } finally {
+            IoGuard.end(IoGuard.READ, "history.index", start);
+        }
+        return index;
+    }
+
+    /**
+     * 把一条记录加入已建立的索引；replace 为 true 时替换最新一条
+     */
+    private void index(String table, long rowId, HistoryItem item, boolean replace) {
+        HistorySearchIndex index = searchIndexes.get(table);
+        long day = localEpochDay(item.epochMillis);
+        CharSequence[] values = item.searchValues(indexFormatter);
+        try {
+            if (replace) {
+                index.replaceLast(rowId, item.epochMillis, day, item.searchUnits(), values);
+            } else {
+                index.add(rowId, item.epochMillis, day, item.searchUnits(), values);
+            }
+        } catch (IllegalArgumentException e) {
+            // 时间早于索引中最新的记录（如系统时间被调回），无法按顺序追加，索引在下次搜索时重建
+            searchIndexes.remove(table);
+        }
+    }
+
+    /**
+     * 纪元毫秒对应的本地纪元日
+     */
+    private static long localEpochDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + TimeZone.getDefault().getOffset(epochMillis), 86_400_000L);
+    }
+
+    // ==================== 导出与导入 ====================
+
+    /**
+     * 按时间顺序把所有换算记录写入 writer，返回写入的条数（文件写入由 writer 计时）
+     */
+    long exportConversions(HistoryExport.Writer writer) throws IOException {
+        try (Cursor cursor = getReadableDatabase().query(CONVERSIONS, null, null, null,
+                null, null, "created_at, _id")) {
+            int createdColumn = cursor.getColumnIndexOrThrow("created_at");
+            int fromUnitColumn = cursor.getColumnIndexOrThrow("from_unit");
+            int toUnitColumn = cursor.getColumnIndexOrThrow("to_unit");
+            int precisionColumn = cursor.getColumnIndexOrThrow("precision");
+            int fromValueColumn = cursor.getColumnIndexOrThrow("from_value");
+            int toValueColumn = cursor.getColumnIndexOrThrow("to_value");
+            while (cursor.moveToNext()) {
+                writer.write(cursor.getInt(fromUnitColumn), cursor.getInt(toUnitColumn),
+                        cursor.getInt(precisionColumn), cursor.getDouble(fromValueColumn),
+                        cursor.getDouble(toValueColumn), cursor.getLong(createdColumn));
+            }
+        }
+        return writer.count();
+    }
+
+    /**
+     * 把 reader 中的换算记录追加到换算表（一个事务内用预编译语句插入），返回导入的条数。
+     * 读取失败时整个事务回滚。
+     */
+    long importConversions(HistoryExport.Reader reader) throws IOException {
+        long start = IoGuard.begin();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + CONVERSIONS
+                    + " (created_at, from_unit, to_unit, precision, from_value, to_value) VALUES (?, ?, ?, ?, ?, ?)");
+            while (reader.next()) {
+                insert.bindLong(1, reader.epochMillis());
+                insert.bindLong(2, reader.fromUnit());
+                insert.bindLong(3, reader.toUnit());
+                insert.bindLong(4, reader.precision());
+                insert.bindDouble(5, reader.fromValue());
+                insert.bindDouble(6, reader.toValue());
+                insert.executeInsert();
+            }
+            insert.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            IoGuard.end(IoGuard.WRITE, "history.import", start);
+        }
+        // 导入的记录时间不连续，索引在下次搜索时重建
+        searchIndexes.remove(CONVERSIONS);
+        return reader.count();
+    }
+
+    // ==================== 旧版记录导入 ====================
+
+    /**
+     * 导入换算日志文件（按时间顺序，使用预编译语句批量插入）
+     */
+    private void importLegacyLog(SQLiteDatabase db) {
+        File file = new File(context.getFilesDir(), LEGACY_LOG_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try (HistoryLog log = new HistoryLog(file)) {
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + CONVERSIONS
+                    + " (created_at, from_unit, to_unit, precision, from_value, to_value) VALUES (?, ?, ?, ?, ?, ?)");
+            int size = log.size();
+            for (int i = 0; i < size; i++) {
+                insert.bindLong(1, log.timestamp(i));
+                insert.bindLong(2, log.fromUnit(i));
+                insert.bindLong(3, log.toUnit(i));
+                insert.bindLong(4, log.precision(i));
+                insert.bindDouble(5, log.fromValue(i));
+                insert.bindDouble(6, log.toValue(i));
+                insert.executeInsert();
+            }
+            insert.close();
+            legacyImported = true;
+        } catch (IOException e) {
+            Log.w(TAG, "旧版历史日志无法读取，已跳过", e);
+        }
+    }
+
+    /**
+     * 导入更早版本保存在偏好设置中的JSON历史
+     */
+    private void importLegacyJson(SQLiteDatabase db) {
+        SharedPreferences prefs = context.getSharedPreferences(TimeConverterActivity.PREFS_NAME, Context.MODE_PRIVATE);
+        String historyJson = prefs.getString(LEGACY_PREF_HISTORY, "");
+        if (historyJson.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 旧记录只保存了格式化后的文本和时分秒，统一记为导入时刻
+            long now = System.currentTimeMillis();
+            JSONArray jsonArray = new JSONArray(historyJson);
+            // 旧列表最新的在前，按时间顺序插入
+            for (int i = jsonArray.length() - 1; i >= 0; i--) {
+                JSONObject jsonObject = jsonArray.getJSONObject(i);
+                try {
+                    double fromValue = Double.parseDouble(jsonObject.getString("fromValue").replace(",", ""));
+                    double toValue = Double.parseDouble(jsonObject.getString("toValue").replace(",", ""));
+                    int fromUnit = TimeUnits.indexOf(jsonObject.getString("fromUnit"));
+                    int toUnit = TimeUnits.indexOf(jsonObject.getString("toUnit"));
+                    if (fromUnit < 0 || toUnit < 0) {
+                        continue;
+                    }
+                    db.insertOrThrow(CONVERSIONS, null, conversionValues(fromUnit, toUnit,
+                            NumberFormatter.PRECISION_HIGH, fromValue, toValue, now));
+                } catch (NumberFormatException e) {
+                    // "无限大"等无法还原的记录直接跳过
+                }
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "旧版JSON历史无法解析，已跳过", e);
+        }
+        legacyImported = true;
+    }
+}
@@ -0,0 +1,281 @@
+package xin.xldl.timecalculator;
+
+import org.threeten.bp.LocalDateTime;
+import org.threeten.bp.ZoneOffset;
+
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+import xin.xldl.timecalculator.core.IntervalMath;
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 历史记录项
+ *
+ * 只保存单位索引、原始数值和纪元毫秒，显示文本在绑定到可见行时才生成，
+ * 行被回收后释放，列表中不可见的记录不持有任何字符串。
+ * 三种计算各有一个子类，对应 {@link HistoryDatabase} 中的一张表。
+ */
+abstract class HistoryItem {
+
+    // 还没有写入数据库的记录使用负数的临时ID，不会与行号重复
+    private static final AtomicLong NEXT_TEMPORARY_ID = new AtomicLong();
+
+    // 列表的稳定ID：数据库行号，或新记录的临时ID（替换开头的记录时沿用原来的ID，只在主线程修改）
+    long id;
+    final long epochMillis;
+
+    // 显示文本缓存，只在主线程访问
+    private String displayText;
+    private String timeText;
+
+    /**
+     * @param id 数据库行号，新记录使用 {@link #temporaryId()}
+     */
+    HistoryItem(long id, long epochMillis) {
+        this.id = id;
+        this.epochMillis = epochMillis;
+    }
+
+    /**
+     * 刚加入列表、还没有写入数据库的记录的ID
+     */
+    static long temporaryId() {
+        return NEXT_TEMPORARY_ID.decrementAndGet();
+    }
+
+    /**
+     * 生成记录内容的文本
+     */
+    abstract void appendText(StringBuilder out, NumberFormatter formatter, DateTimeRenderer dateTimeRenderer);
+
+    /**
+     * 记录内容和时间是否与 other 相同
+     */
+    abstract boolean sameContent(HistoryItem other);
+
+    /**
+     * 搜索索引中的单位，第 unit 位为1（见 {@link xin.xldl.timecalculator.core.HistorySearchIndex}）
+     */
+    abstract int searchUnits();
+
+    /**
+     * 搜索索引中的数值文本，与显示的数值一致
+     */
+    abstract CharSequence[] searchValues(NumberFormatter formatter);
+
+    /**
+     * 记录内容的文本
+     */
+    final String getDisplayText(NumberFormatter formatter, DateTimeRenderer dateTimeRenderer, StringBuilder builder) {
+        if (displayText == null) {
+            builder.setLength(0);
+            appendText(builder, formatter, dateTimeRenderer);
+            displayText = builder.toString();
+        }
+        return displayText;
+    }
+
+    /**
+     * 记录时间（本地时间的时分秒）
+     */
+    final String getTimeText(DateTimeRenderer renderer) {
+        if (timeText == null) {
+            long localMillis = epochMillis + TimeZone.getDefault().getOffset(epochMillis);
+            long secondOfDay = Math.floorMod(Math.floorDiv(localMillis, 1000L), 86_400L);
+            int hour = (int) (secondOfDay / 3600);
+            int minute = (int) (secondOfDay / 60 % 60);
+            int second = (int) (secondOfDay % 60);
+            timeText = renderer.format(0, 0, 0, hour, minute, second);
+        }
+        return timeText;
+    }
+
+    /**
+     * 释放显示文本（行被回收时）
+     */
+    final void releaseText() {
+        displayText = null;
+        timeText = null;
+    }
+
+    /**
+     * 把按UTC保存的纪元秒还原为界面使用的日期时间
+     */
+    static LocalDateTime toDateTime(long epochSecond, int nano) {
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    /**
+     * 单位换算记录
+     */
+    static final class Conversion extends HistoryItem {
+        final byte fromUnit;
+        final byte toUnit;
+        final byte precision;
+        final double fromValue;
+        final double toValue;
+
+        Conversion(long id, int fromUnit, int toUnit, int precision, double fromValue, double toValue,
+                   long epochMillis) {
+            super(id, epochMillis);
+            this.fromUnit = (byte) fromUnit;
+            this.toUnit = (byte) toUnit;
+            this.precision = (byte) precision;
+            this.fromValue = fromValue;
+            this.toValue = toValue;
+        }
+
+        // “1 周 = 7 天”
+        @Override
+        void appendText(StringBuilder out, NumberFormatter formatter, DateTimeRenderer dateTimeRenderer) {
+            formatter.formatTo(out, fromValue, precision).append(' ').append(TimeUnits.name(fromUnit)).append(" = ");
+            formatter.formatTo(out, toValue, precision).append(' ').append(TimeUnits.name(toUnit));
+        }
+
+        @Override
+        boolean sameContent(HistoryItem other) {
+            if (!(other instanceof Conversion)) {
+                return false;
+            }
+            Conversion o = (Conversion) other;
+            return epochMillis == o.epochMillis && fromUnit == o.fromUnit && toUnit == o.toUnit
+                    && precision == o.precision && Double.compare(fromValue, o.fromValue) == 0
+                    && Double.compare(toValue, o.toValue) == 0;
+        }
+
+        @Override
+        int searchUnits() {
+            return (1 << fromUnit) | (1 << toUnit);
+        }
+
+        @Override
+        CharSequence[] searchValues(NumberFormatter formatter) {
+            int digits = NumberFormatter.fractionDigits(precision);
+            return new CharSequence[]{
+                    formatter.formatFixed(fromValue, digits, false),
+                    formatter.formatFixed(toValue, digits, false)
+            };
+        }
+    }
+
+    /**
+     * 时间间隔记录，开始和结束时间按UTC保存为纪元秒
+     */
+    static final class Interval extends HistoryItem {
+        final long startSecond;
+        final int startNano;
+        final long endSecond;
+        final int endNano;
+
+        Interval(long id, long startSecond, int startNano, long endSecond, int endNano, long epochMillis) {
+            super(id, epochMillis);
+            this.startSecond = startSecond;
+            this.startNano = startNano;
+            this.endSecond = endSecond;
+            this.endNano = endNano;
+        }
+
+        // “开始 → 结束（1天 5小时 15分钟）”
+        @Override
+        void appendText(StringBuilder out, NumberFormatter formatter, DateTimeRenderer dateTimeRenderer) {
+            DateTimeTexts.appendTo(out, dateTimeRenderer, toDateTime(startSecond, startNano)).append(" → ");
+            DateTimeTexts.appendTo(out, dateTimeRenderer, toDateTime(endSecond, endNano));
+
+            long duration = duration();
+            out.append(duration < 0 ? "（-" : "（");
+            duration = IntervalMath.abs(duration);
+            out.append(IntervalMath.totalDays(duration)).append("天 ")
+                    .append(IntervalMath.hoursPart(duration)).append("小时 ")
+                    .append(IntervalMath.minutesPart(duration)).append("分钟）");
+        }
+
+        @Override
+        boolean sameContent(HistoryItem other) {
+            if (!(other instanceof Interval)) {
+                return false;
+            }
+            Interval o = (Interval) other;
+            return epochMillis == o.epochMillis && startSecond == o.startSecond && startNano == o.startNano
+                    && endSecond == o.endSecond && endNano == o.endNano;
+        }
+
+        @Override
+        int searchUnits() {
+            return (1 << TimeUnits.DAY) | (1 << TimeUnits.HOUR) | (1 << TimeUnits.MINUTE);
+        }
+
+        // 显示的天数（带符号）、小时和分钟
+        @Override
+        CharSequence[] searchValues(NumberFormatter formatter) {
+            long duration = duration();
+            long abs = IntervalMath.abs(duration);
+            String days = Long.toString(IntervalMath.totalDays(abs));
+            return new CharSequence[]{
+                    duration < 0 ? "-" + days : days,
+                    Integer.toString(IntervalMath.hoursPart(abs)),
+                    Integer.toString(IntervalMath.minutesPart(abs))
+            };
+        }
+
+        private long duration() {
+            return IntervalMath.between(IntervalMath.epochNanos(startSecond, startNano),
+                    IntervalMath.epochNanos(endSecond, endNano));
+        }
+    }
+
+    /**
+     * 时间推算记录，基准和结果时间按UTC保存为纪元秒
+     */
+    static final class Projection extends HistoryItem {
+        final long baseSecond;
+        final int baseNano;
+        final double amount;
+        final byte unit;
+        final boolean add;
+        final long resultSecond;
+
+        Projection(long id, long baseSecond, int baseNano, double amount, int unit, boolean add,
+                   long resultSecond, long epochMillis) {
+            super(id, epochMillis);
+            this.baseSecond = baseSecond;
+            this.baseNano = baseNano;
+            this.amount = amount;
+            this.unit = (byte) unit;
+            this.add = add;
+            this.resultSecond = resultSecond;
+        }
+
+        // “基准 + 3 小时 = 结果”
+        @Override
+        void appendText(StringBuilder out, NumberFormatter formatter, DateTimeRenderer dateTimeRenderer) {
+            DateTimeTexts.appendTo(out, dateTimeRenderer, toDateTime(baseSecond, baseNano))
+                    .append(add ? " + " : " - ");
+            formatter.appendFixed(out, amount, 3, false).append(' ').append(TimeUnits.name(unit)).append(" = ");
+            DateTimeTexts.appendTo(out, dateTimeRenderer, toDateTime(resultSecond, baseNano));
+        }
+
+        @Override
+        boolean sameContent(HistoryItem other) {
+            if (!(other instanceof Projection)) {
+                return false;
+            }
+            Projection o = (Projection) other;
+            return epochMillis == o.epochMillis && baseSecond == o.baseSecond && baseNano == o.baseNano
+                    && Double.compare(amount, o.amount) == 0 && unit == o.unit && add == o.add
+                    && resultSecond == o.resultSecond;
+        }
+
+        @Override
+        int searchUnits() {
+            return 1 << unit;
+        }
+
+        @Override
+        CharSequence[] searchValues(NumberFormatter formatter) {
+            return new CharSequence[]{formatter.formatFixed(amount, 3, false)};
+        }
+    }
+}
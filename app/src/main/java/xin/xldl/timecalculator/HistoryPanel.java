@@ -0,0 +1,328 @@
+package xin.xldl.timecalculator;
+
+import android.app.Activity;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 计算界面中的历史记录列表
+ *
+ * 打开时只从 {@link HistoryDatabase} 读取第一页，滚动到接近末尾时再在数据库线程读取更早的一页，
+ * 结果送回主线程追加。新记录由界面插入到开头。
+ * 搜索框有内容时列表改为显示搜索结果（最新的 {@link #SEARCH_LIMIT} 条），清空后恢复。只在主线程使用。
+ */
+final class HistoryPanel {
+
+    private static final String TAG = "HistoryPanel";
+
+    /** 每页读取的记录数 */
+    static final int PAGE_SIZE = 50;
+
+    /** 最多显示的搜索结果数 */
+    static final int SEARCH_LIMIT = 200;
+
+    /**
+     * 一页记录已显示
+     */
+    interface PageListener {
+        void onPageLoaded(List<HistoryItem> page, boolean first);
+    }
+
+    private final Activity activity;
+    private final HistoryDatabase database;
+    private final String table;
+    private final RecyclerView listHistory;
+    private final TextView tvNoHistory;
+    private final EditText etSearch;
+    private final CharSequence emptyText;
+    private final HistoryAdapter adapter;
+    private final PageListener pageListener;
+
+    private final List<HistoryItem> items = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // 分页位置，只在数据库线程访问
+    private final HistoryDatabase.PageKey pageKey = new HistoryDatabase.PageKey();
+    private boolean loading;
+    private boolean exhausted;
+    private boolean firstPage = true;
+    // 清空后递增，丢弃清空前发出的读取
+    private int generation;
+
+    // 搜索结果，没有搜索时为 null；每次搜索递增序号，丢弃过时的结果
+    private List<HistoryItem> results;
+    private String query = "";
+    private int searchGeneration;
+
+    /**
+     * 使用界面中的 list_history、tv_no_history 和 et_history_search，并开始读取第一页
+     *
+     * @param pageListener 可为 null
+     */
+    HistoryPanel(Activity activity, String table, HistoryAdapter.OnItemClickListener clickListener,
+                 PageListener pageListener) {
+        this.activity = activity;
+        this.database = HistoryDatabase.get(activity);
+        this.table = table;
+        this.pageListener = pageListener;
+        listHistory = activity.findViewById(R.id.list_history);
+        tvNoHistory = activity.findViewById(R.id.tv_no_history);
+        etSearch = activity.findViewById(R.id.et_history_search);
+        emptyText = tvNoHistory.getText();
+
+        LinearLayoutManager layoutManager = new LinearLayoutManager(activity);
+        listHistory.setLayoutManager(layoutManager);
+        listHistory.setHasFixedSize(true);
+
+        DividerItemDecoration divider = new DividerItemDecoration(activity, DividerItemDecoration.VERTICAL);
+        Drawable dividerDrawable = ContextCompat.getDrawable(activity, R.drawable.divider_history);
+        if (dividerDrawable != null) {
+            divider.setDrawable(dividerDrawable);
+        }
+        listHistory.addItemDecoration(divider);
+
+        adapter = new HistoryAdapter(clickListener);
+        listHistory.setAdapter(adapter);
+
+        // 接近末尾时读取下一页
+        listHistory.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (results == null && layoutManager.findLastVisibleItemPosition() >= items.size() - PAGE_SIZE / 2) {
+                    loadMore();
+                }
+            }
+        });
+
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                search(s.toString().trim());
+            }
+        });
+
+        updateDisplay();
+        loadMore();
+    }
+
+    /**
+     * 最新的一条记录，没有时为 null
+     */
+    HistoryItem first() {
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    /**
+     * 在开头插入一条新记录
+     */
+    void add(HistoryItem item) {
+        items.add(0, item);
+        updateDisplay();
+        refreshSearch();
+    }
+
+    /**
+     * 替换开头的一条记录（与上一条合并，沿用它的ID），列表为空时插入
+     */
+    void replaceFirst(HistoryItem item) {
+        if (items.isEmpty()) {
+            items.add(item);
+        } else {
+            item.id = items.get(0).id;
+            items.set(0, item);
+        }
+        updateDisplay();
+        refreshSearch();
+    }
+
+    /**
+     * 询问后清空列表和数据库中的记录
+     *
+     * @param onCleared 清空后在主线程执行，可为 null
+     */
+    void confirmClear(Runnable onCleared) {
+        if (items.isEmpty()) {
+            Toast.makeText(activity, "历史记录已为空", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(activity);
+        builder.setTitle("确认清空");
+        builder.setMessage("确定要清空所有历史记录吗？");
+        builder.setPositiveButton("清空", (dialog, which) -> {
+            items.clear();
+            // 数据库里已没有更早的记录
+            generation++;
+            loading = false;
+            exhausted = true;
+            // 清空搜索框，同时结束搜索
+            etSearch.setText("");
+            updateDisplay();
+            HistoryDatabase.execute(() -> database.clear(table));
+            if (onCleared != null) {
+                onCleared.run();
+            }
+            Toast.makeText(activity, "历史记录已清空", Toast.LENGTH_SHORT).show();
+        });
+        builder.setNegativeButton("取消", null);
+        builder.show();
+    }
+
+    /**
+     * 数据库中的记录在别处改变（如导入）后，从第一页重新读取，搜索时重新搜索
+     */
+    void reload() {
+        items.clear();
+        // 丢弃正在读取的页
+        generation++;
+        loading = false;
+        exhausted = false;
+        // 排在已提交的读取之后重置分页位置
+        HistoryDatabase.execute(pageKey::reset);
+        updateDisplay();
+        loadMore();
+        if (!query.isEmpty()) {
+            search(query);
+        }
+    }
+
+    /**
+     * 在数据库线程搜索，结果送回主线程显示；text 为空时结束搜索
+     */
+    private void search(String text) {
+        query = text;
+        searchGeneration++;
+        if (text.isEmpty()) {
+            results = null;
+            updateDisplay();
+            return;
+        }
+
+        final int requested = searchGeneration;
+        HistoryDatabase.execute(() -> {
+            List<HistoryItem> found;
+            try {
+                found = database.search(table, text, SEARCH_LIMIT);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "搜索历史记录失败", e);
+                found = Collections.emptyList();
+            }
+            final List<HistoryItem> loaded = found;
+            handler.post(() -> onSearchDone(requested, loaded));
+        });
+    }
+
+    private void onSearchDone(int requested, List<HistoryItem> found) {
+        if (requested != searchGeneration || activity.isDestroyed()) {
+            return;
+        }
+        results = found;
+        updateDisplay();
+    }
+
+    /**
+     * 搜索时新增了记录，重新搜索
+     */
+    private void refreshSearch() {
+        if (results != null) {
+            // 界面在 add 之后才把写入交给数据库线程，推迟到下一轮消息再搜索，保证排在写入之后
+            handler.post(() -> {
+                if (!query.isEmpty()) {
+                    search(query);
+                }
+            });
+        }
+    }
+
+    /**
+     * 在数据库线程读取下一页
+     */
+    private void loadMore() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        final int requested = generation;
+        HistoryDatabase.execute(() -> {
+            List<HistoryItem> page;
+            boolean end;
+            try {
+                page = database.loadPage(table, pageKey, PAGE_SIZE);
+                end = pageKey.exhausted;
+            } catch (RuntimeException e) {
+                Log.w(TAG, "读取历史记录失败", e);
+                page = Collections.emptyList();
+                end = true;
+            }
+            final List<HistoryItem> loaded = page;
+            final boolean last = end;
+            handler.post(() -> onPageLoaded(requested, loaded, last));
+        });
+    }
+
+    private void onPageLoaded(int requested, List<HistoryItem> page, boolean last) {
+        if (requested != generation || activity.isDestroyed()) {
+            return;
+        }
+        loading = false;
+        exhausted = last;
+        boolean first = firstPage;
+        firstPage = false;
+
+        items.addAll(page);
+        updateDisplay();
+        if (pageListener != null) {
+            pageListener.onPageLoaded(page, first);
+        }
+    }
+
+    /**
+     * 提交列表快照（搜索时为搜索结果），差异在后台计算；停留在顶部时让新记录保持可见
+     */
+    private void updateDisplay() {
+        List<HistoryItem> shown = results != null ? results : items;
+        if (shown.isEmpty()) {
+            tvNoHistory.setText(results != null ? "没有匹配的记录" : emptyText);
+            listHistory.setVisibility(View.GONE);
+            tvNoHistory.setVisibility(View.VISIBLE);
+        } else {
+            listHistory.setVisibility(View.VISIBLE);
+            tvNoHistory.setVisibility(View.GONE);
+        }
+
+        LinearLayoutManager layoutManager = (LinearLayoutManager) listHistory.getLayoutManager();
+        boolean atTop = layoutManager == null || layoutManager.findFirstVisibleItemPosition() <= 0;
+        adapter.submitList(new ArrayList<>(shown), () -> {
+            if (atTop) {
+                listHistory.scrollToPosition(0);
+            }
+        });
+    }
+}
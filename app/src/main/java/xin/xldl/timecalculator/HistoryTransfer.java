@@ -0,0 +1,179 @@
+package xin.xldl.timecalculator;
+
+import android.app.Activity;
+import android.content.ContentResolver;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AlertDialog;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import xin.xldl.timecalculator.core.HistoryExport;
+
+/**
+ * 换算历史的导出与导入
+ *
+ * 通过系统文件选择器选择文件，在数据库线程用 {@link HistoryExport} 流式读写，完成后在主线程提示条数。
+ * 所在界面需要把 onActivityResult 转交给 {@link #onActivityResult}。只在主线程使用。
+ */
+final class HistoryTransfer {
+
+    private static final String TAG = "HistoryTransfer";
+
+    // 请求码：导出为 REQUEST_EXPORT + 格式 * 2 + 是否压缩（两种格式占 +0 ~ +3），导入紧随其后
+    private static final int REQUEST_EXPORT = 0x4870;
+    private static final int REQUEST_IMPORT = REQUEST_EXPORT + (HistoryExport.JSON_LINES + 1) * 2;
+
+    private static final String FILE_NAME = "conversion_history";
+
+    private final Activity activity;
+    private final HistoryDatabase database;
+    private final Runnable onImported;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * @param onImported 导入完成后在主线程执行
+     */
+    HistoryTransfer(Activity activity, Runnable onImported) {
+        this.activity = activity;
+        this.database = HistoryDatabase.get(activity);
+        this.onImported = onImported;
+    }
+
+    /**
+     * 显示导出和导入选项
+     */
+    void showMenu() {
+        String[] options = {"导出为CSV", "导出为CSV（gzip压缩）", "导出为JSON Lines", "导出为JSON Lines（gzip压缩）",
+                "从文件导入"};
+        AlertDialog.Builder builder = new AlertDialog.Builder(activity);
+        builder.setTitle("导入/导出换算历史");
+        builder.setItems(options, (dialog, which) -> {
+            switch (which) {
+                case 0:
+                    chooseExportFile(HistoryExport.CSV, false);
+                    break;
+                case 1:
+                    chooseExportFile(HistoryExport.CSV, true);
+                    break;
+                case 2:
+                    chooseExportFile(HistoryExport.JSON_LINES, false);
+                    break;
+                case 3:
+                    chooseExportFile(HistoryExport.JSON_LINES, true);
+                    break;
+                default:
+                    chooseImportFile();
+                    break;
+            }
+        });
+        builder.setNegativeButton("取消", null);
+        builder.show();
+    }
+
+    private void chooseExportFile(int format, boolean gzip) {
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(gzip ? "application/gzip" : format == HistoryExport.CSV ? "text/csv" : "application/x-ndjson");
+        intent.putExtra(Intent.EXTRA_TITLE, FILE_NAME + HistoryExport.extension(format, gzip));
+        activity.startActivityForResult(intent, REQUEST_EXPORT + format * 2 + (gzip ? 1 : 0));
+    }
+
+    private void chooseImportFile() {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        // 格式和压缩由文件内容判断
+        intent.setType("*/*");
+        activity.startActivityForResult(intent, REQUEST_IMPORT);
+    }
+
+    /**
+     * 处理文件选择的结果
+     *
+     * @return 请求码属于导入导出时返回 true
+     */
+    boolean onActivityResult(int requestCode, int resultCode, Intent data) {
+        if (requestCode < REQUEST_EXPORT || requestCode > REQUEST_IMPORT) {
+            return false;
+        }
+        Uri uri = data != null ? data.getData() : null;
+        if (resultCode != Activity.RESULT_OK || uri == null) {
+            return true;
+        }
+
+        if (requestCode == REQUEST_IMPORT) {
+            startImport(uri);
+        } else {
+            int code = requestCode - REQUEST_EXPORT;
+            startExport(uri, code / 2, code % 2 == 1);
+        }
+        return true;
+    }
+
+    private void startExport(Uri uri, int format, boolean gzip) {
+        ContentResolver resolver = activity.getContentResolver();
+        HistoryDatabase.execute(() -> {
+            String message;
+            try (ParcelFileDescriptor descriptor = open(resolver, uri, "wt");
+                 FileOutputStream out = new FileOutputStream(descriptor.getFileDescriptor());
+                 FileChannel channel = out.getChannel();
+                 HistoryExport.Writer writer = new HistoryExport.Writer(channel, format, gzip)) {
+                message = "已导出 " + database.exportConversions(writer) + " 条记录";
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "导出历史记录失败", e);
+                message = "导出失败：" + e.getMessage();
+            }
+            final String text = message;
+            handler.post(() -> Toast.makeText(activity, text, Toast.LENGTH_LONG).show());
+        });
+    }
+
+    private void startImport(Uri uri) {
+        ContentResolver resolver = activity.getContentResolver();
+        HistoryDatabase.execute(() -> {
+            String message;
+            boolean imported = false;
+            try (ParcelFileDescriptor descriptor = open(resolver, uri, "r");
+                 FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+                 FileChannel channel = in.getChannel();
+                 HistoryExport.Reader reader = new HistoryExport.Reader(channel)) {
+                long count = database.importConversions(reader);
+                imported = count > 0;
+                message = "已导入 " + count + " 条记录";
+                if (reader.skipped() > 0) {
+                    message += "，跳过 " + reader.skipped() + " 行无法识别的内容";
+                }
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "导入历史记录失败", e);
+                message = "导入失败：" + e.getMessage();
+            }
+            final String text = message;
+            final boolean changed = imported;
+            handler.post(() -> {
+                Toast.makeText(activity, text, Toast.LENGTH_LONG).show();
+                if (changed && !activity.isDestroyed()) {
+                    onImported.run();
+                }
+            });
+        });
+    }
+
+    private static ParcelFileDescriptor open(ContentResolver resolver, Uri uri, String mode)
+            throws FileNotFoundException {
+        ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, mode);
+        if (descriptor == null) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        return descriptor;
+    }
+}
@@ -0,0 +1,318 @@
+package xin.xldl.timecalculator;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.Window;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import xin.xldl.timecalculator.core.LatencyHistogram;
+
+/**
+ * 输入到显示的延迟统计
+ *
+ * 每次输入框的 TextWatcher 事件记录时间，结果显示后通过 Choreographer 取得绘制该结果的帧的 vsync 时间，
+ * 再由 FrameMetrics 得到这一帧的完成时间，两者之差即为一次输入的延迟。API 26 及以上按 vsync 时间精确对应帧，
+ * 以下按帧报告的顺序近似对应。同时统计界面可见期间的卡顿帧（超过一个刷新周期）和冻结帧（超过700毫秒）。
+ *
+ * 一次会话从 {@link #start()} 到 {@link #stop()}，结束后可用 {@link #writeTo(File)} 写成JSON文件，
+ * 用于比较不同构建。start/stop/onInput/onResultShown 只能在主线程调用。
+ */
+final class InputLatencyTracker implements Window.OnFrameMetricsAvailableListener {
+
+    private static final long FROZEN_FRAME_NANOS = 700_000_000L;
+
+    // 最多同时跟踪的未显示输入，超出的输入不统计
+    private static final int MAX_PENDING = 64;
+
+    // 每个计算界面保留的会话文件数
+    private static final int MAX_SESSION_FILES = 20;
+
+    // 输入的状态：等待结果、结果已显示但帧尚未开始，其余为帧的 vsync 时间
+    private static final long WAITING_RESULT = -1;
+    private static final long WAITING_FRAME = 0;
+
+    // 所有界面共用一个线程接收帧数据
+    private static Handler metricsHandler;
+
+    private final Activity activity;
+    private final String name;
+    private final Metrics.Stage stage;
+    private final long frameIntervalNanos;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // 未完成的输入，按输入顺序
+    private final long[] inputTimes = new long[MAX_PENDING];
+    private final long[] inputFrames = new long[MAX_PENDING];
+    private int inputCount;
+
+    private long frames;
+    private long jankyFrames;
+    private long frozenFrames;
+    private long droppedReports;
+
+    private long sessionStart;
+    private long sessionEnd;
+    private boolean started;
+    private boolean frameCallbackPosted;
+
+    private final Choreographer.FrameCallback frameCallback = this::onFrame;
+
+    /**
+     * @param name  计算界面的名称，用于文件名
+     * @param stage 同时汇总到诊断界面的阶段
+     */
+    InputLatencyTracker(Activity activity, String name, Metrics.Stage stage) {
+        this.activity = activity;
+        this.name = name;
+        this.stage = stage;
+
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        frameIntervalNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60));
+    }
+
+    /**
+     * 开始统计（界面可见时）
+     */
+    void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        sessionStart = System.currentTimeMillis();
+        activity.getWindow().addOnFrameMetricsAvailableListener(this, metricsHandler());
+    }
+
+    /**
+     * 结束统计，未显示的输入不再计入
+     */
+    void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        sessionEnd = System.currentTimeMillis();
+        activity.getWindow().removeOnFrameMetricsAvailableListener(this);
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        synchronized (this) {
+            frameCallbackPosted = false;
+            inputCount = 0;
+        }
+    }
+
+    /**
+     * 输入框内容变化时调用
+     */
+    void onInput() {
+        if (!started) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (inputCount < MAX_PENDING) {
+                inputTimes[inputCount] = now;
+                inputFrames[inputCount] = WAITING_RESULT;
+                inputCount++;
+            }
+        }
+    }
+
+    /**
+     * 结果（或提示、错误）显示到 resultView 后调用，之前的输入都由下一帧显示
+     */
+    void onResultShown(View resultView) {
+        synchronized (this) {
+            boolean shown = false;
+            for (int i = 0; i < inputCount; i++) {
+                if (inputFrames[i] == WAITING_RESULT) {
+                    inputFrames[i] = WAITING_FRAME;
+                    shown = true;
+                }
+            }
+            if (!shown || frameCallbackPosted) {
+                return;
+            }
+            frameCallbackPosted = true;
+        }
+        // 结果文字没有变化时也绘制一帧，使每次输入都有对应的帧
+        resultView.invalidate();
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        synchronized (this) {
+            frameCallbackPosted = false;
+            for (int i = 0; i < inputCount; i++) {
+                if (inputFrames[i] == WAITING_FRAME) {
+                    inputFrames[i] = frameTimeNanos;
+                }
+            }
+        }
+    }
+
+    /**
+     * 在帧数据线程中接收每一帧的耗时
+     */
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        long total = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+
+        synchronized (this) {
+            frames++;
+            droppedReports += dropCountSinceLastInvocation;
+            if (total > frameIntervalNanos) {
+                jankyFrames++;
+            }
+            if (total > FROZEN_FRAME_NANOS) {
+                frozenFrames++;
+            }
+
+            long vsync;
+            long end;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                vsync = frameMetrics.getMetric(FrameMetrics.VSYNC_TIMESTAMP);
+                end = frameMetrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP) + total;
+            } else {
+                // 没有帧时间戳，取最早一个已开始的帧
+                vsync = Long.MAX_VALUE;
+                for (int i = 0; i < inputCount; i++) {
+                    if (inputFrames[i] > WAITING_FRAME) {
+                        vsync = Math.min(vsync, inputFrames[i]);
+                    }
+                }
+                if (vsync == Long.MAX_VALUE) {
+                    return;
+                }
+                end = vsync + total;
+            }
+            resolve(vsync, end);
+        }
+    }
+
+    /**
+     * 记录由 vsync 这一帧显示的输入；更早的帧没有报告，其中的输入丢弃
+     */
+    private void resolve(long vsync, long end) {
+        int kept = 0;
+        for (int i = 0; i < inputCount; i++) {
+            long frame = inputFrames[i];
+            if (frame == vsync) {
+                long nanos = end - inputTimes[i];
+                latency.record(nanos);
+                stage.record(nanos);
+            } else if (frame <= WAITING_FRAME || frame > vsync) {
+                inputTimes[kept] = inputTimes[i];
+                inputFrames[kept] = frame;
+                kept++;
+            }
+        }
+        inputCount = kept;
+    }
+
+    /**
+     * 本次会话是否有输入被统计
+     */
+    boolean hasSamples() {
+        return latency.count() > 0;
+    }
+
+    /**
+     * 把会话结果写成JSON文件（在后台线程调用），只保留最近的若干个文件
+     */
+    void writeTo(File directory) throws IOException {
+        String json;
+        try {
+            json = toJson().toString(2);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建目录: " + directory);
+        }
+        File file = new File(directory, name + "-" + sessionStart + ".json");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        File[] sessions = directory.listFiles((dir, fileName) -> fileName.startsWith(name + "-"));
+        if (sessions != null && sessions.length > MAX_SESSION_FILES) {
+            // 文件名中的时间戳位数相同，按名称排序即按时间排序
+            Arrays.sort(sessions);
+            for (int i = 0; i < sessions.length - MAX_SESSION_FILES; i++) {
+                sessions[i].delete();
+            }
+        }
+    }
+
+    /**
+     * 会话结果文件所在的目录（可用 adb pull 取出）
+     */
+    static File sessionDirectory(Context context) {
+        File directory = context.getExternalFilesDir("input-latency");
+        return directory != null ? directory : new File(context.getFilesDir(), "input-latency");
+    }
+
+    private synchronized JSONObject toJson() throws JSONException {
+        JSONObject build = new JSONObject();
+        try {
+            PackageInfo info = activity.getPackageManager().getPackageInfo(activity.getPackageName(), 0);
+            build.put("versionName", info.versionName);
+        } catch (PackageManager.NameNotFoundException ignored) {
+        }
+        build.put("debuggable", Metrics.isDebuggable());
+        build.put("sdk", Build.VERSION.SDK_INT);
+        build.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+
+        JSONObject latencyJson = new JSONObject();
+        latencyJson.put("count", latency.count());
+        latencyJson.put("meanNanos", latency.mean());
+        latencyJson.put("p50Nanos", latency.percentile(50));
+        latencyJson.put("p90Nanos", latency.percentile(90));
+        latencyJson.put("p95Nanos", latency.percentile(95));
+        latencyJson.put("p99Nanos", latency.percentile(99));
+        latencyJson.put("maxNanos", latency.max());
+
+        JSONObject framesJson = new JSONObject();
+        framesJson.put("count", frames);
+        framesJson.put("janky", jankyFrames);
+        framesJson.put("frozen", frozenFrames);
+        framesJson.put("droppedReports", droppedReports);
+        framesJson.put("frameIntervalNanos", frameIntervalNanos);
+
+        JSONObject json = new JSONObject();
+        json.put("calculator", name);
+        json.put("sessionStart", sessionStart);
+        json.put("sessionEnd", sessionEnd);
+        json.put("build", build);
+        json.put("inputLatency", latencyJson);
+        json.put("frames", framesJson);
+        return json;
+    }
+
+    private static synchronized Handler metricsHandler() {
+        if (metricsHandler == null) {
+            HandlerThread thread = new HandlerThread("frame-metrics");
+            thread.start();
+            metricsHandler = new Handler(thread.getLooper());
+        }
+        return metricsHandler;
+    }
+}
@@ -8,11 +8,6 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
-import com.jakewharton.threetenabp.AndroidThreeTen;
-
-import org.threeten.bp.LocalDateTime;
-import org.threeten.bp.format.DateTimeFormatter;
-
 public class MainActivity extends AppCompatActivity {
 
     // 用于记录用户设置的时间制式（可以在SharedPreferences中持久化）
@@ -23,37 +18,17 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // 1. 初始化ThreeTenABP时间库
-        initializeTimeLibrary();
-
-        // 2. 设置卡片点击监听器
+        // 1. 设置卡片点击监听器（时间库由 StartupTasks 在后台初始化）
         setupCardListeners();
 
-        // 3. 可选：从SharedPreferences加载用户偏好设置
+        // 2. 可选：从SharedPreferences加载用户偏好设置
         loadUserPreferences();
 
-        // 4. 显示欢迎信息
+        // 3. 显示欢迎信息
         showWelcomeMessage();
-    }
 
-    /**
-     * 初始化时间处理库
-     */
-    private void initializeTimeLibrary() {
-        try {
-            // 初始化ThreeTenABP库，确保时间计算功能可用
-            AndroidThreeTen.init(this);
-
-            // 测试库是否正常工作
-            LocalDateTime now = LocalDateTime.now();
-            String formattedTime = now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            System.out.println("时间库初始化成功，当前时间：" + formattedTime);
-
-        } catch (Exception e) {
-            // 如果初始化失败，显示错误信息但仍允许应用运行
-            Toast.makeText(this, "时间库初始化失败，部分功能可能受限", Toast.LENGTH_SHORT).show();
-            e.printStackTrace();
-        }
+        // 4. 记录冷启动耗时
+        StartupTasks.reportFirstFrame(this);
     }
 
     /**
@@ -178,9 +153,8 @@ public class MainActivity extends AppCompatActivity {
      * 加载用户偏好设置
      */
     private void loadUserPreferences() {
-        // 使用SharedPreferences加载用户的时间制式偏好
-        android.content.SharedPreferences prefs = getSharedPreferences("TimeCalculatorPrefs", MODE_PRIVATE);
-        is24HourFormat = prefs.getBoolean("time_format_24h", true); // 默认为24小时制
+        // 加载用户的时间制式偏好（与其他界面共用同一个设置存储）
+        is24HourFormat = PreferenceStore.get(this, "TimeCalculatorPrefs").getBoolean("time_format_24h", true); // 默认为24小时制
 
         // 也可以加载其他设置，如主题颜色等
     }
@@ -189,10 +163,7 @@ public class MainActivity extends AppCompatActivity {
      * 保存用户偏好设置
      */
     private void saveUserPreferences() {
-        android.content.SharedPreferences prefs = getSharedPreferences("TimeCalculatorPrefs", MODE_PRIVATE);
-        android.content.SharedPreferences.Editor editor = prefs.edit();
-        editor.putBoolean("time_format_24h", is24HourFormat);
-        editor.apply();
+        PreferenceStore.get(this, "TimeCalculatorPrefs").putBoolean("time_format_24h", is24HourFormat);
     }
 
     /**
@@ -200,7 +171,7 @@ public class MainActivity extends AppCompatActivity {
      */
     private void showWelcomeMessage() {
         // 首次启动时显示欢迎信息
-        android.content.SharedPreferences prefs = getSharedPreferences("TimeCalculatorPrefs", MODE_PRIVATE);
+        PreferenceStore prefs = PreferenceStore.get(this, "TimeCalculatorPrefs");
         boolean isFirstLaunch = prefs.getBoolean("first_launch", true);
 
         if (isFirstLaunch) {
@@ -208,9 +179,7 @@ public class MainActivity extends AppCompatActivity {
             Toast.makeText(this, "欢迎使用时间计算器！", Toast.LENGTH_SHORT).show();
 
             // 标记已不是首次启动
-            android.content.SharedPreferences.Editor editor = prefs.edit();
-            editor.putBoolean("first_launch", false);
-            editor.apply();
+            prefs.putBoolean("first_launch", false);
         }
     }
 
@@ -220,6 +189,7 @@ public class MainActivity extends AppCompatActivity {
     @Override
     public boolean onCreateOptionsMenu(android.view.Menu menu) {
         getMenuInflater().inflate(R.menu.menu_main, menu);
+        menu.findItem(R.id.action_diagnostics).setVisible(Metrics.isDebuggable());
         return true;
     }
 
@@ -242,6 +212,10 @@ public class MainActivity extends AppCompatActivity {
             // 显示帮助信息
             showHelpDialog();
             return true;
+        } else if (id == R.id.action_diagnostics) {
+            // 打开性能诊断界面
+            startActivity(new Intent(this, DiagnosticsActivity.class));
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
@@ -348,7 +322,8 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
-        // 保存当前设置
+        // 保存当前设置并立即写入
         saveUserPreferences();
+        PreferenceStore.get(this, "TimeCalculatorPrefs").flush();
     }
 }
\ No newline at end of file
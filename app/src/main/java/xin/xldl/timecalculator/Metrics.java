@@ -0,0 +1,215 @@
+package xin.xldl.timecalculator;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Debug;
+import android.os.Trace;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import xin.xldl.timecalculator.core.LatencyHistogram;
+
+/**
+ * 热点路径耗时统计
+ *
+ * 三个计算界面的计算、格式化、渲染、保存各对应一个阶段，每个阶段记录耗时直方图，
+ * 同时输出 systrace/Perfetto 中可见的 Trace 区段。可调试的构建中还统计各阶段在当前线程的分配字节数。
+ * 用法：
+ * <pre>
+ * long start = Metrics.CONVERTER.calculate.begin();
+ * try { ... } finally { Metrics.CONVERTER.calculate.end(start); }
+ * </pre>
+ */
+final class Metrics {
+
+    private static final List<Stage> STAGES = new ArrayList<>();
+
+    static final Calculator CONVERTER = new Calculator("converter", "单位换算");
+    static final Calculator POINT = new Calculator("point", "时间推算");
+    static final Calculator INTERVAL = new Calculator("interval", "时间间隔");
+
+    // 防抖结束后在写入线程合并写入偏好设置（各界面共用一个偏好文件，不区分界面）
+    static final Stage PREFERENCES_WRITE = new Stage("preferences.write", "设置写入");
+
+    // 输入框变化到结果所在帧绘制完成（由 InputLatencyTracker 记录）
+    static final Stage CONVERTER_INPUT = new Stage("converter.input", "单位换算·输入到显示");
+    static final Stage POINT_INPUT = new Stage("point.input", "时间推算·输入到显示");
+
+    private static volatile boolean debuggable;
+    private static volatile boolean allocationCounting;
+
+    private Metrics() {
+    }
+
+    /**
+     * 应用启动时调用：可调试的构建中开启分配计数
+     */
+    @SuppressWarnings("deprecation")
+    static void init(Context context) {
+        debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (debuggable && !allocationCounting) {
+            Debug.startAllocCounting();
+            allocationCounting = true;
+        }
+    }
+
+    /**
+     * 是否为可调试的构建（诊断界面只在这种构建中显示）
+     */
+    static boolean isDebuggable() {
+        return debuggable;
+    }
+
+    static boolean isAllocationCounting() {
+        return allocationCounting;
+    }
+
+    static List<Stage> stages() {
+        synchronized (STAGES) {
+            return Collections.unmodifiableList(new ArrayList<>(STAGES));
+        }
+    }
+
+    static void reset() {
+        for (Stage stage : stages()) {
+            stage.reset();
+        }
+    }
+
+    /**
+     * 各阶段统计的文本，每个阶段一行，耗时单位为毫秒
+     */
+    static String describe() {
+        StringBuilder text = new StringBuilder();
+        for (Stage stage : stages()) {
+            LatencyHistogram histogram = stage.histogram;
+            long count = histogram.count();
+            text.append(stage.label).append("：").append(count).append("次");
+            if (count > 0) {
+                text.append(String.format(Locale.ROOT, "  p50 %.3f  p95 %.3f  p99 %.3f  最大 %.3f",
+                        millis(histogram.percentile(50)), millis(histogram.percentile(95)),
+                        millis(histogram.percentile(99)), millis(histogram.max())));
+                if (allocationCounting) {
+                    text.append("  分配 ").append(stage.allocatedBytes.get() / count).append("B/次");
+                }
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * 导出为JSON，耗时单位为纳秒
+     */
+    static JSONObject toJson() throws JSONException {
+        JSONObject stages = new JSONObject();
+        for (Stage stage : stages()) {
+            LatencyHistogram histogram = stage.histogram;
+            JSONObject item = new JSONObject();
+            item.put("label", stage.label);
+            item.put("count", histogram.count());
+            item.put("meanNanos", histogram.mean());
+            item.put("p50Nanos", histogram.percentile(50));
+            item.put("p95Nanos", histogram.percentile(95));
+            item.put("p99Nanos", histogram.percentile(99));
+            item.put("maxNanos", histogram.max());
+            if (allocationCounting) {
+                item.put("allocatedBytes", stage.allocatedBytes.get());
+            }
+            stages.put(stage.name, item);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("timestamp", System.currentTimeMillis());
+        json.put("allocationCounting", allocationCounting);
+        json.put("stages", stages);
+        return json;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * 一个计算界面的四个阶段
+     */
+    static final class Calculator {
+        final Stage calculate;
+        final Stage format;
+        final Stage render;
+        // 在数据库线程写入历史记录（偏好设置的写入计入 PREFERENCES_WRITE）
+        final Stage persist;
+
+        private Calculator(String name, String label) {
+            calculate = new Stage(name + ".calculate", label + "·计算");
+            format = new Stage(name + ".format", label + "·格式化");
+            render = new Stage(name + ".render", label + "·渲染");
+            persist = new Stage(name + ".persist", label + "·保存");
+        }
+    }
+
+    /**
+     * 一个计时阶段
+     *
+     * begin 和 end 必须在同一线程中成对调用；每个阶段同一时间只在一个线程中执行。
+     */
+    static final class Stage {
+        final String name;
+        final String label;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicLong allocatedBytes = new AtomicLong();
+
+        // 只在执行该阶段的线程中使用
+        private long allocationStart;
+
+        private Stage(String name, String label) {
+            this.name = name;
+            this.label = label;
+            synchronized (STAGES) {
+                STAGES.add(this);
+            }
+        }
+
+        /**
+         * 开始计时
+         *
+         * @return 传给 {@link #end(long)} 的开始时间
+         */
+        @SuppressWarnings("deprecation")
+        long begin() {
+            Trace.beginSection(name);
+            if (allocationCounting) {
+                allocationStart = Debug.getThreadAllocSize();
+            }
+            return System.nanoTime();
+        }
+
+        @SuppressWarnings("deprecation")
+        void end(long start) {
+            histogram.record(System.nanoTime() - start);
+            if (allocationCounting) {
+                allocatedBytes.addAndGet(Debug.getThreadAllocSize() - allocationStart);
+            }
+            Trace.endSection();
+        }
+
+        /**
+         * 记录在别处测得的耗时
+         */
+        void record(long nanos) {
+            histogram.record(nanos);
+        }
+
+        void reset() {
+            histogram.reset();
+            allocatedBytes.set(0);
+        }
+    }
+}
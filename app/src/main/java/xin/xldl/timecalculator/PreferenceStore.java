@@ -0,0 +1,213 @@
+package xin.xldl.timecalculator;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import xin.xldl.timecalculator.core.IoGuard;
+
+/**
+ * 延迟批量写入的偏好设置
+ *
+ * 修改先记录在内存中，读取时优先返回未写入的值；停止修改一段时间后（防抖），
+ * 所有修改在后台线程合并为一次 apply()。界面暂停时调用 {@link #flush()} 在当前线程 apply()，
+ * 系统在界面暂停和停止时等待排队的写入完成，与直接使用 apply() 一样不会因进程被杀而丢失修改。
+ * 每个偏好文件对应一个实例，所有界面共享，可在任意线程使用。
+ */
+final class PreferenceStore {
+
+    // 防抖时间：最后一次修改后等待多久再写入
+    private static final long DEBOUNCE_MS = 1000;
+
+    // 表示删除的占位值
+    private static final Object REMOVED = new Object();
+
+    private static final Map<String, PreferenceStore> STORES = new HashMap<>();
+
+    // 所有偏好文件共用一个写入线程，保证同一文件的写入按顺序进行
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "preference-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SharedPreferences prefs;
+
+    // 尚未写入的修改，按修改顺序
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    // 偏好文件是否已读入内存
+    private volatile boolean loaded;
+
+    private PreferenceStore(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * 取得偏好文件对应的实例
+     */
+    static PreferenceStore get(Context context, String name) {
+        synchronized (STORES) {
+            PreferenceStore store = STORES.get(name);
+            if (store == null) {
+                store = new PreferenceStore(
+                        context.getApplicationContext().getSharedPreferences(name, Context.MODE_PRIVATE));
+                STORES.put(name, store);
+            }
+            return store;
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    synchronized String getString(String key, String defaultValue) {
+        Object value = lookup(key);
+        if (value == REMOVED) {
+            return defaultValue;
+        }
+        if (value instanceof String) {
+            return (String) value;
+        }
+        awaitLoaded();
+        return prefs.getString(key, defaultValue);
+    }
+
+    synchronized int getInt(String key, int defaultValue) {
+        Object value = lookup(key);
+        if (value == REMOVED) {
+            return defaultValue;
+        }
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        awaitLoaded();
+        return prefs.getInt(key, defaultValue);
+    }
+
+    synchronized boolean getBoolean(String key, boolean defaultValue) {
+        Object value = lookup(key);
+        if (value == REMOVED) {
+            return defaultValue;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        awaitLoaded();
+        return prefs.getBoolean(key, defaultValue);
+    }
+
+    /**
+     * 在当前线程中读入偏好文件，之后的读取不再等待磁盘
+     */
+    void preload() {
+        awaitLoaded();
+    }
+
+    /**
+     * 第一次读取时可能要等待偏好文件从磁盘读入，只把这一次计为磁盘读取
+     */
+    private void awaitLoaded() {
+        if (loaded) {
+            return;
+        }
+        long start = IoGuard.begin();
+        prefs.contains("");
+        IoGuard.end(IoGuard.READ, "preferences.load", start);
+        loaded = true;
+    }
+
+    // ==================== 修改 ====================
+
+    void putString(String key, String value) {
+        set(key, value == null ? REMOVED : value);
+    }
+
+    void putInt(String key, int value) {
+        set(key, value);
+    }
+
+    void putBoolean(String key, boolean value) {
+        set(key, value);
+    }
+
+    void remove(String key) {
+        set(key, REMOVED);
+    }
+
+    /**
+     * 在当前线程把所有未保存的修改交给 apply()，界面暂停时调用
+     *
+     * 只更新内存并排队写入，不等待磁盘；系统在界面暂停和停止时等待写入完成。
+     */
+    synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (!pending.isEmpty()) {
+            apply();
+        }
+    }
+
+    private Object lookup(String key) {
+        return pending.get(key);
+    }
+
+    private synchronized void set(String key, Object value) {
+        pending.put(key, value);
+
+        // 每次修改都重新计时，连续输入只在停下后写入一次
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = WRITER.schedule(this::write, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 防抖结束后在写入线程中执行
+     */
+    private synchronized void write() {
+        scheduledFlush = null;
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = Metrics.PREFERENCES_WRITE.begin();
+        try {
+            apply();
+        } finally {
+            Metrics.PREFERENCES_WRITE.end(start);
+        }
+    }
+
+    /**
+     * 取出所有修改，合并为一次 apply()
+     *
+     * 持有锁时调用：各次 apply() 按取出修改的顺序更新内存，后写的值不会被先写的覆盖。
+     */
+    private void apply() {
+        awaitLoaded();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, Object> entry : pending.entrySet()) {
+            Object value = entry.getValue();
+            if (value == REMOVED) {
+                editor.remove(entry.getKey());
+            } else if (value instanceof String) {
+                editor.putString(entry.getKey(), (String) value);
+            } else if (value instanceof Integer) {
+                editor.putInt(entry.getKey(), (Integer) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(entry.getKey(), (Boolean) value);
+            }
+        }
+        pending.clear();
+        // 内存中的值立即更新，磁盘写入由系统排队进行
+        editor.apply();
+    }
+}
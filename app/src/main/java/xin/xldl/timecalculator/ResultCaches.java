@@ -0,0 +1,85 @@
+package xin.xldl.timecalculator;
+
+import android.content.ComponentCallbacks2;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xin.xldl.timecalculator.core.ResultCache;
+
+/**
+ * 进程内的结果缓存
+ *
+ * 各界面的结果缓存都在这里创建，进程存活期间跨界面共享；内存紧张时由
+ * {@link TimeCalculatorApp#onTrimMemory(int)} 统一清理。
+ */
+final class ResultCaches {
+
+    private static final List<String> NAMES = new ArrayList<>();
+    private static final List<ResultCache<?>> CACHES = new ArrayList<>();
+
+    private ResultCaches() {
+    }
+
+    /**
+     * 创建并登记一个缓存
+     */
+    static synchronized <V> ResultCache<V> create(String name, int capacity) {
+        ResultCache<V> cache = new ResultCache<>(capacity);
+        NAMES.add(name);
+        CACHES.add(cache);
+        return cache;
+    }
+
+    /**
+     * 按内存紧张程度清理：界面不可见时保留一半，更严重时全部清空
+     */
+    static synchronized void onTrimMemory(int level) {
+        boolean clearAll = level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+        for (ResultCache<?> cache : CACHES) {
+            if (clearAll) {
+                cache.clear();
+            } else {
+                cache.trimToSize(cache.capacity() / 2);
+            }
+        }
+    }
+
+    /**
+     * 各缓存的命中统计，每个缓存一行
+     */
+    static synchronized String describe() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < CACHES.size(); i++) {
+            ResultCache<?> cache = CACHES.get(i);
+            text.append(NAMES.get(i))
+                    .append("：命中 ").append(cache.hitCount())
+                    .append("，未命中 ").append(cache.missCount())
+                    .append("，条目 ").append(cache.size()).append('/').append(cache.capacity())
+                    .append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * 各缓存的命中统计，键为缓存名称
+     */
+    static synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        for (int i = 0; i < CACHES.size(); i++) {
+            ResultCache<?> cache = CACHES.get(i);
+            JSONObject item = new JSONObject();
+            item.put("hits", cache.hitCount());
+            item.put("misses", cache.missCount());
+            item.put("size", cache.size());
+            item.put("capacity", cache.capacity());
+            json.put(NAMES.get(i), item);
+        }
+        return json;
+    }
+}
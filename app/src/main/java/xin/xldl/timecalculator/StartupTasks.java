@@ -0,0 +1,143 @@
+package xin.xldl.timecalculator;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.jakewharton.threetenabp.AndroidThreeTen;
+
+import org.threeten.bp.ZoneId;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
+/**
+ * 启动任务
+ *
+ * 应用启动时在后台线程并行执行：时区数据加载、偏好文件预读、格式化器预热。
+ * 时区数据只初始化一次，需要时区的界面通过 {@link #awaitTimeZones} 等待，其余界面不受影响。
+ * 各任务耗时和冷启动到首帧的时间输出到日志（标签 StartupTasks）。
+ */
+final class StartupTasks {
+
+    private static final String TAG = "StartupTasks";
+
+    private static Future<?> timeZones;
+    private static boolean firstFrameReported;
+
+    private StartupTasks() {
+    }
+
+    /**
+     * 启动所有任务，重复调用无效果
+     */
+    static synchronized void start(Application application) {
+        if (timeZones != null) {
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                r.run();
+            }, "startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 时区数据：初始化ThreeTenABP并立即读入默认时区的规则
+        timeZones = executor.submit(timed("时区数据", () -> {
+            AndroidThreeTen.init(application);
+            ZoneId.systemDefault().getRules();
+        }));
+
+        // 偏好文件：读入内存，界面读取时不再等待磁盘
+        executor.submit(timed("偏好设置", () -> {
+            PreferenceStore.get(application, TimeIntervalActivity.PREFS_NAME).preload();
+            PreferenceStore.get(application, TimeConverterActivity.PREFS_NAME).preload();
+        }));
+
+        // 格式化器：构建渲染器缓存和换算表
+        executor.submit(timed("格式化器", () -> {
+            for (String pattern : new String[]{
+                    DateTimeRenderer.DATE_PATTERN, DateTimeRenderer.TIME_PATTERN, DateTimeRenderer.FULL_PATTERN}) {
+                DateTimeRenderer.of(pattern, Locale.CHINA, true);
+                DateTimeRenderer.of(pattern, Locale.CHINA, false);
+            }
+            UnitConverter.convert(1.0, TimeUnits.WEEK, TimeUnits.DAY);
+            new NumberFormatter().format(1234.5, NumberFormatter.PRECISION_MEDIUM);
+        }));
+
+        executor.shutdown();
+    }
+
+    /**
+     * 等待时区数据就绪（需要当前时间或时区规则之前调用）
+     *
+     * @return 初始化是否成功
+     */
+    static boolean awaitTimeZones(Context context) {
+        Future<?> future;
+        synchronized (StartupTasks.class) {
+            if (timeZones == null) {
+                start((Application) context.getApplicationContext());
+            }
+            future = timeZones;
+        }
+
+        long begin = SystemClock.elapsedRealtime();
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "时区数据初始化失败", e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        long waited = SystemClock.elapsedRealtime() - begin;
+        if (waited > 0) {
+            Log.d(TAG, "等待时区数据 " + waited + "ms");
+        }
+        return true;
+    }
+
+    /**
+     * 记录冷启动到首帧绘制的时间（只记录一次）
+     */
+    static void reportFirstFrame(Activity activity) {
+        synchronized (StartupTasks.class) {
+            if (firstFrameReported) {
+                return;
+            }
+            firstFrameReported = true;
+        }
+        activity.getWindow().getDecorView().post(() -> {
+            long elapsed = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+            Log.i(TAG, "冷启动到首帧 " + elapsed + "ms");
+            activity.reportFullyDrawn();
+        });
+    }
+
+    private static Runnable timed(String name, Runnable task) {
+        return () -> {
+            long begin = SystemClock.elapsedRealtime();
+            task.run();
+            Log.d(TAG, name + " " + (SystemClock.elapsedRealtime() - begin) + "ms");
+        };
+    }
+}
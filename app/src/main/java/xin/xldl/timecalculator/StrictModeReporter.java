@@ -0,0 +1,138 @@
+package xin.xldl.timecalculator;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.strictmode.DiskWriteViolation;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import xin.xldl.timecalculator.core.IoGuard;
+import xin.xldl.timecalculator.core.IoViolations;
+
+/**
+ * 主线程磁盘读写检测（只在可调试的构建中开启）
+ *
+ * 两个来源汇总到同一份报告：StrictMode 线程策略检测到的读写（API 28 起带调用栈，只计次数），
+ * 以及本项目读写入口通过 {@link IoGuard} 报告的读写（带耗时）。
+ * 报告在应用进入后台时写到 files/main-thread-io.json，也显示在性能诊断界面。
+ */
+final class StrictModeReporter {
+
+    private static final String TAG = "StrictModeReporter";
+    private static final String REPORT_FILE = "main-thread-io.json";
+
+    private static final IoViolations VIOLATIONS = new IoViolations("xin.xldl.timecalculator.");
+
+    // 接收违规和写报告，不占用主线程
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "strict-mode");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static boolean installed;
+
+    private StrictModeReporter() {
+    }
+
+    /**
+     * 在主线程安装检测，非调试构建中不做任何事
+     */
+    static synchronized void install() {
+        if (installed || !Metrics.isDebuggable()) {
+            return;
+        }
+        installed = true;
+
+        IoGuard.guard(Looper.getMainLooper().getThread(), VIOLATIONS);
+
+        StrictMode.ThreadPolicy.Builder policy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            policy.penaltyListener(EXECUTOR, violation -> VIOLATIONS.record(
+                    violation instanceof DiskWriteViolation ? IoGuard.WRITE : IoGuard.READ,
+                    violation.getClass().getSimpleName(), -1, violation.getStackTrace()));
+        } else {
+            // 没有监听接口，只能输出到日志
+            policy.penaltyLog();
+        }
+        StrictMode.setThreadPolicy(policy.build());
+    }
+
+    static boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * 报告文本，每个位置一行
+     */
+    static String describe() {
+        return VIOLATIONS.describe();
+    }
+
+    static void clear() {
+        VIOLATIONS.clear();
+    }
+
+    /**
+     * 在后台线程把报告写到文件（有记录时）
+     */
+    static void persist(Context context) {
+        if (!installed || VIOLATIONS.size() == 0) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                write(new File(appContext.getFilesDir(), REPORT_FILE));
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "写入主线程读写报告失败", e);
+            }
+        });
+    }
+
+    /**
+     * 报告中的各条记录
+     */
+    static JSONArray toJson() throws JSONException {
+        JSONArray entries = new JSONArray();
+        for (IoViolations.Entry entry : VIOLATIONS.entries()) {
+            JSONObject item = new JSONObject();
+            item.put("type", IoGuard.typeName(entry.type));
+            item.put("operation", entry.operation);
+            item.put("caller", entry.caller);
+            item.put("count", entry.count());
+            item.put("timedCount", entry.timedCount());
+            item.put("totalNanos", entry.totalNanos());
+            item.put("maxNanos", entry.maxNanos());
+            item.put("stackTrace", entry.stackTrace);
+            entries.put(item);
+        }
+        return entries;
+    }
+
+    private static void write(File file) throws IOException, JSONException {
+        JSONObject report = new JSONObject();
+        report.put("timestamp", System.currentTimeMillis());
+        report.put("sdk", Build.VERSION.SDK_INT);
+        report.put("violations", toJson());
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(report.toString(2).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -2,7 +2,6 @@ package xin.xldl.timecalculator;
 
 import android.app.Application;
 import android.content.Context;
-import com.jakewharton.threetenabp.AndroidThreeTen;
 
 public class TimeCalculatorApp extends Application {
 
@@ -13,8 +12,14 @@ public class TimeCalculatorApp extends Application {
         super.onCreate();
         context = this;
 
-        // 初始化ThreeTenABP库
-        AndroidThreeTen.init(this);
+        // 耗时统计：可调试的构建中同时统计分配
+        Metrics.init(this);
+
+        // 可调试的构建中检测主线程磁盘读写
+        StrictModeReporter.install();
+
+        // 在后台初始化时间库、预读设置、预热格式化器
+        StartupTasks.start(this);
 
         // 可选：设置全局异常处理器
         Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
@@ -23,6 +28,23 @@ public class TimeCalculatorApp extends Application {
         });
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ResultCaches.onTrimMemory(level);
+
+        // 界面全部不可见时保存主线程读写报告
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            StrictModeReporter.persist(this);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        ResultCaches.onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
     public static Context getAppContext() {
         return context;
     }
@@ -3,65 +3,47 @@ package xin.xldl.timecalculator;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.graphics.Color;
+import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
+import android.text.TextUtils;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
-import android.widget.ListView;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.io.IOException;
 
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
+import xin.xldl.timecalculator.core.HistoryCommitPolicy;
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.ResultCache;
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
 
 public class TimeConverterActivity extends AppCompatActivity {
 
+    private static final String TAG = "TimeConverterActivity";
+
     // 时间单位定义
-    private static final String[] TIME_UNITS = {
-            "纳秒", "微秒", "毫秒", "秒", "分钟", "小时", "天", "周", "月", "年"
-    };
-
-    // 单位换算因子（以秒为基准）
-    private static final double[] UNIT_FACTORS = {
-            1_000_000_000.0,  // 纳秒 -> 秒 (1秒 = 1,000,000,000纳秒)
-            1_000_000.0,      // 微秒 -> 秒
-            1_000.0,          // 毫秒 -> 秒
-            1.0,              // 秒 -> 秒
-            1.0 / 60.0,       // 分钟 -> 秒 (1分钟 = 60秒)
-            1.0 / 3600.0,     // 小时 -> 秒 (1小时 = 3600秒)
-            1.0 / 86400.0,    // 天 -> 秒 (1天 = 86400秒)
-            1.0 / 604800.0,   // 周 -> 秒 (1周 = 604800秒)
-            1.0 / 2592000.0,  // 月 -> 秒 (1月 = 30天 = 2,592,000秒)
-            1.0 / 31536000.0  // 年 -> 秒 (1年 = 365天 = 31,536,000秒)
-    };
-
-    // 特殊单位定义
-    private static final double WORKDAY_HOURS = 8.0; // 工作日按8小时计算
-    private static final double LEAP_YEAR_DAYS = 366.0; // 闰年天数
+    private static final String[] TIME_UNITS = TimeUnits.names();
+
+    // 结果网格标题行颜色
+    private static final int HEADER_TEXT_COLOR = 0xFF3F51B5;
+    private static final int HEADER_BACKGROUND_COLOR = 0xFFF5F5F5;
 
     // 界面控件
     private EditText etInputValue;
@@ -69,8 +51,8 @@ public class TimeConverterActivity extends AppCompatActivity {
     private TextView tvMainResult;
     private Spinner spinnerFromUnit, spinnerToUnit;
     private LinearLayout layoutResultsGrid;
-    private ListView listHistory;
-    private TextView tvNoHistory;
+    private TextView[] resultUnitViews;
+    private TextView[] resultValueViews;
     private CardView cardResults;
 
     // 当前设置
@@ -79,44 +61,68 @@ public class TimeConverterActivity extends AppCompatActivity {
     private int toUnitIndex = 3;   // 默认：天
     private int precision = 2;     // 显示精度：0=低, 1=中, 2=高
 
-    // 历史记录
-    private List<HistoryItem> historyList = new ArrayList<>();
-    private static final int MAX_HISTORY = 20;
+    // 数字格式化器（复用缓冲区，仅在主线程使用）
+    private final NumberFormatter numberFormatter = new NumberFormatter();
+
+    // 后台计算管线
+    private final CalculationPipeline pipeline = new CalculationPipeline("converter-calculation");
+
+    // 输入到显示的延迟统计（每次界面可见为一次会话）
+    private InputLatencyTracker inputLatency;
+
+    // 历史记录（保存在数据库中，列表按页读取）
+    private HistoryPanel historyPanel;
+    private HistoryTransfer historyTransfer;
+
+    // 输入停下来后才提交历史记录，连续修改同一组单位时合并为一条
+    private final HistoryCommitPolicy historyPolicy = new HistoryCommitPolicy();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable idleCommit = this::commitHistory;
+
+    // 设置存储（修改合并后在后台写入）
+    private PreferenceStore preferences;
+
+    // 换算结果（在计算线程中生成，主线程只负责显示）
+    private static class ConversionResult {
+        final double inputValue;
+        final int fromUnit;
+        final int toUnit;
+        final int precision;
 
-    // 历史记录项类
-    private static class HistoryItem {
-        String fromValue;
-        String fromUnit;
-        String toValue;
-        String toUnit;
-        String timestamp;
+        double result;
+        String formattedResult;
+        String fromValueText;
+        String mainText;
+        // 详细结果的各行
+        String[] rowUnits;
+        String[] rowValues;
 
-        HistoryItem(String fromValue, String fromUnit, String toValue, String toUnit) {
-            this.fromValue = fromValue;
+        ConversionResult(double inputValue, int fromUnit, int toUnit, int precision) {
+            this.inputValue = inputValue;
             this.fromUnit = fromUnit;
-            this.toValue = toValue;
             this.toUnit = toUnit;
-            this.timestamp = new SimpleDateFormat("HH:mm:ss", Locale.CHINA).format(new Date());
-        }
-
-        String getDisplayText() {
-            return fromValue + " " + fromUnit + " = " + toValue + " " + toUnit;
+            this.precision = precision;
         }
     }
 
     // 常量
-    private static final String PREFS_NAME = "TimeConverterPrefs";
+    static final String PREFS_NAME = "TimeConverterPrefs";
     private static final String PREF_INPUT_VALUE = "input_value";
     private static final String PREF_FROM_UNIT = "from_unit";
     private static final String PREF_TO_UNIT = "to_unit";
     private static final String PREF_PRECISION = "precision";
-    private static final String PREF_HISTORY = "conversion_history";
+
+    // 最近的换算结果，键为（数值位模式, 0, 单位和精度）
+    private static final ResultCache<ConversionResult> RESULT_CACHE = ResultCaches.create("单位换算", 64);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_time_converter);
 
+        preferences = PreferenceStore.get(this, PREFS_NAME);
+        inputLatency = new InputLatencyTracker(this, "converter", Metrics.CONVERTER_INPUT);
+
         // 初始化视图
         initViews();
 
@@ -158,10 +164,7 @@ public class TimeConverterActivity extends AppCompatActivity {
 
         // 结果网格
         layoutResultsGrid = findViewById(R.id.layout_results_grid);
-
-        // 历史记录
-        listHistory = findViewById(R.id.list_history);
-        tvNoHistory = findViewById(R.id.tv_no_history);
+        buildResultsGrid();
 
         // 卡片
         cardResults = findViewById(R.id.card_results);
@@ -191,7 +194,9 @@ public class TimeConverterActivity extends AppCompatActivity {
         // 输入值变化监听
         etInputValue.addTextChangedListener(new TextWatcher() {
             @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                inputLatency.onInput();
+            }
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {}
@@ -212,6 +217,13 @@ public class TimeConverterActivity extends AppCompatActivity {
             }
         });
 
+        // 输入框失去焦点时提交历史记录
+        etInputValue.setOnFocusChangeListener((v, hasFocus) -> {
+            if (!hasFocus) {
+                commitHistory();
+            }
+        });
+
         // 单位选择监听
         spinnerFromUnit.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
@@ -255,6 +267,7 @@ public class TimeConverterActivity extends AppCompatActivity {
 
         // 历史记录按钮
         findViewById(R.id.btn_clear_history).setOnClickListener(v -> clearHistory());
+        findViewById(R.id.btn_history_transfer).setOnClickListener(v -> transferHistory());
     }
 
     /**
@@ -313,6 +326,9 @@ public class TimeConverterActivity extends AppCompatActivity {
      * 交换单位
      */
     private void swapUnits() {
+        // 交换前的结果作为一条历史记录
+        commitHistory();
+
         // 交换单位索引
         int temp = fromUnitIndex;
         fromUnitIndex = toUnitIndex;
@@ -343,6 +359,7 @@ public class TimeConverterActivity extends AppCompatActivity {
     private void copyResult() {
         String result = tvMainResult.getText().toString();
         if (!result.isEmpty()) {
+            commitHistory();
             ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
             ClipData clip = ClipData.newPlainText("时间换算结果", result);
             clipboard.setPrimaryClip(clip);
@@ -408,267 +425,284 @@ public class TimeConverterActivity extends AppCompatActivity {
 
     /**
      * 计算单位换算
+     *
+     * 计算和格式化在后台线程进行，快速输入时只显示最后一次的结果
      */
     private void calculateConversion() {
         if (inputValue == 0) {
+            pipeline.cancel();
+            handler.removeCallbacks(idleCommit);
+            historyPolicy.discard();
             tvOutputValue.setText("0");
             tvMainResult.setText("请输入数值");
-            layoutResultsGrid.removeAllViews();
+            clearDetailedResults();
+            inputLatency.onResultShown(tvOutputValue);
             return;
         }
 
-        try {
-            // 计算主要换算结果
-            double result = convertValue(inputValue, fromUnitIndex, toUnitIndex);
-            String formattedResult = formatNumber(result, precision);
-
-            // 更新显示
-            tvOutputValue.setText(formattedResult);
-            tvMainResult.setText(formatConversionText(inputValue, fromUnitIndex, result, toUnitIndex));
-
-            // 生成详细换算结果
-            generateDetailedResults();
+        // 计算线程只使用这份快照，不访问界面状态
+        final double value = inputValue;
+        final int fromUnit = fromUnitIndex;
+        final int toUnit = toUnitIndex;
+        final int digits = precision;
+
+        // 相同输入（如点击历史记录）直接使用已格式化的结果
+        final long valueBits = Double.doubleToLongBits(value);
+        final long options = (long) fromUnit << 16 | toUnit << 8 | digits;
+        ConversionResult cached = RESULT_CACHE.get(valueBits, 0, options);
+        if (cached != null) {
+            pipeline.cancel();
+            showConversion(cached);
+            return;
+        }
 
-            // 保存到历史记录
-            addToHistory();
+        pipeline.submit(formatter -> {
+                    ConversionResult result = computeConversion(formatter, value, fromUnit, toUnit, digits);
+                    RESULT_CACHE.put(valueBits, 0, options, result);
+                    return result;
+                },
+                new CalculationPipeline.Callback<ConversionResult>() {
+                    @Override
+                    public void onResult(ConversionResult result) {
+                        showConversion(result);
+                    }
 
-        } catch (Exception e) {
-            tvOutputValue.setText("错误");
-            tvMainResult.setText("计算错误");
-            layoutResultsGrid.removeAllViews();
-        }
+                    @Override
+                    public void onError(Exception e) {
+                        tvOutputValue.setText("错误");
+                        tvMainResult.setText("计算错误");
+                        clearDetailedResults();
+                        inputLatency.onResultShown(tvOutputValue);
+                    }
+                });
     }
 
     /**
-     * 单位换算计算
+     * 显示换算结果
      */
-    private double convertValue(double value, int fromUnit, int toUnit) {
-        // 先将输入值转换为秒
-        double valueInSeconds = value / UNIT_FACTORS[fromUnit];
+    private void showConversion(ConversionResult result) {
+        long start = Metrics.CONVERTER.render.begin();
+        try {
+            // 更新显示
+            tvOutputValue.setText(result.formattedResult);
+            tvMainResult.setText(result.mainText);
+
+            // 生成详细换算结果
+            generateDetailedResults(result);
 
-        // 再从秒转换为目标单位
-        return valueInSeconds * UNIT_FACTORS[toUnit];
+            // 记为待提交的历史记录
+            offerToHistory(result);
+        } finally {
+            Metrics.CONVERTER.render.end(start);
+        }
+        inputLatency.onResultShown(tvOutputValue);
     }
 
     /**
-     * 格式化数字
+     * 单位换算计算（在计算线程中执行）
      */
-    private String formatNumber(double number, int precision) {
-        if (Double.isInfinite(number) || Double.isNaN(number)) {
-            return "无限大";
-        }
+    private static ConversionResult computeConversion(NumberFormatter formatter, double value,
+                                                      int fromUnit, int toUnit, int precision) {
+        ConversionResult result = new ConversionResult(value, fromUnit, toUnit, precision);
 
-        String pattern;
-        switch (precision) {
-            case 0: // 低精度：整数
-                pattern = "#,##0";
-                break;
-            case 1: // 中精度：2位小数
-                pattern = "#,##0.##";
-                break;
-            case 2: // 高精度：6位小数
-                pattern = "#,##0.######";
-                break;
-            default:
-                pattern = "#,##0.##";
+        // 一次扫描换算矩阵的一行，得到所有单位（包括工作日、闰年）的结果
+        double[] values = new double[TimeUnits.EXTENDED_COUNT];
+        long start = Metrics.CONVERTER.calculate.begin();
+        try {
+            UnitConverter.convertToAll(value, fromUnit, values);
+        } finally {
+            Metrics.CONVERTER.calculate.end(start);
         }
 
-        DecimalFormat df = new DecimalFormat(pattern);
-        return df.format(number);
+        start = Metrics.CONVERTER.format.begin();
+        try {
+            formatConversion(formatter, result, values);
+        } finally {
+            Metrics.CONVERTER.format.end(start);
+        }
+        return result;
+    }
+
+    /**
+     * 格式化主要结果和所有单位的结果（在计算线程中执行）
+     */
+    private static void formatConversion(NumberFormatter formatter, ConversionResult result, double[] values) {
+        double value = result.inputValue;
+        int fromUnit = result.fromUnit;
+        int toUnit = result.toUnit;
+        int precision = result.precision;
+
+        // 主要换算结果
+        result.result = values[toUnit];
+        result.formattedResult = formatter.format(result.result, precision);
+        result.fromValueText = formatter.format(value, precision);
+        result.mainText = result.fromValueText + " " + TIME_UNITS[fromUnit]
+                + " = " + result.formattedResult + " " + TIME_UNITS[toUnit];
+
+        // 所有单位的结果（跳过输入单位本身，最后两行为工作日和闰年天数）
+        int count = TimeUnits.EXTENDED_COUNT - 1;
+        result.rowUnits = new String[count];
+        result.rowValues = new String[count];
+        int row = 0;
+        for (int i = 0; i < TimeUnits.EXTENDED_COUNT; i++) {
+            if (i != fromUnit) {
+                result.rowUnits[row] = TimeUnits.name(i);
+                result.rowValues[row] = formatter.format(values[i], precision);
+                row++;
+            }
+        }
     }
 
     /**
-     * 格式化换算文本
+     * 格式化数字
      */
-    private String formatConversionText(double fromValue, int fromUnit, double toValue, int toUnit) {
-        String fromUnitName = TIME_UNITS[fromUnit];
-        String toUnitName = TIME_UNITS[toUnit];
-
-        String fromStr = formatNumber(fromValue, precision) + " " + fromUnitName;
-        String toStr = formatNumber(toValue, precision) + " " + toUnitName;
-
-        return fromStr + " = " + toStr;
+    private String formatNumber(double number, int precision) {
+        return numberFormatter.format(number, precision);
     }
 
     /**
-     * 生成详细换算结果
+     * 创建详细结果网格（只在初始化时创建一次，之后只更新文字）
      */
-    private void generateDetailedResults() {
-        // 清空现有结果
-        layoutResultsGrid.removeAllViews();
-
-        // 计算所有单位的换算值
-        double baseValueInSeconds = inputValue / UNIT_FACTORS[fromUnitIndex];
-
-        // 添加标题行
-        addResultRow("单位", "换算值", true);
+    private void buildResultsGrid() {
+        LayoutInflater inflater = LayoutInflater.from(this);
 
-        // 添加所有单位的结果
-        for (int i = 0; i < TIME_UNITS.length; i++) {
-            if (i != fromUnitIndex) { // 跳过输入单位本身
-                double convertedValue = baseValueInSeconds * UNIT_FACTORS[i];
-                String formattedValue = formatNumber(convertedValue, precision);
-                addResultRow(TIME_UNITS[i], formattedValue, false);
-            }
+        // 标题行
+        View header = inflater.inflate(R.layout.item_result_row, layoutResultsGrid, false);
+        TextView tvHeaderUnit = header.findViewById(R.id.tv_result_unit);
+        TextView tvHeaderValue = header.findViewById(R.id.tv_result_value);
+        tvHeaderUnit.setText("单位");
+        tvHeaderValue.setText("换算值");
+        tvHeaderUnit.setTextColor(HEADER_TEXT_COLOR);
+        tvHeaderValue.setTextColor(HEADER_TEXT_COLOR);
+        tvHeaderUnit.setTextSize(14);
+        tvHeaderValue.setTextSize(14);
+        header.setBackgroundColor(HEADER_BACKGROUND_COLOR);
+        layoutResultsGrid.addView(header);
+
+        // 结果行：除输入单位外的所有单位，加上工作日和闰年天数
+        int count = TimeUnits.EXTENDED_COUNT - 1;
+        resultUnitViews = new TextView[count];
+        resultValueViews = new TextView[count];
+        for (int i = 0; i < count; i++) {
+            View row = inflater.inflate(R.layout.item_result_row, layoutResultsGrid, false);
+            resultUnitViews[i] = row.findViewById(R.id.tv_result_unit);
+            resultValueViews[i] = row.findViewById(R.id.tv_result_value);
+            layoutResultsGrid.addView(row);
         }
 
-        // 添加特殊单位结果
-        addSpecialUnitsResults(baseValueInSeconds);
+        layoutResultsGrid.setVisibility(View.GONE);
     }
 
     /**
-     * 添加特殊单位结果
+     * 更新详细换算结果，只修改有变化的单元格
      */
-    private void addSpecialUnitsResults(double baseValueInSeconds) {
-        // 工作日（按8小时计算）
-        double workdays = baseValueInSeconds * UNIT_FACTORS[5] / WORKDAY_HOURS; // 转换为小时，再除以8
-        addResultRow("工作日", formatNumber(workdays, precision), false);
-
-        // 闰年天数
-        double leapYearDays = baseValueInSeconds * UNIT_FACTORS[6] / LEAP_YEAR_DAYS; // 转换为天，再除以366
-        addResultRow("闰年天数", formatNumber(leapYearDays, precision), false);
+    private void generateDetailedResults(ConversionResult result) {
+        for (int i = 0; i < result.rowUnits.length; i++) {
+            setTextIfChanged(resultUnitViews[i], result.rowUnits[i]);
+            setTextIfChanged(resultValueViews[i], result.rowValues[i]);
+        }
+        layoutResultsGrid.setVisibility(View.VISIBLE);
     }
 
     /**
-     * 添加结果行到网格
+     * 隐藏详细换算结果
      */
-    private void addResultRow(String unitName, String value, boolean isHeader) {
-        LayoutInflater inflater = LayoutInflater.from(this);
-        View row = inflater.inflate(R.layout.item_result_row, layoutResultsGrid, false);
-
-        TextView tvUnit = row.findViewById(R.id.tv_result_unit);
-        TextView tvValue = row.findViewById(R.id.tv_result_value);
-
-        tvUnit.setText(unitName);
-        tvValue.setText(value);
+    private void clearDetailedResults() {
+        layoutResultsGrid.setVisibility(View.GONE);
+    }
 
-        if (isHeader) {
-            tvUnit.setTextColor(Color.parseColor("#3F51B5"));
-            tvValue.setTextColor(Color.parseColor("#3F51B5"));
-            tvUnit.setTextSize(14);
-            tvValue.setTextSize(14);
-            row.setBackgroundColor(Color.parseColor("#F5F5F5"));
+    private static void setTextIfChanged(TextView view, String text) {
+        if (!TextUtils.equals(view.getText(), text)) {
+            view.setText(text);
         }
-
-        layoutResultsGrid.addView(row);
     }
 
     /**
-     * 添加到历史记录
+     * 记下最新结果，输入停止一段时间后再提交
      */
-    private void addToHistory() {
-        if (inputValue == 0) return;
-
-        String fromValue = formatNumber(inputValue, precision);
-        String fromUnit = TIME_UNITS[fromUnitIndex];
-        String toValue = tvOutputValue.getText().toString();
-        String toUnit = TIME_UNITS[toUnitIndex];
-
-        HistoryItem item = new HistoryItem(fromValue, fromUnit, toValue, toUnit);
-        historyList.add(0, item); // 添加到开头
-
-        // 限制历史记录数量
-        if (historyList.size() > MAX_HISTORY) {
-            historyList.remove(historyList.size() - 1);
-        }
-
-        // 更新历史显示
-        updateHistoryDisplay();
-
-        // 保存历史记录
-        saveHistory();
+    private void offerToHistory(ConversionResult result) {
+        historyPolicy.offer(result.fromUnit, result.toUnit, result.precision, result.inputValue, result.result);
+        handler.removeCallbacks(idleCommit);
+        handler.postDelayed(idleCommit, HistoryCommitPolicy.DEFAULT_IDLE_MILLIS);
     }
 
     /**
-     * 更新历史记录显示
+     * 提交待提交的结果：新增一条历史记录，或覆盖同一组单位的上一条
      */
-    private void updateHistoryDisplay() {
-        if (historyList.isEmpty()) {
-            listHistory.setVisibility(View.GONE);
-            tvNoHistory.setVisibility(View.VISIBLE);
+    private void commitHistory() {
+        handler.removeCallbacks(idleCommit);
+        final long timestamp = System.currentTimeMillis();
+        final int action = historyPolicy.commit(timestamp);
+        if (action == HistoryCommitPolicy.NONE) {
             return;
         }
 
-        listHistory.setVisibility(View.VISIBLE);
-        tvNoHistory.setVisibility(View.GONE);
-
-        ArrayAdapter<String> adapter = new ArrayAdapter<String>(
-                this,
-                R.layout.item_history,
-                R.id.tv_history_item
-        ) {
-            @NonNull
-            @Override
-            public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-                View view = super.getView(position, convertView, parent);
-
-                HistoryItem item = historyList.get(position);
-
-                TextView tvItem = view.findViewById(R.id.tv_history_item);
-                TextView tvTime = view.findViewById(R.id.tv_history_time);
-
-                tvItem.setText(item.getDisplayText());
-                tvTime.setText(item.timestamp);
-
-                return view;
-            }
-
-            @Override
-            public int getCount() {
-                return historyList.size();
-            }
+        final int fromUnit = historyPolicy.fromUnit();
+        final int toUnit = historyPolicy.toUnit();
+        final int digits = historyPolicy.precision();
+        final double fromValue = historyPolicy.fromValue();
+        final double toValue = historyPolicy.toValue();
+
+        HistoryItem item = new HistoryItem.Conversion(HistoryItem.temporaryId(), fromUnit, toUnit, digits,
+                fromValue, toValue, timestamp);
+        if (action == HistoryCommitPolicy.REPLACE) {
+            historyPanel.replaceFirst(item);
+        } else {
+            historyPanel.add(item); // 添加到开头
+        }
 
-            @Override
-            public String getItem(int position) {
-                return historyList.get(position).getDisplayText();
+        // 只写一条记录，在数据库线程中写入，不占用主线程
+        final HistoryDatabase database = HistoryDatabase.get(this);
+        HistoryDatabase.execute(() -> {
+            long start = Metrics.CONVERTER.persist.begin();
+            try {
+                if (action == HistoryCommitPolicy.REPLACE) {
+                    database.replaceLatestConversion(fromUnit, toUnit, digits, fromValue, toValue, timestamp);
+                } else {
+                    database.insertConversion(fromUnit, toUnit, digits, fromValue, toValue, timestamp);
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "保存历史记录失败", e);
+            } finally {
+                Metrics.CONVERTER.persist.end(start);
             }
-        };
-
-        listHistory.setAdapter(adapter);
-
-        // 点击历史项恢复
-        listHistory.setOnItemClickListener((parent, view, position, id) -> {
-            HistoryItem item = historyList.get(position);
-            etInputValue.setText(item.fromValue);
-            spinnerFromUnit.setSelection(getUnitIndex(item.fromUnit));
-            spinnerToUnit.setSelection(getUnitIndex(item.toUnit));
-
-            Toast.makeText(this, "已恢复历史记录", Toast.LENGTH_SHORT).show();
         });
     }
 
     /**
-     * 获取单位索引
+     * 清空历史记录
      */
-    private int getUnitIndex(String unitName) {
-        for (int i = 0; i < TIME_UNITS.length; i++) {
-            if (TIME_UNITS[i].equals(unitName)) {
-                return i;
-            }
-        }
-        return 3; // 默认返回秒
+    private void clearHistory() {
+        historyPanel.confirmClear(() -> {
+            handler.removeCallbacks(idleCommit);
+            historyPolicy.reset();
+        });
     }
 
     /**
-     * 清空历史记录
+     * 导出或导入换算历史
      */
-    private void clearHistory() {
-        if (historyList.isEmpty()) {
-            Toast.makeText(this, "历史记录已为空", Toast.LENGTH_SHORT).show();
-            return;
+    private void transferHistory() {
+        // 先写入待提交的结果，导出的文件包含它
+        commitHistory();
+        historyTransfer().showMenu();
+    }
+
+    private HistoryTransfer historyTransfer() {
+        if (historyTransfer == null) {
+            historyTransfer = new HistoryTransfer(this, () -> {
+                // 最新一条可能已是导入的记录，下一次提交不再与之合并
+                historyPolicy.reset();
+                historyPanel.reload();
+            });
         }
+        return historyTransfer;
+    }
 
-        AlertDialog.Builder builder = new AlertDialog.Builder(this);
-        builder.setTitle("确认清空");
-        builder.setMessage("确定要清空所有历史记录吗？");
-        builder.setPositiveButton("清空", (dialog, which) -> {
-            historyList.clear();
-            updateHistoryDisplay();
-            saveHistory();
-            Toast.makeText(this, "历史记录已清空", Toast.LENGTH_SHORT).show();
-        });
-        builder.setNegativeButton("取消", null);
-        builder.show();
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        historyTransfer().onActivityResult(requestCode, resultCode, data);
     }
 
     /**
@@ -688,7 +722,9 @@ public class TimeConverterActivity extends AppCompatActivity {
                 "• 工作日按8小时计算，闰年按366天计算\n" +
                 "• 支持小数输入和显示精度调整\n" +
                 "• 可交换输入输出单位\n" +
-                "• 自动保存历史记录（最多20条）\n\n" +
+                "• 自动保存历史记录，向下滚动查看更早的记录\n" +
+                "• 历史搜索框可按单位、数值或日期查找，如“上周 纳秒”“2024-05 3600”\n" +
+                "• “导入/导出”可把换算历史保存为CSV或JSON Lines文件，或从这些文件导入\n\n" +
                 "换算基准：\n" +
                 "• 1秒 = 1,000毫秒 = 1,000,000微秒\n" +
                 "• 1分钟 = 60秒\n" +
@@ -723,41 +759,27 @@ public class TimeConverterActivity extends AppCompatActivity {
      * 保存数据
      */
     private void saveInputValue() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putString(PREF_INPUT_VALUE, etInputValue.getText().toString());
-        editor.apply();
+        preferences.putString(PREF_INPUT_VALUE, etInputValue.getText().toString());
     }
 
     private void saveFromUnit() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(PREF_FROM_UNIT, fromUnitIndex);
-        editor.apply();
+        preferences.putInt(PREF_FROM_UNIT, fromUnitIndex);
     }
 
     private void saveToUnit() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(PREF_TO_UNIT, toUnitIndex);
-        editor.apply();
+        preferences.putInt(PREF_TO_UNIT, toUnitIndex);
     }
 
     private void savePreference() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(PREF_PRECISION, precision);
-        editor.apply();
+        preferences.putInt(PREF_PRECISION, precision);
     }
 
     /**
      * 加载保存的数据
      */
     private void loadSavedData() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-
         // 加载输入值
-        String savedInputValue = prefs.getString(PREF_INPUT_VALUE, "1");
+        String savedInputValue = preferences.getString(PREF_INPUT_VALUE, "1");
         etInputValue.setText(savedInputValue);
         try {
             inputValue = Double.parseDouble(savedInputValue);
@@ -766,72 +788,38 @@ public class TimeConverterActivity extends AppCompatActivity {
         }
 
         // 加载单位
-        fromUnitIndex = prefs.getInt(PREF_FROM_UNIT, 7); // 默认周
-        toUnitIndex = prefs.getInt(PREF_TO_UNIT, 3);     // 默认天
+        fromUnitIndex = preferences.getInt(PREF_FROM_UNIT, 7); // 默认周
+        toUnitIndex = preferences.getInt(PREF_TO_UNIT, 3);     // 默认天
 
         spinnerFromUnit.setSelection(fromUnitIndex);
         spinnerToUnit.setSelection(toUnitIndex);
 
         // 加载精度
-        precision = prefs.getInt(PREF_PRECISION, 1); // 默认中精度
+        precision = preferences.getInt(PREF_PRECISION, 1); // 默认中精度
         updatePrecisionButtons();
     }
 
     /**
-     * 保存历史记录
-     */
-    private void saveHistory() {
-        try {
-            JSONArray jsonArray = new JSONArray();
-            for (HistoryItem item : historyList) {
-                JSONObject jsonObject = new JSONObject();
-                jsonObject.put("fromValue", item.fromValue);
-                jsonObject.put("fromUnit", item.fromUnit);
-                jsonObject.put("toValue", item.toValue);
-                jsonObject.put("toUnit", item.toUnit);
-                jsonObject.put("timestamp", item.timestamp);
-                jsonArray.put(jsonObject);
-            }
-
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(PREF_HISTORY, jsonArray.toString());
-            editor.apply();
-
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * 加载历史记录
+     * 加载历史记录（只读取第一页，之后随滚动按页读取）
      */
     private void loadHistory() {
-        historyList.clear();
+        historyPanel = new HistoryPanel(this, HistoryDatabase.CONVERSIONS, item -> {
+            HistoryItem.Conversion conversion = (HistoryItem.Conversion) item;
+            // 不带千位分隔符，输入框可以直接解析
+            etInputValue.setText(numberFormatter.formatFixed(conversion.fromValue,
+                    NumberFormatter.fractionDigits(conversion.precision), false));
+            spinnerFromUnit.setSelection(conversion.fromUnit);
+            spinnerToUnit.setSelection(conversion.toUnit);
 
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        String historyJson = prefs.getString(PREF_HISTORY, "");
-
-        if (!historyJson.isEmpty()) {
-            try {
-                JSONArray jsonArray = new JSONArray(historyJson);
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    JSONObject jsonObject = jsonArray.getJSONObject(i);
-                    HistoryItem item = new HistoryItem(
-                            jsonObject.getString("fromValue"),
-                            jsonObject.getString("fromUnit"),
-                            jsonObject.getString("toValue"),
-                            jsonObject.getString("toUnit")
-                    );
-                    item.timestamp = jsonObject.getString("timestamp");
-                    historyList.add(item);
-                }
-            } catch (JSONException e) {
-                e.printStackTrace();
+            Toast.makeText(this, "已恢复历史记录", Toast.LENGTH_SHORT).show();
+        }, (page, first) -> {
+            // 恢复的输入与最新一条相同时不再重复记录（本次已有提交时以本次为准）
+            if (first && !page.isEmpty() && historyPolicy.appended() + historyPolicy.replaced() == 0) {
+                HistoryItem.Conversion last = (HistoryItem.Conversion) page.get(0);
+                historyPolicy.restore(last.fromUnit, last.toUnit, last.precision,
+                        last.fromValue, last.toValue, last.epochMillis);
             }
-        }
-
-        updateHistoryDisplay();
+        });
     }
 
     /**
@@ -840,26 +828,57 @@ public class TimeConverterActivity extends AppCompatActivity {
     @Override
     public void onBackPressed() {
         // 保存当前数据
-        saveInputValue();
-        saveFromUnit();
-        saveToUnit();
-        savePreference();
-        saveHistory();
+        preferences.flush();
 
         super.onBackPressed();
         overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        inputLatency.start();
+    }
+
     /**
      * 保存状态
      */
     @Override
     protected void onPause() {
         super.onPause();
-        saveInputValue();
-        saveFromUnit();
-        saveToUnit();
-        savePreference();
-        saveHistory();
+        // 设置在修改时已记录，这里只需立即写入
+        preferences.flush();
+        commitHistory();
+        finishInputLatencySession();
+    }
+
+    /**
+     * 结束本次输入延迟统计，有数据时在后台写入文件
+     */
+    private void finishInputLatencySession() {
+        final InputLatencyTracker session = inputLatency;
+        session.stop();
+        inputLatency = new InputLatencyTracker(this, "converter", Metrics.CONVERTER_INPUT);
+        if (session.hasSamples()) {
+            // 取得外部存储目录也会访问磁盘，放到后台线程
+            final Context context = getApplicationContext();
+            pipeline.execute(() -> {
+                try {
+                    session.writeTo(InputLatencyTracker.sessionDirectory(context));
+                } catch (IOException e) {
+                    Log.w(TAG, "保存输入延迟记录失败", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 停止计算线程和待执行的提交
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(idleCommit);
+        pipeline.shutdown();
     }
 }
\ No newline at end of file
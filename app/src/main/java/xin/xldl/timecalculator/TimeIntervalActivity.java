@@ -3,24 +3,27 @@ package xin.xldl.timecalculator;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.text.format.DateFormat;
+import android.util.Log;
 import android.view.View;
 import android.widget.*;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
-import com.jakewharton.threetenabp.AndroidThreeTen;
-
 import org.threeten.bp.*;
-import org.threeten.bp.format.DateTimeFormatter;
 import java.util.Locale;
 
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+import xin.xldl.timecalculator.core.IntervalMath;
+import xin.xldl.timecalculator.core.ResultCache;
+
 public class TimeIntervalActivity extends AppCompatActivity {
 
+    private static final String TAG = "TimeIntervalActivity";
+
     // 时间相关变量
     private LocalDateTime startDateTime = null;
     private LocalDateTime endDateTime = null;
@@ -33,22 +36,46 @@ public class TimeIntervalActivity extends AppCompatActivity {
     private TextView tvTimeInterval, tvDetailedResult;
     private CardView cardStartTime, cardEndTime, cardResult;
 
-    // 日期时间格式化器
-    private DateTimeFormatter dateFormatter;
-    private DateTimeFormatter timeFormatter;
-    private DateTimeFormatter fullFormatter;
+    // 日期时间渲染器（全进程缓存）
+    private DateTimeRenderer dateRenderer;
+    private DateTimeRenderer timeRenderer;
+    private DateTimeRenderer fullRenderer;
+
+    // 计算结果的显示文本
+    private static class IntervalResult {
+        final String resultText;
+        final String detailedText;
+        final boolean negative;
+
+        IntervalResult(String resultText, String detailedText, boolean negative) {
+            this.resultText = resultText;
+            this.detailedText = detailedText;
+            this.negative = negative;
+        }
+    }
+
+    // 最近的计算结果，键为（开始纪元纳秒, 结束纪元纳秒, 制式）
+    private static final ResultCache<IntervalResult> RESULT_CACHE = ResultCaches.create("时间间隔", 32);
 
     // 常量
-    private static final String PREFS_NAME = "TimeCalculatorPrefs";
+    static final String PREFS_NAME = "TimeCalculatorPrefs";
     private static final String PREF_TIME_FORMAT = "time_format_24h";
     private static final String PREF_START_TIME = "last_start_time";
     private static final String PREF_END_TIME = "last_end_time";
 
+    // 设置存储（修改合并后在后台写入）
+    private PreferenceStore preferences;
+
+    // 历史记录（保存在数据库中，列表按页读取）
+    private HistoryPanel historyPanel;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_time_interval);
 
+        preferences = PreferenceStore.get(this, PREFS_NAME);
+
         // 初始化时间库
         initializeTimeLibrary();
 
@@ -63,15 +90,17 @@ public class TimeIntervalActivity extends AppCompatActivity {
 
         // 更新显示
         updateTimeDisplay();
+
+        // 历史记录
+        setupHistory();
     }
 
     /**
      * 初始化ThreeTenABP时间库
      */
     private void initializeTimeLibrary() {
-        try {
-            AndroidThreeTen.init(this);
-        } catch (Exception e) {
+        // 时区数据在应用启动时已于后台加载，这里只在尚未完成时等待
+        if (!StartupTasks.awaitTimeZones(this)) {
             Toast.makeText(this, "时间库初始化失败", Toast.LENGTH_SHORT).show();
             finish();
         }
@@ -118,7 +147,7 @@ public class TimeIntervalActivity extends AppCompatActivity {
      * 设置格式化器
      */
     private void setupFormatters() {
-        dateFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日", Locale.CHINA);
+        dateRenderer = DateTimeRenderer.of(DateTimeRenderer.DATE_PATTERN, Locale.CHINA, true);
         updateFormatters();
     }
 
@@ -126,13 +155,8 @@ public class TimeIntervalActivity extends AppCompatActivity {
      * 根据当前制式更新格式化器
      */
     private void updateFormatters() {
-        if (is24HourFormat) {
-            timeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.CHINA);
-            fullFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA);
-        } else {
-            timeFormatter = DateTimeFormatter.ofPattern("hh:mm:ss a", Locale.ENGLISH);
-            fullFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 hh:mm:ss a", Locale.ENGLISH);
-        }
+        timeRenderer = DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, is24HourFormat);
+        fullRenderer = DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, is24HourFormat);
     }
 
     /**
@@ -176,8 +200,14 @@ public class TimeIntervalActivity extends AppCompatActivity {
         findViewById(R.id.btn_clear_start).setOnClickListener(v -> clearTime(true));
         findViewById(R.id.btn_clear_end).setOnClickListener(v -> clearTime(false));
 
-        // 计算按钮
-        findViewById(R.id.btn_calculate).setOnClickListener(v -> calculateInterval());
+        // 计算按钮（计算并记入历史）
+        findViewById(R.id.btn_calculate).setOnClickListener(v -> {
+            calculateInterval();
+            recordInterval();
+        });
+
+        // 清空历史按钮
+        findViewById(R.id.btn_clear_history).setOnClickListener(v -> historyPanel.confirmClear(null));
 
         // 交换按钮
         findViewById(R.id.btn_swap_times).setOnClickListener(v -> swapTimes());
@@ -405,22 +435,14 @@ public class TimeIntervalActivity extends AppCompatActivity {
     private void updateTimeDisplay() {
         // 更新开始时间显示
         if (startDateTime != null) {
-            tvStartDate.setText(startDateTime.format(dateFormatter));
-            String timeText = startDateTime.format(timeFormatter);
-            if (!is24HourFormat) {
-                timeText = timeText.replace("AM", "上午").replace("PM", "下午");
-            }
-            tvStartTime.setText(timeText);
+            tvStartDate.setText(DateTimeTexts.format(dateRenderer, startDateTime));
+            tvStartTime.setText(DateTimeTexts.format(timeRenderer, startDateTime));
         }
 
         // 更新结束时间显示
         if (endDateTime != null) {
-            tvEndDate.setText(endDateTime.format(dateFormatter));
-            String timeText = endDateTime.format(timeFormatter);
-            if (!is24HourFormat) {
-                timeText = timeText.replace("AM", "上午").replace("PM", "下午");
-            }
-            tvEndTime.setText(timeText);
+            tvEndDate.setText(DateTimeTexts.format(dateRenderer, endDateTime));
+            tvEndTime.setText(DateTimeTexts.format(timeRenderer, endDateTime));
         }
 
         // 更新卡片状态
@@ -489,87 +511,181 @@ public class TimeIntervalActivity extends AppCompatActivity {
         }
 
         try {
-            // 计算时间差
-            Duration duration = Duration.between(startDateTime, endDateTime);
-            long totalSeconds = duration.getSeconds();
-            long totalMillis = duration.toMillis();
+            long startNanos = toEpochNanos(startDateTime);
+            long endNanos = toEpochNanos(endDateTime);
+
+            // 相同的开始、结束时间和制式直接使用已格式化的结果
+            long options = is24HourFormat ? 1 : 0;
+            IntervalResult result = RESULT_CACHE.get(startNanos, endNanos, options);
+            if (result == null) {
+                result = computeInterval(startNanos, endNanos);
+                RESULT_CACHE.put(startNanos, endNanos, options, result);
+            }
 
-            boolean isNegative = totalSeconds < 0;
-            if (isNegative) {
-                duration = duration.abs();
-                totalSeconds = Math.abs(totalSeconds);
-                totalMillis = Math.abs(totalMillis);
+            // 显示结果
+            long start = Metrics.INTERVAL.render.begin();
+            tvTimeInterval.setText(result.resultText);
+            tvTimeInterval.setTextColor(Color.parseColor(result.negative ? "#F44336" : "#4CAF50"));
+            tvDetailedResult.setText(result.detailedText);
+            tvDetailedResult.setVisibility(View.VISIBLE);
+            Metrics.INTERVAL.render.end(start);
+
+        } catch (Exception e) {
+            tvTimeInterval.setText("计算错误：" + e.getMessage());
+            tvTimeInterval.setTextColor(Color.parseColor("#F44336"));
+            tvDetailedResult.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * 初始化历史记录列表，点击记录时恢复开始和结束时间
+     */
+    private void setupHistory() {
+        historyPanel = new HistoryPanel(this, HistoryDatabase.INTERVALS, item -> {
+            HistoryItem.Interval interval = (HistoryItem.Interval) item;
+            startDateTime = HistoryItem.toDateTime(interval.startSecond, interval.startNano);
+            endDateTime = HistoryItem.toDateTime(interval.endSecond, interval.endNano);
+            updateTimeDisplay();
+            saveTimeData();
+
+            Toast.makeText(this, "已恢复历史记录", Toast.LENGTH_SHORT).show();
+        }, null);
+    }
+
+    /**
+     * 把当前的开始和结束时间记入历史（与最新一条相同时跳过）
+     *
+     * 时间变化时会自动重新计算，只在点击计算按钮和离开界面时记录，避免记下选择过程中的每一步
+     */
+    private void recordInterval() {
+        if (historyPanel == null || startDateTime == null || endDateTime == null) {
+            return;
+        }
+        final long startSecond = startDateTime.toEpochSecond(ZoneOffset.UTC);
+        final int startNano = startDateTime.getNano();
+        final long endSecond = endDateTime.toEpochSecond(ZoneOffset.UTC);
+        final int endNano = endDateTime.getNano();
+
+        HistoryItem first = historyPanel.first();
+        if (first instanceof HistoryItem.Interval) {
+            HistoryItem.Interval last = (HistoryItem.Interval) first;
+            if (last.startSecond == startSecond && last.startNano == startNano
+                    && last.endSecond == endSecond && last.endNano == endNano) {
+                return;
             }
+        }
 
-            // 计算各个时间单位
-            long days = duration.toDays();
-            long hours = duration.toHours() % 24;
-            long minutes = duration.toMinutes() % 60;
-            long seconds = totalSeconds % 60;
-            long millis = totalMillis % 1000;
-
-            // 构建结果显示
-            String resultText;
-            String detailedText;
-
-            if (days > 0) {
-                resultText = String.format("时间间隔：%d天 %d小时 %d分钟", days, hours, minutes);
-            } else if (hours > 0) {
-                resultText = String.format("时间间隔：%d小时 %d分钟 %d秒", hours, minutes, seconds);
-            } else if (minutes > 0) {
-                resultText = String.format("时间间隔：%d分钟 %d秒", minutes, seconds);
-            } else {
-                resultText = String.format("时间间隔：%d秒 %d毫秒", seconds, millis);
+        final long timestamp = System.currentTimeMillis();
+        historyPanel.add(new HistoryItem.Interval(HistoryItem.temporaryId(), startSecond, startNano,
+                endSecond, endNano, timestamp));
+
+        final HistoryDatabase database = HistoryDatabase.get(this);
+        HistoryDatabase.execute(() -> {
+            long start = Metrics.INTERVAL.persist.begin();
+            try {
+                database.insertInterval(startSecond, startNano, endSecond, endNano, timestamp);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "保存历史记录失败", e);
+            } finally {
+                Metrics.INTERVAL.persist.end(start);
             }
+        });
+    }
+
+    /**
+     * 计算时间间隔并生成显示文本
+     */
+    private IntervalResult computeInterval(long startNanos, long endNanos) {
+        long durationNanos;
+        boolean isNegative;
+        long start = Metrics.INTERVAL.calculate.begin();
+        try {
+            // 计算时间差（纪元纳秒）
+            durationNanos = IntervalMath.between(startNanos, endNanos);
 
-            // 添加符号提示
+            isNegative = durationNanos < 0;
             if (isNegative) {
-                resultText += "（结束时间早于开始时间）";
-                tvTimeInterval.setTextColor(Color.parseColor("#F44336"));
-            } else {
-                tvTimeInterval.setTextColor(Color.parseColor("#4CAF50"));
+                durationNanos = IntervalMath.abs(durationNanos);
             }
+        } finally {
+            Metrics.INTERVAL.calculate.end(start);
+        }
 
-            // 构建详细结果
-            detailedText = String.format(
-                    "详细结果：\n" +
-                            "• 总天数：%d天\n" +
-                            "• 总小时数：%d小时\n" +
-                            "• 总分钟数：%d分钟\n" +
-                            "• 总秒数：%d秒\n" +
-                            "• 总毫秒数：%d毫秒\n\n" +
-                            "开始时间：%s\n" +
-                            "结束时间：%s",
-                    days,
-                    duration.toHours(),
-                    duration.toMinutes(),
-                    totalSeconds,
-                    totalMillis,
-                    formatDateTime(startDateTime),
-                    formatDateTime(endDateTime)
-            );
+        start = Metrics.INTERVAL.format.begin();
+        try {
+            return formatInterval(durationNanos, isNegative);
+        } finally {
+            Metrics.INTERVAL.format.end(start);
+        }
+    }
 
-            // 显示结果
-            tvTimeInterval.setText(resultText);
-            tvDetailedResult.setText(detailedText);
-            tvDetailedResult.setVisibility(View.VISIBLE);
+    /**
+     * 生成时间间隔的显示文本
+     */
+    private IntervalResult formatInterval(long durationNanos, boolean isNegative) {
+        long totalSeconds = IntervalMath.totalSeconds(durationNanos);
+        long totalMillis = IntervalMath.totalMillis(durationNanos);
+
+        // 计算各个时间单位
+        long days = IntervalMath.totalDays(durationNanos);
+        long hours = IntervalMath.hoursPart(durationNanos);
+        long minutes = IntervalMath.minutesPart(durationNanos);
+        long seconds = IntervalMath.secondsPart(durationNanos);
+        long millis = IntervalMath.millisPart(durationNanos);
+
+        // 构建结果显示
+        String resultText;
+        String detailedText;
+
+        if (days > 0) {
+            resultText = String.format("时间间隔：%d天 %d小时 %d分钟", days, hours, minutes);
+        } else if (hours > 0) {
+            resultText = String.format("时间间隔：%d小时 %d分钟 %d秒", hours, minutes, seconds);
+        } else if (minutes > 0) {
+            resultText = String.format("时间间隔：%d分钟 %d秒", minutes, seconds);
+        } else {
+            resultText = String.format("时间间隔：%d秒 %d毫秒", seconds, millis);
+        }
 
-        } catch (Exception e) {
-            tvTimeInterval.setText("计算错误：" + e.getMessage());
-            tvTimeInterval.setTextColor(Color.parseColor("#F44336"));
-            tvDetailedResult.setVisibility(View.GONE);
+        // 添加符号提示
+        if (isNegative) {
+            resultText += "（结束时间早于开始时间）";
         }
+
+        // 构建详细结果
+        detailedText = String.format(
+                "详细结果：\n" +
+                        "• 总天数：%d天\n" +
+                        "• 总小时数：%d小时\n" +
+                        "• 总分钟数：%d分钟\n" +
+                        "• 总秒数：%d秒\n" +
+                        "• 总毫秒数：%d毫秒\n\n" +
+                        "开始时间：%s\n" +
+                        "结束时间：%s",
+                days,
+                IntervalMath.totalHours(durationNanos),
+                IntervalMath.totalMinutes(durationNanos),
+                totalSeconds,
+                totalMillis,
+                formatDateTime(startDateTime),
+                formatDateTime(endDateTime)
+        );
+
+        return new IntervalResult(resultText, detailedText, isNegative);
+    }
+
+    /**
+     * 转换为纪元纳秒（按UTC处理，仅用于计算差值）
+     */
+    private static long toEpochNanos(LocalDateTime dateTime) {
+        return IntervalMath.epochNanos(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano());
     }
 
     /**
      * 格式化日期时间显示
      */
     private String formatDateTime(LocalDateTime dateTime) {
-        String formatted = dateTime.format(fullFormatter);
-        if (!is24HourFormat) {
-            formatted = formatted.replace("AM", "上午").replace("PM", "下午");
-        }
-        return formatted;
+        return DateTimeTexts.format(fullRenderer, dateTime);
     }
 
     /**
@@ -587,42 +703,32 @@ public class TimeIntervalActivity extends AppCompatActivity {
      * 保存时间格式偏好
      */
     private void saveTimeFormatPreference() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putBoolean(PREF_TIME_FORMAT, is24HourFormat);
-        editor.apply();
+        preferences.putBoolean(PREF_TIME_FORMAT, is24HourFormat);
     }
 
     /**
      * 保存时间数据
      */
     private void saveTimeData() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-
         if (startDateTime != null) {
-            editor.putString(PREF_START_TIME, startDateTime.toString());
+            preferences.putString(PREF_START_TIME, startDateTime.toString());
         } else {
-            editor.remove(PREF_START_TIME);
+            preferences.remove(PREF_START_TIME);
         }
 
         if (endDateTime != null) {
-            editor.putString(PREF_END_TIME, endDateTime.toString());
+            preferences.putString(PREF_END_TIME, endDateTime.toString());
         } else {
-            editor.remove(PREF_END_TIME);
+            preferences.remove(PREF_END_TIME);
         }
-
-        editor.apply();
     }
 
     /**
      * 加载保存的数据
      */
     private void loadSavedData() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-
         // 加载时间格式偏好
-        is24HourFormat = prefs.getBoolean(PREF_TIME_FORMAT, true);
+        is24HourFormat = preferences.getBoolean(PREF_TIME_FORMAT, true);
         if (is24HourFormat) {
             rb24h.setChecked(true);
         } else {
@@ -630,8 +736,8 @@ public class TimeIntervalActivity extends AppCompatActivity {
         }
 
         // 加载保存的时间
-        String startTimeStr = prefs.getString(PREF_START_TIME, null);
-        String endTimeStr = prefs.getString(PREF_END_TIME, null);
+        String startTimeStr = preferences.getString(PREF_START_TIME, null);
+        String endTimeStr = preferences.getString(PREF_END_TIME, null);
 
         if (startTimeStr != null) {
             try {
@@ -671,7 +777,9 @@ public class TimeIntervalActivity extends AppCompatActivity {
                 "4. 注意事项：\n" +
                 "   • 支持计算过去和未来的时间间隔\n" +
                 "   • 结果显示精确到毫秒\n" +
-                "   • 自动保存最近使用的时间";
+                "   • 自动保存最近使用的时间\n" +
+                "   • 点击计算或离开界面时记入间隔历史，点击历史可恢复\n" +
+                "   • 历史搜索框可按天数或记录日期查找，如“昨天”“30天”";
 
         builder.setMessage(helpText);
         builder.setPositiveButton("确定", null);
@@ -700,8 +808,7 @@ public class TimeIntervalActivity extends AppCompatActivity {
     @Override
     public void onBackPressed() {
         // 保存数据
-        saveTimeData();
-        saveTimeFormatPreference();
+        preferences.flush();
 
         super.onBackPressed();
         overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
@@ -713,7 +820,8 @@ public class TimeIntervalActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
-        saveTimeData();
-        saveTimeFormatPreference();
+        // 设置在修改时已记录，这里只需立即写入
+        preferences.flush();
+        recordInterval();
     }
 }
\ No newline at end of file
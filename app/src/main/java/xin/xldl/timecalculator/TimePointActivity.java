@@ -6,7 +6,6 @@ import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.os.Handler;
@@ -30,11 +29,18 @@ import androidx.cardview.widget.CardView;
 
 import org.threeten.bp.Duration;
 import org.threeten.bp.LocalDateTime;
-import org.threeten.bp.format.DateTimeFormatter;
+import org.threeten.bp.ZoneOffset;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
 import java.util.Locale;
 
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.PointMath;
+import xin.xldl.timecalculator.core.ResultCache;
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
 public class TimePointActivity extends AppCompatActivity {
 
     // 时间相关变量
@@ -51,11 +57,51 @@ public class TimePointActivity extends AppCompatActivity {
     private Spinner spinnerUnit;
     private CardView cardBaseTime, cardResult;
 
-    // 格式化器
-    private DateTimeFormatter dateFormatter;
-    private DateTimeFormatter timeFormatter;
-    private DateTimeFormatter fullFormatter;
-    private DateTimeFormatter resultFormatter;
+    // 日期时间渲染器（全进程缓存）
+    private DateTimeRenderer dateRenderer;
+    private DateTimeRenderer timeRenderer;
+    private DateTimeRenderer fullRenderer;
+
+    // 数字格式化器（复用缓冲区，仅在主线程使用）
+    private final NumberFormatter numberFormatter = new NumberFormatter();
+
+    // 后台计算管线
+    private final CalculationPipeline pipeline = new CalculationPipeline("point-calculation");
+
+    // 输入到显示的延迟统计（每次界面可见为一次会话）
+    private InputLatencyTracker inputLatency;
+
+    // 推算结果（在计算线程中生成）
+    private static class ProjectionResult {
+        final LocalDateTime base;
+        final double amount;
+        final int unit; // TimeUnits 中的单位
+        final boolean add;
+        final LocalDateTime dateTime;
+        final String formattedResult;
+        // 详细结果中与当前时间无关的部分，“相对于现在”在显示时生成
+        final String detailedText;
+
+        ProjectionResult(LocalDateTime base, double amount, int unit, boolean add,
+                         LocalDateTime dateTime, String formattedResult, String detailedText) {
+            this.base = base;
+            this.amount = amount;
+            this.unit = unit;
+            this.add = add;
+            this.dateTime = dateTime;
+            this.formattedResult = formattedResult;
+            this.detailedText = detailedText;
+        }
+    }
+
+    // 当前显示的推算结果，没有结果时为 null
+    private ProjectionResult shownResult;
+
+    // 历史记录（保存在数据库中，列表按页读取）
+    private HistoryPanel historyPanel;
+
+    // 最近的推算结果，键为（基准纪元秒, 时长位模式, 纳秒/单位/增减/制式）
+    private static final ResultCache<ProjectionResult> RESULT_CACHE = ResultCaches.create("时间推算", 32);
 
     // 常量
     private static final String PREFS_NAME = "TimeCalculatorPrefs";
@@ -65,16 +111,11 @@ public class TimePointActivity extends AppCompatActivity {
     private static final String PREF_UNIT = "last_unit";
     private static final String PREF_OPERATION = "last_operation";
 
-    // 单位换算（以秒为基准）
-    private static final double[] UNIT_MULTIPLIERS = {
-            1,          // 秒
-            60,         // 分钟
-            3600,       // 小时
-            86400,      // 天
-            604800,     // 周
-            2592000,    // 月（30天）
-            31536000    // 年（365天）
-    };
+    // 设置存储（修改合并后在后台写入）
+    private PreferenceStore preferences;
+
+    // 单位选项从秒开始，对应 TimeUnits.SECOND 之后的单位
+    private static final int FIRST_UNIT = TimeUnits.SECOND;
 
     private static final String[] UNIT_NAMES = {
             "秒", "分钟", "小时", "天", "周", "月", "年"
@@ -83,6 +124,8 @@ public class TimePointActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        preferences = PreferenceStore.get(this, PREFS_NAME);
+        inputLatency = new InputLatencyTracker(this, "point", Metrics.POINT_INPUT);
 
         Log.d("TimePointActivity", "=== TimePointActivity 启动 ===");
 
@@ -99,7 +142,7 @@ public class TimePointActivity extends AppCompatActivity {
                 return;
             }
 
-            // 初始化时间库（简化版本，避免ThreeTenABP问题）
+            // 等待时间库就绪
             initializeTimeLibrary();
 
             // 初始化视图
@@ -117,6 +160,9 @@ public class TimePointActivity extends AppCompatActivity {
             // 更新显示
             updateDisplay();
 
+            // 历史记录
+            setupHistory();
+
             Log.d("TimePointActivity", "=== TimePointActivity 初始化完成 ===");
 
         } catch (Exception e) {
@@ -130,9 +176,8 @@ public class TimePointActivity extends AppCompatActivity {
      * 初始化ThreeTenABP时间库
      */
     private void initializeTimeLibrary() {
-        try {
-            com.jakewharton.threetenabp.AndroidThreeTen.init(this);
-        } catch (Exception e) {
+        // 时区数据在应用启动时已于后台加载，这里只在尚未完成时等待
+        if (!StartupTasks.awaitTimeZones(this)) {
             Toast.makeText(this, "时间库初始化失败", Toast.LENGTH_SHORT).show();
             finish();
         }
@@ -299,7 +344,7 @@ public class TimePointActivity extends AppCompatActivity {
      * 设置格式化器
      */
     private void setupFormatters() {
-        dateFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日", Locale.CHINA);
+        dateRenderer = DateTimeRenderer.of(DateTimeRenderer.DATE_PATTERN, Locale.CHINA, true);
         updateFormatters();
     }
 
@@ -307,15 +352,8 @@ public class TimePointActivity extends AppCompatActivity {
      * 根据当前制式更新格式化器
      */
     private void updateFormatters() {
-        if (is24HourFormat) {
-            timeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.CHINA);
-            fullFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA);
-            resultFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA);
-        } else {
-            timeFormatter = DateTimeFormatter.ofPattern("hh:mm:ss a", Locale.ENGLISH);
-            fullFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 hh:mm:ss a", Locale.ENGLISH);
-            resultFormatter = DateTimeFormatter.ofPattern("yyyy年MM月dd日 hh:mm:ss a", Locale.ENGLISH);
-        }
+        timeRenderer = DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, is24HourFormat);
+        fullRenderer = DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, is24HourFormat);
     }
 
     /**
@@ -373,7 +411,16 @@ public class TimePointActivity extends AppCompatActivity {
         // 计算按钮
         View btnCalculate = findViewById(R.id.btn_calculate);
         if (btnCalculate != null) {
-            btnCalculate.setOnClickListener(v -> calculateResult());
+            btnCalculate.setOnClickListener(v -> {
+                calculateResult();
+                recordProjection();
+            });
+        }
+
+        // 清空历史按钮
+        View btnClearHistory = findViewById(R.id.btn_clear_history);
+        if (btnClearHistory != null) {
+            btnClearHistory.setOnClickListener(v -> historyPanel.confirmClear(null));
         }
 
         // 结果操作按钮
@@ -387,7 +434,9 @@ public class TimePointActivity extends AppCompatActivity {
         if (etDurationValue != null) {
             etDurationValue.addTextChangedListener(new TextWatcher() {
                 @Override
-                public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                    inputLatency.onInput();
+                }
 
                 @Override
                 public void onTextChanged(CharSequence s, int start, int before, int count) {
@@ -631,6 +680,7 @@ public class TimePointActivity extends AppCompatActivity {
      */
     private void copyResult() {
         if (resultDateTime != null) {
+            recordProjection();
             String formattedTime = formatDateTime(resultDateTime);
             copyToClipboard(formattedTime);
             Toast.makeText(this, "推算结果已复制到剪贴板", Toast.LENGTH_SHORT).show();
@@ -644,6 +694,7 @@ public class TimePointActivity extends AppCompatActivity {
      */
     private void setResultAsBase() {
         if (resultDateTime != null) {
+            recordProjection();
             baseDateTime = resultDateTime;
             updateDisplay();
             saveBaseTime();
@@ -669,12 +720,8 @@ public class TimePointActivity extends AppCompatActivity {
     private void updateDisplay() {
         // 更新基准时间显示
         if (baseDateTime != null) {
-            tvBaseDate.setText(baseDateTime.format(dateFormatter));
-            String timeText = baseDateTime.format(timeFormatter);
-            if (!is24HourFormat) {
-                timeText = timeText.replace("AM", "上午").replace("PM", "下午");
-            }
-            tvBaseTime.setText(timeText);
+            tvBaseDate.setText(DateTimeTexts.format(dateRenderer, baseDateTime));
+            tvBaseTime.setText(DateTimeTexts.format(timeRenderer, baseDateTime));
             cardBaseTime.setCardBackgroundColor(Color.WHITE);
         } else {
             tvBaseDate.setText("未选择");
@@ -696,86 +743,241 @@ public class TimePointActivity extends AppCompatActivity {
     private void calculateResult() {
         // 检查必要条件
         if (baseDateTime == null) {
+            pipeline.cancel();
+            shownResult = null;
             tvResultTime.setText("请先设置基准时间");
             tvResultTime.setTextColor(Color.parseColor("#757575"));
             tvDetailedResult.setVisibility(View.GONE);
+            inputLatency.onResultShown(tvResultTime);
             return;
         }
 
         String durationStr = etDurationValue.getText().toString().trim();
         if (durationStr.isEmpty()) {
+            pipeline.cancel();
+            shownResult = null;
             tvResultTime.setText("请输入时间长度");
             tvResultTime.setTextColor(Color.parseColor("#757575"));
             tvDetailedResult.setVisibility(View.GONE);
+            inputLatency.onResultShown(tvResultTime);
             return;
         }
 
+        final double durationValue;
         try {
-            // 解析输入值
-            double durationValue = Double.parseDouble(durationStr);
-            int unitIndex = spinnerUnit.getSelectedItemPosition();
+            durationValue = Double.parseDouble(durationStr);
+        } catch (NumberFormatException e) {
+            pipeline.cancel();
+            showError(e);
+            return;
+        }
 
-            // 转换为秒
-            double totalSeconds = durationValue * UNIT_MULTIPLIERS[unitIndex];
+        // 计算线程只使用这份快照，不访问界面状态
+        final LocalDateTime base = baseDateTime;
+        final int unitIndex = spinnerUnit.getSelectedItemPosition();
+        final boolean add = isAddOperation;
+        final DateTimeRenderer renderer = fullRenderer;
+
+        // 相同输入（如“设为基准”后切换回来）直接使用已格式化的结果
+        final long baseSecond = base.toEpochSecond(ZoneOffset.UTC);
+        final long amountBits = Double.doubleToLongBits(durationValue);
+        final long options = base.getNano() | (long) unitIndex << 32 | (add ? 1L : 0L) << 40
+                | (is24HourFormat ? 1L : 0L) << 41;
+        ProjectionResult cached = RESULT_CACHE.get(baseSecond, amountBits, options);
+        if (cached != null) {
+            pipeline.cancel();
+            showResult(cached);
+            return;
+        }
 
-            // 计算新时间点
-            if (isAddOperation) {
-                resultDateTime = baseDateTime.plusSeconds((long) totalSeconds);
+        pipeline.submit(formatter -> {
+                    ProjectionResult result = computeResult(formatter, renderer, base, durationValue, unitIndex, add);
+                    RESULT_CACHE.put(baseSecond, amountBits, options, result);
+                    return result;
+                },
+                new CalculationPipeline.Callback<ProjectionResult>() {
+                    @Override
+                    public void onResult(ProjectionResult result) {
+                        showResult(result);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        showError(e);
+                    }
+                });
+    }
+
+    /**
+     * 初始化历史记录列表，点击记录时恢复基准时间、时长、单位和增减
+     */
+    private void setupHistory() {
+        historyPanel = new HistoryPanel(this, HistoryDatabase.PROJECTIONS, item -> {
+            HistoryItem.Projection projection = (HistoryItem.Projection) item;
+            baseDateTime = HistoryItem.toDateTime(projection.baseSecond, projection.baseNano);
+            updateDisplay();
+            saveBaseTime();
+            if (projection.add) {
+                rbAdd.setChecked(true);
             } else {
-                resultDateTime = baseDateTime.minusSeconds((long) totalSeconds);
+                rbSubtract.setChecked(true);
             }
+            spinnerUnit.setSelection(projection.unit - FIRST_UNIT);
+            etDurationValue.setText(numberFormatter.formatFixed(projection.amount, 3, false));
 
-            // 格式化结果
-            String formattedResult = formatDateTime(resultDateTime);
+            Toast.makeText(this, "已恢复历史记录", Toast.LENGTH_SHORT).show();
+        }, null);
+    }
 
+    /**
+     * 把当前显示的推算结果记入历史（与最新一条相同时跳过）
+     *
+     * 输入时每次变化都会重新推算，只在点击计算、复制、设为基准和离开界面时记录
+     */
+    private void recordProjection() {
+        final ProjectionResult result = shownResult;
+        if (historyPanel == null || result == null) {
+            return;
+        }
+        final long baseSecond = result.base.toEpochSecond(ZoneOffset.UTC);
+        final int baseNano = result.base.getNano();
+        final long resultSecond = result.dateTime.toEpochSecond(ZoneOffset.UTC);
+
+        HistoryItem first = historyPanel.first();
+        if (first instanceof HistoryItem.Projection) {
+            HistoryItem.Projection last = (HistoryItem.Projection) first;
+            if (last.baseSecond == baseSecond && last.baseNano == baseNano && last.unit == result.unit
+                    && last.add == result.add && Double.compare(last.amount, result.amount) == 0) {
+                return;
+            }
+        }
+
+        final long timestamp = System.currentTimeMillis();
+        historyPanel.add(new HistoryItem.Projection(HistoryItem.temporaryId(), baseSecond, baseNano,
+                result.amount, result.unit, result.add, resultSecond, timestamp));
+
+        final HistoryDatabase database = HistoryDatabase.get(this);
+        HistoryDatabase.execute(() -> {
+            long start = Metrics.POINT.persist.begin();
+            try {
+                database.insertProjection(baseSecond, baseNano, result.amount, result.unit,
+                        result.add, resultSecond, timestamp);
+            } catch (RuntimeException e) {
+                Log.w("TimePointActivity", "保存历史记录失败", e);
+            } finally {
+                Metrics.POINT.persist.end(start);
+            }
+        });
+    }
+
+    /**
+     * 显示推算结果
+     */
+    private void showResult(ProjectionResult result) {
+        resultDateTime = result.dateTime;
+        shownResult = result;
+
+        long start = Metrics.POINT.render.begin();
+        try {
             // 显示结果
-            tvResultTime.setText(formattedResult);
+            tvResultTime.setText(result.formattedResult);
             tvResultTime.setTextColor(Color.parseColor("#4CAF50"));
 
-            // 显示详细结果
-            showDetailedResult(durationValue, unitIndex, totalSeconds);
+            // 显示详细结果（缓存的结果可能来自之前，相对时间每次按当前时间生成）
+            StringBuilder detailedText = new StringBuilder(result.detailedText.length() + 32);
+            detailedText.append(result.detailedText);
+            appendRelativeToNow(detailedText, result.dateTime);
+            tvDetailedResult.setText(detailedText);
             tvDetailedResult.setVisibility(View.VISIBLE);
+        } finally {
+            Metrics.POINT.render.end(start);
+        }
+        inputLatency.onResultShown(tvResultTime);
+    }
 
-        } catch (NumberFormatException e) {
+    private void showError(Exception e) {
+        shownResult = null;
+        if (e instanceof NumberFormatException) {
             tvResultTime.setText("请输入有效的数值");
-            tvResultTime.setTextColor(Color.parseColor("#F44336"));
-            tvDetailedResult.setVisibility(View.GONE);
-        } catch (Exception e) {
+        } else {
             tvResultTime.setText("计算错误：" + e.getMessage());
-            tvResultTime.setTextColor(Color.parseColor("#F44336"));
-            tvDetailedResult.setVisibility(View.GONE);
         }
+        tvResultTime.setTextColor(Color.parseColor("#F44336"));
+        tvDetailedResult.setVisibility(View.GONE);
+        inputLatency.onResultShown(tvResultTime);
     }
 
     /**
-     * 显示详细结果
+     * 推算新时间点（在计算线程中执行）
      */
-    private void showDetailedResult(double durationValue, int unitIndex, double totalSeconds) {
-        DecimalFormat df = new DecimalFormat("#.###");
+    private static ProjectionResult computeResult(NumberFormatter formatter, DateTimeRenderer renderer,
+                                                  LocalDateTime base, double durationValue,
+                                                  int unitIndex, boolean add) {
+        double totalSeconds;
+        LocalDateTime dateTime;
+        long start = Metrics.POINT.calculate.begin();
+        try {
+            // 转换为秒
+            totalSeconds = PointMath.toSeconds(durationValue, FIRST_UNIT + unitIndex);
+
+            // 计算新时间点
+            long resultEpochSecond = PointMath.projectSeconds(
+                    base.toEpochSecond(ZoneOffset.UTC), durationValue, FIRST_UNIT + unitIndex, add);
+            dateTime = LocalDateTime.ofEpochSecond(resultEpochSecond, base.getNano(), ZoneOffset.UTC);
+        } finally {
+            Metrics.POINT.calculate.end(start);
+        }
+
+        start = Metrics.POINT.format.begin();
+        try {
+            return new ProjectionResult(base, durationValue, FIRST_UNIT + unitIndex, add, dateTime,
+                    DateTimeTexts.format(renderer, dateTime),
+                    buildDetailedResult(formatter, renderer, base, dateTime, add, durationValue, unitIndex, totalSeconds));
+        } finally {
+            Metrics.POINT.format.end(start);
+        }
+    }
 
+    /**
+     * 生成详细结果文本
+     */
+    private static String buildDetailedResult(NumberFormatter numberFormatter, DateTimeRenderer fullRenderer,
+                                              LocalDateTime baseDateTime, LocalDateTime resultDateTime,
+                                              boolean isAddOperation, double durationValue,
+                                              int unitIndex, double totalSeconds) {
         String operationText = isAddOperation ? "增加" : "减少";
         String unitName = UNIT_NAMES[unitIndex];
 
         StringBuilder detailedText = new StringBuilder();
         detailedText.append("推算详情：\n\n");
-        detailedText.append("基准时间：").append(formatDateTime(baseDateTime)).append("\n");
+        detailedText.append("基准时间：");
+        DateTimeTexts.appendTo(detailedText, fullRenderer, baseDateTime).append("\n");
         detailedText.append("操作类型：").append(operationText).append("\n");
-        detailedText.append("时间长度：").append(df.format(durationValue)).append(" ").append(unitName).append("\n");
-        detailedText.append("换算秒数：").append(df.format(totalSeconds)).append(" 秒\n\n");
+        detailedText.append("时间长度：");
+        numberFormatter.appendFixed(detailedText, durationValue, 3, false).append(" ").append(unitName).append("\n");
+        detailedText.append("换算秒数：");
+        numberFormatter.appendFixed(detailedText, totalSeconds, 3, false).append(" 秒\n\n");
 
         // 显示其他单位表示
         detailedText.append("其他单位表示：\n");
         for (int i = 0; i < UNIT_NAMES.length; i++) {
             if (i != unitIndex) {
-                double otherUnitValue = totalSeconds / UNIT_MULTIPLIERS[i];
+                double otherUnitValue = UnitConverter.convert(totalSeconds, TimeUnits.SECOND, FIRST_UNIT + i);
                 if (otherUnitValue >= 0.001) { // 只显示有意义的值
-                    detailedText.append("• ").append(df.format(otherUnitValue))
+                    detailedText.append("• ");
+                    numberFormatter.appendFixed(detailedText, otherUnitValue, 3, false)
                             .append(" ").append(UNIT_NAMES[i]).append("\n");
                 }
             }
         }
 
-        // 显示相对时间
+        return detailedText.toString();
+    }
+
+    /**
+     * 追加结果相对于当前时间的天数
+     */
+    private static void appendRelativeToNow(StringBuilder detailedText, LocalDateTime resultDateTime) {
         LocalDateTime now = LocalDateTime.now();
         Duration fromNow = Duration.between(now, resultDateTime);
         long daysFromNow = fromNow.toDays();
@@ -788,85 +990,60 @@ public class TimePointActivity extends AppCompatActivity {
         } else {
             detailedText.append("• 就是今天");
         }
-
-        tvDetailedResult.setText(detailedText.toString());
     }
 
     /**
      * 格式化日期时间显示
      */
     private String formatDateTime(LocalDateTime dateTime) {
-        String formatted = dateTime.format(resultFormatter);
-        if (!is24HourFormat) {
-            formatted = formatted.replace("AM", "上午").replace("PM", "下午");
-        }
-        return formatted;
+        return DateTimeTexts.format(fullRenderer, dateTime);
     }
 
     /**
      * 保存时间格式偏好
      */
     private void saveTimeFormatPreference() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putBoolean(PREF_TIME_FORMAT, is24HourFormat);
-        editor.apply();
+        preferences.putBoolean(PREF_TIME_FORMAT, is24HourFormat);
     }
 
     /**
      * 保存基准时间
      */
     private void saveBaseTime() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-
         if (baseDateTime != null) {
-            editor.putString(PREF_BASE_TIME, baseDateTime.toString());
+            preferences.putString(PREF_BASE_TIME, baseDateTime.toString());
         } else {
-            editor.remove(PREF_BASE_TIME);
+            preferences.remove(PREF_BASE_TIME);
         }
-
-        editor.apply();
     }
 
     /**
      * 保存时长偏好
      */
     private void saveDurationPreference() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putString(PREF_DURATION, etDurationValue.getText().toString());
-        editor.apply();
+        preferences.putString(PREF_DURATION, etDurationValue.getText().toString());
     }
 
     /**
      * 保存单位偏好
      */
     private void saveUnitPreference() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt(PREF_UNIT, spinnerUnit.getSelectedItemPosition());
-        editor.apply();
+        preferences.putInt(PREF_UNIT, spinnerUnit.getSelectedItemPosition());
     }
 
     /**
      * 保存操作偏好
      */
     private void saveOperationPreference() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putBoolean(PREF_OPERATION, isAddOperation);
-        editor.apply();
+        preferences.putBoolean(PREF_OPERATION, isAddOperation);
     }
 
     /**
      * 加载保存的数据
      */
     private void loadSavedData() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-
         // 加载时间格式偏好
-        is24HourFormat = prefs.getBoolean(PREF_TIME_FORMAT, true);
+        is24HourFormat = preferences.getBoolean(PREF_TIME_FORMAT, true);
         if (is24HourFormat) {
             rb24h.setChecked(true);
         } else {
@@ -874,7 +1051,7 @@ public class TimePointActivity extends AppCompatActivity {
         }
 
         // 加载操作偏好
-        isAddOperation = prefs.getBoolean(PREF_OPERATION, true);
+        isAddOperation = preferences.getBoolean(PREF_OPERATION, true);
         if (isAddOperation) {
             rbAdd.setChecked(true);
         } else {
@@ -882,7 +1059,7 @@ public class TimePointActivity extends AppCompatActivity {
         }
 
         // 加载基准时间
-        String baseTimeStr = prefs.getString(PREF_BASE_TIME, null);
+        String baseTimeStr = preferences.getString(PREF_BASE_TIME, null);
         if (baseTimeStr != null) {
             try {
                 baseDateTime = LocalDateTime.parse(baseTimeStr);
@@ -892,11 +1069,11 @@ public class TimePointActivity extends AppCompatActivity {
         }
 
         // 加载时长
-        String durationStr = prefs.getString(PREF_DURATION, "");
+        String durationStr = preferences.getString(PREF_DURATION, "");
         etDurationValue.setText(durationStr);
 
         // 加载单位
-        int unitIndex = prefs.getInt(PREF_UNIT, 2); // 默认小时
+        int unitIndex = preferences.getInt(PREF_UNIT, 2); // 默认小时
         if (unitIndex >= 0 && unitIndex < UNIT_NAMES.length) {
             spinnerUnit.setSelection(unitIndex);
         }
@@ -926,7 +1103,9 @@ public class TimePointActivity extends AppCompatActivity {
                 "4. 注意事项：\n" +
                 "   • 月按30天计算，年按365天计算\n" +
                 "   • 支持小数输入（如1.5小时）\n" +
-                "   • 自动保存最近使用的设置";
+                "   • 自动保存最近使用的设置\n" +
+                "   • 计算、复制、设为基准或离开界面时记入推算历史，点击历史可恢复\n" +
+                "   • 历史搜索框可按单位、时长或记录日期查找，如“本周 小时”";
 
         builder.setMessage(helpText);
         builder.setPositiveButton("确定", null);
@@ -959,26 +1138,56 @@ public class TimePointActivity extends AppCompatActivity {
     @Override
     public void onBackPressed() {
         // 保存数据
-        saveTimeFormatPreference();
-        saveBaseTime();
-        saveDurationPreference();
-        saveUnitPreference();
-        saveOperationPreference();
+        preferences.flush();
 
         super.onBackPressed();
         overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        inputLatency.start();
+    }
+
     /**
      * 保存状态
      */
     @Override
     protected void onPause() {
         super.onPause();
-        saveTimeFormatPreference();
-        saveBaseTime();
-        saveDurationPreference();
-        saveUnitPreference();
-        saveOperationPreference();
+        // 设置在修改时已记录，这里只需立即写入
+        preferences.flush();
+        recordProjection();
+        finishInputLatencySession();
+    }
+
+    /**
+     * 结束本次输入延迟统计，有数据时在后台写入文件
+     */
+    private void finishInputLatencySession() {
+        final InputLatencyTracker session = inputLatency;
+        session.stop();
+        inputLatency = new InputLatencyTracker(this, "point", Metrics.POINT_INPUT);
+        if (session.hasSamples()) {
+            // 取得外部存储目录也会访问磁盘，放到后台线程
+            final Context context = getApplicationContext();
+            pipeline.execute(() -> {
+                try {
+                    session.writeTo(InputLatencyTracker.sessionDirectory(context));
+                } catch (IOException e) {
+                    Log.w("TimePointActivity", "保存输入延迟记录失败", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 停止后台计算
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        pipeline.shutdown();
     }
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package xin.xldl.timecalculator;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import xin.xldl.timecalculator.core.HistoryExport;
+import xin.xldl.timecalculator.core.HistoryLog;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HistoryDatabaseTest {
+
+    private Context context;
+    private HistoryDatabase database;
+
+    @Before
+    public void openInMemory() {
+        context = RuntimeEnvironment.getApplication();
+        database = new HistoryDatabase(context, null);
+    }
+
+    @After
+    public void close() {
+        database.close();
+    }
+
+    @Test
+    public void pagesLargeHistoryNewestFirst() {
+        int n = 100_000;
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement("INSERT INTO conversions"
+                    + " (created_at, from_unit, to_unit, precision, from_value, to_value) VALUES (?, ?, ?, ?, ?, ?)");
+            for (int i = 0; i < n; i++) {
+                // 每10条共用一个时间，分页必须靠行号区分
+                insert.bindLong(1, i / 10);
+                insert.bindLong(2, TimeUnits.WEEK);
+                insert.bindLong(3, TimeUnits.DAY);
+                insert.bindLong(4, 1);
+                insert.bindDouble(5, i);
+                insert.bindDouble(6, i * 7.0);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        HistoryDatabase.PageKey key = new HistoryDatabase.PageKey();
+        List<HistoryItem> first = database.loadPage(HistoryDatabase.CONVERSIONS, key, 50);
+        assertEquals(50, first.size());
+        assertEquals(n - 1, ((HistoryItem.Conversion) first.get(0)).fromValue, 0);
+        assertFalse(key.exhausted);
+
+        // 继续翻到最后：不重复、不遗漏，时间不增
+        Set<Double> seen = new HashSet<>();
+        long previous = Long.MAX_VALUE;
+        for (HistoryItem item : first) {
+            seen.add(((HistoryItem.Conversion) item).fromValue);
+            previous = item.epochMillis;
+        }
+        while (!key.exhausted) {
+            for (HistoryItem item : database.loadPage(HistoryDatabase.CONVERSIONS, key, 1000)) {
+                assertTrue(item.epochMillis <= previous);
+                previous = item.epochMillis;
+                assertTrue(seen.add(((HistoryItem.Conversion) item).fromValue));
+            }
+        }
+        assertEquals(n, seen.size());
+        assertTrue(database.loadPage(HistoryDatabase.CONVERSIONS, key, 50).isEmpty());
+    }
+
+    @Test
+    public void itemIdsAreRowIds() {
+        long now = System.currentTimeMillis();
+        long first = database.insertConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 1, 60, now);
+        long second = database.insertConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 2, 120, now);
+
+        // 重新读取和搜索得到的记录ID相同，列表的差异计算和稳定ID才能对上
+        List<HistoryItem> page = database.loadPage(HistoryDatabase.CONVERSIONS, new HistoryDatabase.PageKey(), 10);
+        List<HistoryItem> again = database.loadPage(HistoryDatabase.CONVERSIONS, new HistoryDatabase.PageKey(), 10);
+        List<HistoryItem> found = database.search(HistoryDatabase.CONVERSIONS, "小时", 10);
+        assertEquals(second, page.get(0).id);
+        assertEquals(first, page.get(1).id);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(page.get(i).id, again.get(i).id);
+            assertEquals(page.get(i).id, found.get(i).id);
+            assertTrue(page.get(i).sameContent(again.get(i)));
+        }
+        assertFalse(page.get(0).sameContent(page.get(1)));
+
+        // 还没有写入的记录使用不会与行号重复的临时ID
+        assertTrue(HistoryItem.temporaryId() < 0);
+    }
+
+    @Test
+    public void replaceLatestConversion() {
+        database.replaceLatestConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 1, 60, 1000);
+        database.insertConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 2, 120, 2000);
+        database.replaceLatestConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 3, 180, 3000);
+
+        List<HistoryItem> page = database.loadPage(HistoryDatabase.CONVERSIONS, new HistoryDatabase.PageKey(), 10);
+        assertEquals(2, page.size());
+        HistoryItem.Conversion latest = (HistoryItem.Conversion) page.get(0);
+        assertEquals(3, latest.fromValue, 0);
+        assertEquals(180, latest.toValue, 0);
+        assertEquals(3000, latest.epochMillis);
+        assertEquals(1, ((HistoryItem.Conversion) page.get(1)).fromValue, 0);
+    }
+
+    @Test
+    public void intervalsAndProjections() {
+        database.insertInterval(1_700_000_000L, 0, 1_700_086_400L, 500, 10);
+        database.insertProjection(1_700_000_000L, 250, 1.5, TimeUnits.HOUR, false, 1_699_994_600L, 20);
+
+        HistoryItem.Interval interval = (HistoryItem.Interval) database.loadPage(
+                HistoryDatabase.INTERVALS, new HistoryDatabase.PageKey(), 10).get(0);
+        assertEquals(1_700_086_400L, interval.endSecond);
+        assertEquals(500, interval.endNano);
+
+        HistoryItem.Projection projection = (HistoryItem.Projection) database.loadPage(
+                HistoryDatabase.PROJECTIONS, new HistoryDatabase.PageKey(), 10).get(0);
+        assertEquals(250, projection.baseNano);
+        assertEquals(1.5, projection.amount, 0);
+        assertEquals(TimeUnits.HOUR, projection.unit);
+        assertFalse(projection.add);
+
+        database.clear(HistoryDatabase.INTERVALS);
+        assertEquals(0, database.count(HistoryDatabase.INTERVALS));
+        assertEquals(1, database.count(HistoryDatabase.PROJECTIONS));
+    }
+
+    @Test
+    public void searchFollowsWrites() {
+        long now = System.currentTimeMillis();
+        database.insertConversion(TimeUnits.SECOND, TimeUnits.NANOSECOND, 0, 1, 1_000_000_000, now);
+        database.insertConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 1.5, 90, now);
+
+        List<HistoryItem> found = database.search(HistoryDatabase.CONVERSIONS, "今天 纳秒", 10);
+        assertEquals(1, found.size());
+        assertEquals(TimeUnits.SECOND, ((HistoryItem.Conversion) found.get(0)).fromUnit);
+
+        // 建立索引之后的写入
+        database.insertConversion(TimeUnits.MILLISECOND, TimeUnits.NANOSECOND, 0, 2, 2_000_000, now);
+        assertEquals(2, database.search(HistoryDatabase.CONVERSIONS, "纳秒", 10).size());
+        database.replaceLatestConversion(TimeUnits.MILLISECOND, TimeUnits.MICROSECOND, 0, 2, 2000, now);
+        assertEquals(1, database.search(HistoryDatabase.CONVERSIONS, "纳秒", 10).size());
+        assertEquals(1, database.search(HistoryDatabase.CONVERSIONS, "2000 微秒", 10).size());
+
+        HistoryItem.Conversion hour = (HistoryItem.Conversion) database.search(
+                HistoryDatabase.CONVERSIONS, "1.5", 10).get(0);
+        assertEquals(90, hour.toValue, 0);
+
+        database.clear(HistoryDatabase.CONVERSIONS);
+        assertTrue(database.search(HistoryDatabase.CONVERSIONS, "纳秒", 10).isEmpty());
+    }
+
+    @Test
+    public void exportAndImportConversions() throws Exception {
+        database.insertConversion(TimeUnits.WEEK, TimeUnits.DAY, 1, 1, 7, 2000);
+        database.insertConversion(TimeUnits.SECOND, TimeUnits.NANOSECOND, 0, 1, 1_000_000_000, 1000);
+        // 先建立索引，导入后必须包含新记录
+        assertEquals(1, database.search(HistoryDatabase.CONVERSIONS, "纳秒", 10).size());
+
+        File file = new File(context.getCacheDir(), "history.csv.gz");
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             HistoryExport.Writer writer = new HistoryExport.Writer(channel, HistoryExport.CSV, true)) {
+            assertEquals(2, database.exportConversions(writer));
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             HistoryExport.Reader reader = new HistoryExport.Reader(channel)) {
+            assertEquals(2, database.importConversions(reader));
+        }
+
+        assertEquals(4, database.count(HistoryDatabase.CONVERSIONS));
+        assertEquals(2, database.search(HistoryDatabase.CONVERSIONS, "纳秒", 10).size());
+        // 按记录时间排序，导入的副本与原记录相邻
+        List<HistoryItem> page = database.loadPage(HistoryDatabase.CONVERSIONS, new HistoryDatabase.PageKey(), 10);
+        assertEquals(2000, page.get(0).epochMillis);
+        assertEquals(2000, page.get(1).epochMillis);
+        assertEquals(7, ((HistoryItem.Conversion) page.get(1)).toValue, 0);
+        assertEquals(1000, page.get(3).epochMillis);
+    }
+
+    @Test
+    public void importedOlderRowsKeepTimeOrder() throws Exception {
+        database.insertConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 1, 60, 5000);
+        assertEquals(1, database.search(HistoryDatabase.CONVERSIONS, "60", 10).size());
+
+        // 导入的记录行号较大，但时间更早
+        File file = new File(context.getCacheDir(), "older.csv");
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             HistoryExport.Writer writer = new HistoryExport.Writer(channel, HistoryExport.CSV, false)) {
+            writer.write(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 2, 120, 1000);
+            writer.write(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 3, 180, 2000);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             HistoryExport.Reader reader = new HistoryExport.Reader(channel)) {
+            assertEquals(2, database.importConversions(reader));
+        }
+
+        List<HistoryItem> found = database.search(HistoryDatabase.CONVERSIONS, "小时", 10);
+        assertEquals(3, found.size());
+        assertEquals(5000, found.get(0).epochMillis);
+        assertEquals(2000, found.get(1).epochMillis);
+        assertEquals(1000, found.get(2).epochMillis);
+        assertEquals(2, database.search(HistoryDatabase.CONVERSIONS, "小时", 2).size());
+
+        // 覆盖的是时间最新的一条，而不是行号最大的导入记录
+        database.replaceLatestConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 4, 240, 6000);
+        List<HistoryItem> page = database.loadPage(HistoryDatabase.CONVERSIONS, new HistoryDatabase.PageKey(), 10);
+        assertEquals(3, page.size());
+        assertEquals(found.get(0).id, page.get(0).id);
+        assertEquals(240, ((HistoryItem.Conversion) page.get(0)).toValue, 0);
+        assertEquals(180, ((HistoryItem.Conversion) page.get(1)).toValue, 0);
+        assertTrue(database.search(HistoryDatabase.CONVERSIONS, "60", 10).isEmpty());
+        assertEquals(page.get(0).id, database.search(HistoryDatabase.CONVERSIONS, "240", 10).get(0).id);
+
+        // 系统时间被调回后写入的记录仍能按时间顺序搜到
+        database.insertConversion(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 5, 300, 1500);
+        found = database.search(HistoryDatabase.CONVERSIONS, "小时", 10);
+        assertEquals(4, found.size());
+        assertEquals(1500, found.get(2).epochMillis);
+    }
+
+    @Test
+    public void importsLegacyLogOnCreate() throws Exception {
+        // 旧版日志文件：文件头 + 两条记录（格式见 HistoryLog）
+        ByteBuffer content = ByteBuffer.allocate(HistoryLog.HEADER_SIZE + 2 * HistoryLog.RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        content.putInt(HistoryLog.MAGIC).putShort((short) 1).putShort((short) HistoryLog.RECORD_SIZE).putLong(2);
+        content.put((byte) TimeUnits.WEEK).put((byte) TimeUnits.DAY).put((byte) 1).put(new byte[5])
+                .putDouble(1).putDouble(7).putLong(100);
+        content.put((byte) TimeUnits.DAY).put((byte) TimeUnits.HOUR).put((byte) 1).put(new byte[5])
+                .putDouble(2).putDouble(48).putLong(200);
+        File legacy = new File(context.getFilesDir(), HistoryDatabase.LEGACY_LOG_FILE);
+        Files.write(legacy.toPath(), content.array());
+
+        HistoryDatabase onDisk = new HistoryDatabase(context, "import-test.db");
+        try {
+            assertEquals(2, onDisk.count(HistoryDatabase.CONVERSIONS));
+            HistoryItem.Conversion latest = (HistoryItem.Conversion) onDisk.loadPage(
+                    HistoryDatabase.CONVERSIONS, new HistoryDatabase.PageKey(), 10).get(0);
+            assertEquals(TimeUnits.DAY, latest.fromUnit);
+            assertEquals(200, latest.epochMillis);
+            assertFalse(legacy.exists());
+        } finally {
+            onDisk.close();
+            context.deleteDatabase("import-test.db");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package xin.xldl.timecalculator;
+
+import android.os.Looper;
+import android.text.TextUtils;
+import android.widget.EditText;
+import android.widget.Spinner;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import xin.xldl.timecalculator.core.IoGuard;
+import xin.xldl.timecalculator.core.IoViolations;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 计算界面的热点路径（输入、换单位、计算、离开界面）不能在主线程读写磁盘
+ *
+ * 打开界面时的读取不在检查范围内。失败时的消息包含读写位置和调用栈。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MainThreadIoTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private final IoViolations violations = new IoViolations("xin.xldl.timecalculator.");
+
+    @Before
+    public void guardMainThread() {
+        IoGuard.guard(Looper.getMainLooper().getThread(), violations);
+    }
+
+    @After
+    public void unguard() {
+        IoGuard.unguard();
+    }
+
+    @Test
+    public void converterHotPath() {
+        ActivityController<TimeConverterActivity> controller =
+                Robolectric.buildActivity(TimeConverterActivity.class).setup();
+        TimeConverterActivity activity = controller.get();
+        EditText input = activity.findViewById(R.id.et_input_value);
+        TextView output = activity.findViewById(R.id.tv_output_value);
+        Spinner toUnit = activity.findViewById(R.id.spinner_to_unit);
+        drain();
+        violations.clear();
+
+        for (String value : new String[]{"2", "25", "250.5", "1234567890"}) {
+            CharSequence before = output.getText().toString();
+            input.setText(value);
+            awaitChange(output, before);
+        }
+        CharSequence before = output.getText().toString();
+        toUnit.setSelection(toUnit.getSelectedItemPosition() == 2 ? 4 : 2);
+        awaitChange(output, before);
+
+        controller.pause().stop();
+        drain();
+        assertNoDiskAccess();
+        controller.destroy();
+    }
+
+    @Test
+    public void pointHotPath() {
+        ActivityController<TimePointActivity> controller =
+                Robolectric.buildActivity(TimePointActivity.class).setup();
+        TimePointActivity activity = controller.get();
+        EditText duration = activity.findViewById(R.id.et_duration_value);
+        TextView result = activity.findViewById(R.id.tv_result_time);
+        activity.findViewById(R.id.btn_set_base_now).performClick();
+        drain();
+        violations.clear();
+
+        for (String value : new String[]{"1", "12", "120", "1.5"}) {
+            CharSequence before = result.getText().toString();
+            duration.setText(value);
+            awaitChange(result, before);
+        }
+
+        controller.pause().stop();
+        drain();
+        assertNoDiskAccess();
+        controller.destroy();
+    }
+
+    @Test
+    public void intervalHotPath() {
+        ActivityController<TimeIntervalActivity> controller =
+                Robolectric.buildActivity(TimeIntervalActivity.class).setup();
+        TimeIntervalActivity activity = controller.get();
+        drain();
+        violations.clear();
+
+        activity.findViewById(R.id.btn_set_start_now).performClick();
+        activity.findViewById(R.id.btn_set_end_now).performClick();
+        activity.findViewById(R.id.btn_calculate).performClick();
+        drain();
+
+        controller.pause().stop();
+        drain();
+        assertNoDiskAccess();
+        controller.destroy();
+    }
+
+    private void assertNoDiskAccess() {
+        assertEquals("主线程磁盘读写：\n" + violations.entries(), 0, violations.size());
+    }
+
+    /**
+     * 执行主线程上已排队的消息，并给后台计算留出送回结果的时间
+     */
+    private static void drain() {
+        for (int i = 0; i < 10; i++) {
+            shadowOf(Looper.getMainLooper()).idle();
+            sleep();
+        }
+    }
+
+    /**
+     * 等待后台计算的结果显示出来
+     */
+    private static void awaitChange(TextView view, CharSequence before) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if (!TextUtils.equals(view.getText(), before)) {
+                return;
+            }
+            sleep();
+        }
+        fail("结果没有更新：" + before);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 与Activity中私有方法保持一致的副本
+ *
+ * Activity无法在JVM上实例化，这里逐行复制需要测量的代码，修改Activity时需同步更新。
+ */
+final class ActivityCode {
+
+    private ActivityCode() {
+    }
+
+    /**
+     * TimeConverterActivity.formatNumber
+     */
+    static String formatNumber(double number, int precision) {
+        if (Double.isInfinite(number) || Double.isNaN(number)) {
+            return "无限大";
+        }
+
+        String pattern;
+        switch (precision) {
+            case 0: // 低精度：整数
+                pattern = "#,##0";
+                break;
+            case 1: // 中精度：2位小数
+                pattern = "#,##0.##";
+                break;
+            case 2: // 高精度：6位小数
+                pattern = "#,##0.######";
+                break;
+            default:
+                pattern = "#,##0.##";
+        }
+
+        DecimalFormat df = new DecimalFormat(pattern);
+        return df.format(number);
+    }
+
+    /**
+     * TimeConverterActivity.HistoryItem
+     */
+    static final class HistoryItem {
+        String fromValue;
+        String fromUnit;
+        String toValue;
+        String toUnit;
+        String timestamp;
+
+        HistoryItem(String fromValue, String fromUnit, String toValue, String toUnit) {
+            this.fromValue = fromValue;
+            this.fromUnit = fromUnit;
+            this.toValue = toValue;
+            this.toUnit = toUnit;
+            this.timestamp = new SimpleDateFormat("HH:mm:ss", Locale.CHINA).format(new Date());
+        }
+    }
+
+    /**
+     * TimeConverterActivity.saveHistory（不含写入SharedPreferences）
+     */
+    static String saveHistory(List<HistoryItem> historyList) throws JSONException {
+        JSONArray jsonArray = new JSONArray();
+        for (HistoryItem item : historyList) {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.put("fromValue", item.fromValue);
+            jsonObject.put("fromUnit", item.fromUnit);
+            jsonObject.put("toValue", item.toValue);
+            jsonObject.put("toUnit", item.toUnit);
+            jsonObject.put("timestamp", item.timestamp);
+            jsonArray.put(jsonObject);
+        }
+        return jsonArray.toString();
+    }
+
+    /**
+     * TimeConverterActivity.loadHistory（不含读取SharedPreferences）
+     */
+    static List<HistoryItem> loadHistory(String historyJson) throws JSONException {
+        List<HistoryItem> historyList = new ArrayList<>();
+        JSONArray jsonArray = new JSONArray(historyJson);
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject jsonObject = jsonArray.getJSONObject(i);
+            HistoryItem item = new HistoryItem(
+                    jsonObject.getString("fromValue"),
+                    jsonObject.getString("fromUnit"),
+                    jsonObject.getString("toValue"),
+                    jsonObject.getString("toUnit")
+            );
+            item.timestamp = jsonObject.getString("timestamp");
+            historyList.add(item);
+        }
+        return historyList;
+    }
+}
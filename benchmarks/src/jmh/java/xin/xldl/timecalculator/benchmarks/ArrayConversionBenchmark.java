@@ -0,0 +1,82 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
+/**
+ * 数组批量换算与逐个换算的对比，分数为每秒换算的数值个数
+ *
+ * 用 -prof gc 运行时 gc.alloc.rate.norm 应为0。
+ */
+@State(Scope.Thread)
+public class ArrayConversionBenchmark {
+
+    private static final int SIZE = 1024;
+
+    // 周→天（整数倍）、秒→小时（整数分之一）、周→月（一般比例 7/30）
+    @Param({"7:6", "3:5", "7:8"})
+    public String units;
+
+    private int fromUnit;
+    private int toUnit;
+    private final double[] doubles = new double[SIZE];
+    private final long[] longs = new long[SIZE];
+    private final double[] out = new double[SIZE];
+
+    @Setup
+    public void setup() {
+        String[] pair = units.split(":");
+        fromUnit = Integer.parseInt(pair[0]);
+        toUnit = Integer.parseInt(pair[1]);
+        Random random = new Random(1);
+        for (int i = 0; i < SIZE; i++) {
+            longs[i] = random.nextInt(1_000_000);
+            // 一半整数、一半小数，与界面输入相近
+            doubles[i] = i % 2 == 0 ? longs[i] : random.nextInt(1_000_000) / 1000.0;
+        }
+        if (fromUnit >= TimeUnits.COUNT || toUnit >= TimeUnits.COUNT) {
+            throw new IllegalArgumentException(units);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double[] doubleArray() {
+        UnitConverter.convert(doubles, fromUnit, toUnit, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double[] doubleScalarLoop() {
+        for (int i = 0; i < SIZE; i++) {
+            out[i] = UnitConverter.convert(doubles[i], fromUnit, toUnit);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double[] longArray() {
+        UnitConverter.convert(longs, fromUnit, toUnit, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public double[] longScalarLoop() {
+        for (int i = 0; i < SIZE; i++) {
+            out[i] = UnitConverter.convert(longs[i], fromUnit, toUnit);
+        }
+        return out;
+    }
+}
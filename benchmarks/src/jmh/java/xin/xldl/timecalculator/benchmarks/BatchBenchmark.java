@@ -0,0 +1,72 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import xin.xldl.timecalculator.cli.TimeCalc;
+
+/**
+ * 命令行批量处理：同一个文件分别用1~16个线程处理，每次操作处理整个文件
+ *
+ * 每秒处理的行数 = ops/s × ROWS。并行的收益取决于物理核心数，需要在多核机器上运行。
+ */
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public String threads;
+
+    @Param({"convert", "breakdown"})
+    public String command;
+
+    private File input;
+    private String[] args;
+    private final PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+    @Setup
+    public void setup() throws IOException {
+        input = File.createTempFile("batch", ".csv");
+        Random random = new Random(1);
+        try (BufferedWriter writer = Files.newBufferedWriter(input.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ROWS; i++) {
+                if (command.equals("convert")) {
+                    writer.write(String.valueOf(random.nextInt(1_000_000) / 1000.0));
+                } else {
+                    writer.write(String.format("2023-%02d-%02dT%02d:%02d:00,2024-01-01T00:00:00",
+                            1 + random.nextInt(12), 1 + random.nextInt(28),
+                            random.nextInt(24), random.nextInt(60)));
+                }
+                writer.write('\n');
+            }
+        }
+        args = command.equals("convert")
+                ? new String[]{"convert", "周", "秒", "--threads", threads, input.getPath()}
+                : new String[]{"breakdown", "--threads", threads, input.getPath()};
+    }
+
+    @TearDown
+    public void tearDown() {
+        input.delete();
+    }
+
+    @Benchmark
+    public int run() {
+        return TimeCalc.run(args, InputStream.nullInputStream(), OutputStream.nullOutputStream(), discard);
+    }
+}
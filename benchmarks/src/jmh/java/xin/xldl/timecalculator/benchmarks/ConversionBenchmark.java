@@ -0,0 +1,119 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
+/**
+ * 单位换算：对应 TimeConverterActivity.convertValue / generateDetailedResults
+ */
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    // 原 TimeConverterActivity.UNIT_FACTORS（每秒对应的单位数量，double倒数）
+    private static final double[] UNIT_FACTORS = {
+            1_000_000_000.0, 1_000_000.0, 1_000.0, 1.0,
+            1.0 / 60.0, 1.0 / 3600.0, 1.0 / 86400.0, 1.0 / 604800.0, 1.0 / 2592000.0, 1.0 / 31536000.0
+    };
+
+    @Param({"1", "1234.5678"})
+    public double inputValue;
+
+    @Param({"0", "7", "9"})
+    public int fromUnit;
+
+    public int toUnit = TimeUnits.SECOND;
+    public int precision = 1;
+
+    private final NumberFormatter formatter = new NumberFormatter();
+    private final double[] row = new double[TimeUnits.EXTENDED_COUNT];
+
+    /**
+     * 主换算结果
+     */
+    @Benchmark
+    public double convert() {
+        return UnitConverter.convert(inputValue, fromUnit, toUnit);
+    }
+
+    /**
+     * 原有写法：先除以因子得到秒，再乘以目标因子
+     */
+    @Benchmark
+    public double convertDoubleFactors() {
+        return inputValue / UNIT_FACTORS[fromUnit] * UNIT_FACTORS[toUnit];
+    }
+
+    /**
+     * 整数输入走long精确路径
+     */
+    @Benchmark
+    public double convertLong() {
+        return UnitConverter.convert((long) inputValue, fromUnit, toUnit);
+    }
+
+    /**
+     * 详细结果网格的计算部分（其余单位 + 工作日 + 闰年天数）
+     */
+    @Benchmark
+    public void detailedResults(Blackhole bh) {
+        for (int i = 0; i < TimeUnits.COUNT; i++) {
+            if (i != fromUnit) {
+                bh.consume(UnitConverter.convert(inputValue, fromUnit, i));
+            }
+        }
+        bh.consume(UnitConverter.convert(inputValue, fromUnit, TimeUnits.HOUR) / 8.0);
+        bh.consume(UnitConverter.convert(inputValue, fromUnit, TimeUnits.DAY) / 366.0);
+    }
+
+    /**
+     * 详细结果网格的计算部分：扫描换算矩阵的一行
+     */
+    @Benchmark
+    public double[] detailedResultsMatrixRow() {
+        UnitConverter.convertToAll(inputValue, fromUnit, row);
+        return row;
+    }
+
+    /**
+     * 一次按键的完整数值工作量：主结果、换算文本和详细结果都经过格式化
+     */
+    @Benchmark
+    public void keystroke(Blackhole bh) {
+        double result = UnitConverter.convert(inputValue, fromUnit, toUnit);
+        bh.consume(ActivityCode.formatNumber(result, precision));
+        bh.consume(ActivityCode.formatNumber(inputValue, precision));
+        bh.consume(ActivityCode.formatNumber(result, precision));
+        for (int i = 0; i < TimeUnits.COUNT; i++) {
+            if (i != fromUnit) {
+                bh.consume(ActivityCode.formatNumber(UnitConverter.convert(inputValue, fromUnit, i), precision));
+            }
+        }
+        bh.consume(ActivityCode.formatNumber(UnitConverter.convert(inputValue, fromUnit, TimeUnits.HOUR) / 8.0, precision));
+        bh.consume(ActivityCode.formatNumber(UnitConverter.convert(inputValue, fromUnit, TimeUnits.DAY) / 366.0, precision));
+    }
+
+    /**
+     * 同样的按键工作量，改用 NumberFormatter
+     */
+    @Benchmark
+    public void keystrokeNumberFormatter(Blackhole bh) {
+        double result = UnitConverter.convert(inputValue, fromUnit, toUnit);
+        bh.consume(formatter.format(result, precision));
+        bh.consume(formatter.format(inputValue, precision));
+        bh.consume(formatter.format(result, precision));
+        for (int i = 0; i < TimeUnits.COUNT; i++) {
+            if (i != fromUnit) {
+                bh.consume(formatter.format(UnitConverter.convert(inputValue, fromUnit, i), precision));
+            }
+        }
+        bh.consume(formatter.format(UnitConverter.convert(inputValue, fromUnit, TimeUnits.HOUR) / 8.0, precision));
+        bh.consume(formatter.format(UnitConverter.convert(inputValue, fromUnit, TimeUnits.DAY) / 366.0, precision));
+    }
+}
@@ -0,0 +1,77 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDateTime;
+import org.threeten.bp.format.DateTimeFormatter;
+
+import java.util.Locale;
+
+import xin.xldl.timecalculator.core.DateTimeRenderer;
+
+/**
+ * 日期时间显示：对应 updateTimeDisplay / formatDateTime
+ */
+@State(Scope.Thread)
+public class DateTimeBenchmark {
+
+    @Param({"true", "false"})
+    public boolean is24HourFormat;
+
+    private LocalDateTime dateTime;
+    private DateTimeFormatter fullFormatter;
+    private DateTimeRenderer fullRenderer;
+    private final StringBuilder out = new StringBuilder(32);
+
+    @Setup
+    public void setup() {
+        dateTime = LocalDateTime.of(2023, 10, 2, 14, 45, 30);
+        fullFormatter = is24HourFormat
+                ? DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA)
+                : DateTimeFormatter.ofPattern("yyyy年MM月dd日 hh:mm:ss a", Locale.ENGLISH);
+        fullRenderer = DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, is24HourFormat);
+    }
+
+    /**
+     * 原有写法：英文格式化后替换AM/PM
+     */
+    @Benchmark
+    public String formatterWithReplace() {
+        String formatted = dateTime.format(fullFormatter);
+        if (!is24HourFormat) {
+            formatted = formatted.replace("AM", "上午").replace("PM", "下午");
+        }
+        return formatted;
+    }
+
+    /**
+     * 原有写法：updateFormatters 中每次重新构建格式化器
+     */
+    @Benchmark
+    public DateTimeFormatter ofPattern() {
+        return is24HourFormat
+                ? DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA)
+                : DateTimeFormatter.ofPattern("yyyy年MM月dd日 hh:mm:ss a", Locale.ENGLISH);
+    }
+
+    /**
+     * 从全进程缓存取得渲染器
+     */
+    @Benchmark
+    public DateTimeRenderer rendererLookup() {
+        return DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, is24HourFormat);
+    }
+
+    /**
+     * 按字段写入复用缓冲区
+     */
+    @Benchmark
+    public StringBuilder rendererAppend() {
+        out.setLength(0);
+        return fullRenderer.appendTo(out, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond());
+    }
+}
@@ -0,0 +1,67 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.DecimalFormat;
+
+import xin.xldl.timecalculator.core.NumberFormatter;
+
+/**
+ * 数字格式化：对应 TimeConverterActivity.formatNumber
+ */
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    @Param({"7", "1234567.891234", "0.000001157"})
+    public double number;
+
+    @Param({"0", "1", "2"})
+    public int precision;
+
+    private final NumberFormatter formatter = new NumberFormatter();
+    private final StringBuilder out = new StringBuilder(64);
+    private DecimalFormat cachedFormat;
+
+    @Setup
+    public void setup() {
+        String[] patterns = {"#,##0", "#,##0.##", "#,##0.######"};
+        cachedFormat = new DecimalFormat(patterns[precision]);
+    }
+
+    /**
+     * 原有写法：每次调用新建 DecimalFormat
+     */
+    @Benchmark
+    public String decimalFormatPerCall() {
+        return ActivityCode.formatNumber(number, precision);
+    }
+
+    /**
+     * 对照：复用同一个 DecimalFormat
+     */
+    @Benchmark
+    public String decimalFormatCached() {
+        return cachedFormat.format(number);
+    }
+
+    /**
+     * NumberFormatter 返回字符串（只分配结果String）
+     */
+    @Benchmark
+    public String numberFormatter() {
+        return formatter.format(number, precision);
+    }
+
+    /**
+     * NumberFormatter 追加到复用的 StringBuilder（零分配）
+     */
+    @Benchmark
+    public StringBuilder numberFormatterAppend() {
+        out.setLength(0);
+        return formatter.formatTo(out, number, precision);
+    }
+}
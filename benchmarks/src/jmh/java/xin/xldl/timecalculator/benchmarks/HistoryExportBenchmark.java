@@ -0,0 +1,64 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import xin.xldl.timecalculator.core.HistoryExport;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 历史记录导出与导入：一百万条记录写入文件再逐条读回
+ */
+@State(Scope.Thread)
+public class HistoryExportBenchmark {
+
+    @Param({"0", "1"})
+    public int format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    @Param({"1000000"})
+    public int size;
+
+    private File path;
+
+    @Setup
+    public void setup() throws IOException {
+        path = File.createTempFile("history", HistoryExport.extension(format, gzip));
+    }
+
+    @TearDown
+    public void tearDown() {
+        path.delete();
+    }
+
+    @Benchmark
+    public double roundTrip() throws IOException {
+        try (FileChannel channel = FileChannel.open(path.toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             HistoryExport.Writer writer = new HistoryExport.Writer(channel, format, gzip)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(TimeUnits.WEEK, TimeUnits.DAY, 1, i + 0.5, (i + 0.5) * 7, 1_700_000_000_000L + i);
+            }
+        }
+
+        double sum = 0;
+        try (FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.READ);
+             HistoryExport.Reader reader = new HistoryExport.Reader(channel)) {
+            while (reader.next()) {
+                sum += reader.toValue();
+            }
+        }
+        return sum;
+    }
+}
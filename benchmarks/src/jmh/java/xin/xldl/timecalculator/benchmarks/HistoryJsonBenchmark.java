@@ -0,0 +1,53 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 历史记录持久化：旧版 TimeConverterActivity.saveHistory / loadHistory 的JSON实现（改为数据库之前的基线）
+ */
+@State(Scope.Thread)
+public class HistoryJsonBenchmark {
+
+    // 20 = 旧版 MAX_HISTORY
+    @Param({"20"})
+    public int size;
+
+    private List<ActivityCode.HistoryItem> historyList;
+    private String historyJson;
+
+    @Setup
+    public void setup() throws JSONException {
+        historyList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            historyList.add(new ActivityCode.HistoryItem(
+                    String.valueOf(i + 1), TimeUnits.name(TimeUnits.WEEK),
+                    String.valueOf((i + 1) * 7), TimeUnits.name(TimeUnits.DAY)));
+        }
+        historyJson = ActivityCode.saveHistory(historyList);
+    }
+
+    @Benchmark
+    public String save() throws JSONException {
+        return ActivityCode.saveHistory(historyList);
+    }
+
+    @Benchmark
+    public List<ActivityCode.HistoryItem> load() throws JSONException {
+        return ActivityCode.loadHistory(historyJson);
+    }
+
+    @Benchmark
+    public List<ActivityCode.HistoryItem> roundTrip() throws JSONException {
+        return ActivityCode.loadHistory(ActivityCode.saveHistory(historyList));
+    }
+}
@@ -0,0 +1,58 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import xin.xldl.timecalculator.core.HistorySearchIndex;
+import xin.xldl.timecalculator.core.IsoDateTime;
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
+/**
+ * 历史记录搜索：在十万条换算记录中按单位、数值前缀和日期查询，取最新的50条
+ */
+@State(Scope.Thread)
+public class HistorySearchBenchmark {
+
+    // 索引中的记录数
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"上周的纳秒换算", "1234", "123456", "7 天", "去年 ms 5"})
+    public String query;
+
+    private final long today = IsoDateTime.epochDay(2024, 5, 15);
+    private final long[] out = new long[50];
+    private HistorySearchIndex index;
+    private HistorySearchIndex.Query parsed;
+
+    @Setup
+    public void setup() {
+        NumberFormatter formatter = new NumberFormatter();
+        index = new HistorySearchIndex();
+        // 每天200条，最新的一条在今天
+        for (int i = 0; i < size; i++) {
+            int from = i % TimeUnits.COUNT;
+            int to = (i / TimeUnits.COUNT) % TimeUnits.COUNT;
+            double value = i * 1.25;
+            index.add(i + 1, i, today - (size - i) / 200, (1 << from) | (1 << to),
+                    formatter.formatFixed(value, 2, false),
+                    formatter.formatFixed(UnitConverter.convert(value, from, to), 2, false));
+        }
+        parsed = HistorySearchIndex.Query.parse(query, today);
+    }
+
+    @Benchmark
+    public int search() {
+        return index.search(parsed, out);
+    }
+
+    @Benchmark
+    public int parseAndSearch() {
+        return index.search(HistorySearchIndex.Query.parse(query, today), out);
+    }
+}
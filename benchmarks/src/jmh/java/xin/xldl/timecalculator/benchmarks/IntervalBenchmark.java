@@ -0,0 +1,86 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDateTime;
+import org.threeten.bp.ZoneOffset;
+
+import xin.xldl.timecalculator.core.IntervalMath;
+
+/**
+ * 时间间隔：对应 TimeIntervalActivity.calculateInterval
+ */
+@State(Scope.Thread)
+public class IntervalBenchmark {
+
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+
+    @Setup
+    public void setup() {
+        startDateTime = LocalDateTime.of(2023, 10, 1, 9, 30, 0);
+        endDateTime = LocalDateTime.of(2023, 10, 2, 14, 45, 30);
+    }
+
+    /**
+     * 原有写法：Duration.between 后逐项取值
+     */
+    @Benchmark
+    public void durationBetween(Blackhole bh) {
+        Duration duration = Duration.between(startDateTime, endDateTime);
+        long totalSeconds = duration.getSeconds();
+        long totalMillis = duration.toMillis();
+        if (totalSeconds < 0) {
+            duration = duration.abs();
+            totalSeconds = Math.abs(totalSeconds);
+            totalMillis = Math.abs(totalMillis);
+        }
+        bh.consume(duration.toDays());
+        bh.consume(duration.toHours() % 24);
+        bh.consume(duration.toMinutes() % 60);
+        bh.consume(totalSeconds % 60);
+        bh.consume(totalMillis % 1000);
+        bh.consume(duration.toHours());
+        bh.consume(duration.toMinutes());
+    }
+
+    /**
+     * :core 写法：纪元纳秒 + IntervalMath
+     */
+    @Benchmark
+    public void intervalMath(Blackhole bh) {
+        long start = IntervalMath.epochNanos(startDateTime.toEpochSecond(ZoneOffset.UTC), startDateTime.getNano());
+        long end = IntervalMath.epochNanos(endDateTime.toEpochSecond(ZoneOffset.UTC), endDateTime.getNano());
+        long duration = IntervalMath.abs(IntervalMath.between(start, end));
+        bh.consume(IntervalMath.totalDays(duration));
+        bh.consume(IntervalMath.hoursPart(duration));
+        bh.consume(IntervalMath.minutesPart(duration));
+        bh.consume(IntervalMath.secondsPart(duration));
+        bh.consume(IntervalMath.millisPart(duration));
+        bh.consume(IntervalMath.totalHours(duration));
+        bh.consume(IntervalMath.totalMinutes(duration));
+    }
+
+    /**
+     * 结果文本：calculateInterval 中的两次 String.format
+     */
+    @Benchmark
+    public void resultText(Blackhole bh) {
+        bh.consume(String.format("时间间隔：%d天 %d小时 %d分钟", 1L, 5L, 15L));
+        bh.consume(String.format(
+                "详细结果：\n" +
+                        "• 总天数：%d天\n" +
+                        "• 总小时数：%d小时\n" +
+                        "• 总分钟数：%d分钟\n" +
+                        "• 总秒数：%d秒\n" +
+                        "• 总毫秒数：%d毫秒\n\n" +
+                        "开始时间：%s\n" +
+                        "结束时间：%s",
+                1L, 29L, 1755L, 105330L, 105330000L,
+                "2023年10月01日 09:30:00", "2023年10月02日 14:45:30"));
+    }
+}
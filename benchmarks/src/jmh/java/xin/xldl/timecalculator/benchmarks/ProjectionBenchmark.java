@@ -0,0 +1,56 @@
+package xin.xldl.timecalculator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.threeten.bp.LocalDateTime;
+import org.threeten.bp.ZoneOffset;
+
+import xin.xldl.timecalculator.core.PointMath;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 时间点推算：对应 TimePointActivity.calculateResult
+ */
+@State(Scope.Thread)
+public class ProjectionBenchmark {
+
+    // 原有的以秒为基准的单位表（秒、分钟、小时、天、周、月、年）
+    private static final double[] UNIT_MULTIPLIERS = {
+            1, 60, 3600, 86400, 604800, 2592000, 31536000
+    };
+
+    @Param({"2", "1.5"})
+    public double durationValue;
+
+    @Param({"2", "6"})
+    public int unitIndex;
+
+    private LocalDateTime baseDateTime;
+
+    @Setup
+    public void setup() {
+        baseDateTime = LocalDateTime.of(2023, 10, 1, 9, 0, 0);
+    }
+
+    /**
+     * 原有写法：double秒数截断后 plusSeconds
+     */
+    @Benchmark
+    public LocalDateTime plusSeconds() {
+        double totalSeconds = durationValue * UNIT_MULTIPLIERS[unitIndex];
+        return baseDateTime.plusSeconds((long) totalSeconds);
+    }
+
+    /**
+     * :core 写法：PointMath 计算纪元秒后构造结果
+     */
+    @Benchmark
+    public LocalDateTime pointMath() {
+        long epochSecond = PointMath.projectSeconds(
+                baseDateTime.toEpochSecond(ZoneOffset.UTC), durationValue, TimeUnits.SECOND + unitIndex, true);
+        return LocalDateTime.ofEpochSecond(epochSecond, baseDateTime.getNano(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,81 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.PrintStream;
+
+import xin.xldl.timecalculator.core.IntervalMath;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 时间间隔分解：每行“开始,结束”，输出“天,小时,分钟,秒,毫秒”
+ *
+ * 与 TimeIntervalActivity.calculateInterval 的分解相同；结束早于开始时各项均为负。
+ * 处理结束后在标准错误输出间隔的统计（最短、最长、平均），统计只保存几个累加值。
+ */
+final class BreakdownCommand extends RangeCommand {
+
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    // 总和分为整秒和秒内纳秒两部分累加，避免溢出
+    private long sumSeconds;
+    private long sumNanos;
+
+    BreakdownCommand(int startColumn, int endColumn) {
+        super(startColumn, endColumn, 0, false);
+    }
+
+    @Override
+    String header() {
+        return "天,小时,分钟,秒,毫秒";
+    }
+
+    @Override
+    void process(byte[] line, int start, int end, StringBuilder out) {
+        long duration = duration(line, start, end);
+        boolean negative = duration < 0;
+        long abs;
+        try {
+            abs = IntervalMath.abs(duration);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("时间间隔超出范围");
+        }
+        appendPart(out, IntervalMath.totalDays(abs), negative).append(',');
+        appendPart(out, IntervalMath.hoursPart(abs), negative).append(',');
+        appendPart(out, IntervalMath.minutesPart(abs), negative).append(',');
+        appendPart(out, IntervalMath.secondsPart(abs), negative).append(',');
+        appendPart(out, IntervalMath.millisPart(abs), negative);
+
+        count++;
+        min = Math.min(min, duration);
+        max = Math.max(max, duration);
+        sumSeconds += duration / TimeUnits.NANOS_PER_SECOND;
+        sumNanos += duration % TimeUnits.NANOS_PER_SECOND;
+    }
+
+    @Override
+    void merge(LineCommand other) {
+        BreakdownCommand region = (BreakdownCommand) other;
+        count += region.count;
+        min = Math.min(min, region.min);
+        max = Math.max(max, region.max);
+        sumSeconds += region.sumSeconds;
+        sumNanos += region.sumNanos;
+    }
+
+    @Override
+    void finish(PrintStream stderr) {
+        if (count == 0) {
+            return;
+        }
+        double mean = (sumSeconds + (double) sumNanos / TimeUnits.NANOS_PER_SECOND) / count;
+        StringBuilder text = new StringBuilder("共 ").append(count).append(" 个间隔，最短 ");
+        formatter.appendFixed(text, (double) min / TimeUnits.NANOS_PER_SECOND, 3, true).append(" 秒，最长 ");
+        formatter.appendFixed(text, (double) max / TimeUnits.NANOS_PER_SECOND, 3, true).append(" 秒，平均 ");
+        formatter.appendFixed(text, mean, 3, true).append(" 秒");
+        stderr.println(text);
+    }
+
+    private static StringBuilder appendPart(StringBuilder out, long value, boolean negative) {
+        return out.append(negative && value != 0 ? -value : value);
+    }
+}
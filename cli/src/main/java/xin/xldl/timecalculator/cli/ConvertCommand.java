@@ -0,0 +1,32 @@
+package xin.xldl.timecalculator.cli;
+
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
+/**
+ * 单位换算：每行一个数值，输出换算到目标单位后的结果
+ *
+ * 与 TimeConverterActivity 的主结果相同。
+ */
+final class ConvertCommand extends LineCommand {
+
+    private final int fromUnit;
+    private final int toUnit;
+
+    ConvertCommand(int fromUnit, int toUnit, int precision, boolean grouping) {
+        super(precision, grouping);
+        this.fromUnit = fromUnit;
+        this.toUnit = toUnit;
+    }
+
+    @Override
+    String header() {
+        return TimeUnits.name(toUnit);
+    }
+
+    @Override
+    void process(byte[] line, int start, int end, StringBuilder out) {
+        double value = parseNumber(line, start, end);
+        appendNumber(out, UnitConverter.convert(value, fromUnit, toUnit));
+    }
+}
@@ -0,0 +1,30 @@
+package xin.xldl.timecalculator.cli;
+
+import xin.xldl.timecalculator.core.TimeUnits;
+import xin.xldl.timecalculator.core.UnitConverter;
+
+/**
+ * 时间间隔：每行“开始,结束”，输出两者之差在指定单位下的总量
+ *
+ * 与 TimeIntervalActivity 详细结果中的总天数、总小时数等相同，按整数向零截断；
+ * 结束早于开始时结果为负。
+ */
+final class IntervalCommand extends RangeCommand {
+
+    private final int unit;
+
+    IntervalCommand(int unit, int startColumn, int endColumn, boolean grouping) {
+        super(startColumn, endColumn, 0, grouping);
+        this.unit = unit;
+    }
+
+    @Override
+    String header() {
+        return TimeUnits.name(unit);
+    }
+
+    @Override
+    void process(byte[] line, int start, int end, StringBuilder out) {
+        appendLong(out, UnitConverter.fromNanos(duration(line, start, end), unit));
+    }
+}
@@ -0,0 +1,111 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.PrintStream;
+
+import xin.xldl.timecalculator.core.NumberFormatter;
+
+/**
+ * 逐行处理输入的命令
+ *
+ * 每个输入行产生一个输出行。实例只在一个线程中使用，可以复用内部的解析器和格式化器。
+ */
+abstract class LineCommand {
+
+    final NumberFormatter formatter = new NumberFormatter();
+    final int fractionDigits;
+    final boolean grouping;
+
+    LineCommand(int precision, boolean grouping) {
+        this.fractionDigits = NumberFormatter.fractionDigits(precision);
+        this.grouping = grouping;
+    }
+
+    /**
+     * 输入带表头时，输出中对应的表头
+     */
+    abstract String header();
+
+    /**
+     * 处理 [start, end) 中的一行，结果追加到 out
+     *
+     * @throws IllegalArgumentException 输入无效，消息说明原因
+     */
+    abstract void process(byte[] line, int start, int end, StringBuilder out);
+
+    /**
+     * 并行处理时，把另一个实例在其区域中累计的状态合并进来（按区域顺序调用）
+     */
+    void merge(LineCommand other) {
+    }
+
+    /**
+     * 所有输入处理完毕后调用，可输出汇总信息
+     */
+    void finish(PrintStream stderr) {
+    }
+
+    /**
+     * 按命令的精度追加数值
+     */
+    final void appendNumber(StringBuilder out, double value) {
+        formatter.appendFixed(out, value, fractionDigits, grouping);
+    }
+
+    /**
+     * 追加整数，按命令设置决定是否使用千位分隔符
+     */
+    final void appendLong(StringBuilder out, long value) {
+        if (!grouping) {
+            out.append(value);
+            return;
+        }
+        int start = out.length();
+        out.append(value);
+        int firstDigit = value < 0 ? start + 1 : start;
+        for (int i = out.length() - 3; i > firstDigit; i -= 3) {
+            out.insert(i, ',');
+        }
+    }
+
+    /**
+     * 查找第一个逗号或制表符，没有时返回 -1
+     */
+    static int separator(byte[] line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == ',' || line[i] == '\t') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int trimStart(byte[] line, int start, int end) {
+        while (start < end && line[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    static int trimEnd(byte[] line, int start, int end) {
+        while (end > start && line[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 解析有限的数值
+     */
+    static double parseNumber(byte[] line, int start, int end) {
+        double value;
+        try {
+            value = Numbers.parseDouble(line, start, end);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的数值");
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("无效的数值");
+        }
+        return value;
+    }
+}
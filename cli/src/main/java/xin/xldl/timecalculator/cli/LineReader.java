@@ -0,0 +1,101 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按行读取字节流（标准输入等无法映射的输入）
+ *
+ * 行内容直接留在内部缓冲区中，不为每行创建对象。行尾的 \n 和 \r\n 都会去掉，
+ * 超过缓冲区的长行会自动扩容。
+ */
+final class LineReader implements LineSource {
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    // 已确认不含换行符的位置，扩充数据后从这里继续查找
+    private int scan;
+    private boolean eof;
+
+    private int lineStart;
+    private int lineEnd;
+
+    LineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (true) {
+            for (int i = scan; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    setLine(position, i);
+                    position = i + 1;
+                    scan = position;
+                    return true;
+                }
+            }
+            scan = limit;
+
+            if (eof) {
+                if (position < limit) {
+                    setLine(position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    @Override
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    @Override
+    public int start() {
+        return lineStart;
+    }
+
+    @Override
+    public int end() {
+        return lineEnd;
+    }
+
+    private void setLine(int start, int end) {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    /**
+     * 把未处理的数据移到缓冲区开头，再从输入流读取
+     */
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            scan -= position;
+            position = 0;
+            limit = remaining;
+        }
+        if (limit == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.IOException;
+
+/**
+ * 逐行读取的输入
+ *
+ * 当前行位于 {@link #buffer()} 的 [{@link #start()}, {@link #end()}) 中，不含换行符，
+ * 调用 {@link #next()} 后失效。
+ */
+interface LineSource {
+
+    /**
+     * 读取下一行
+     *
+     * @return 没有更多行时返回 false
+     */
+    boolean next() throws IOException;
+
+    byte[] buffer();
+
+    int start();
+
+    int end();
+}
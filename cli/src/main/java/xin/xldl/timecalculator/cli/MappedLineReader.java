@@ -0,0 +1,133 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 按行读取内存映射的文件
+ *
+ * 文件按固定大小的窗口依次映射，数据直接由页缓存提供，不经过额外的读缓冲；
+ * 任意大小的文件只占用一个窗口的地址空间。每行从映射中批量复制到一个可复用的行缓冲区，
+ * 不为每行或每个字段创建对象。
+ *
+ * 一行比窗口长时窗口逐次加倍，最大为 {@link #MAX_WINDOW_SIZE}，超过后报错。
+ *
+ * 也可以只读取文件的一个区域：区域内开始的行都属于该区域（最后一行可以越过区域末尾），
+ * 因此相邻区域的读取结果首尾相接，不重不漏。
+ */
+final class MappedLineReader implements LineSource {
+
+    static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    // 单行长度的上限，顺序和并行处理相同
+    static final int MAX_WINDOW_SIZE = DEFAULT_WINDOW_SIZE;
+
+    private final FileChannel channel;
+    private final long size;
+    private int windowSize;
+    // 起始位置不小于它的行不再读取
+    private final long regionEnd;
+
+    private MappedByteBuffer window;
+    // 当前窗口在文件中的起始位置
+    private long windowStart;
+    // 下一行在窗口中的起始位置
+    private int position;
+
+    private byte[] line = new byte[256];
+    private int lineEnd;
+
+    MappedLineReader(FileChannel channel, int windowSize) throws IOException {
+        this(channel, 0, channel.size(), windowSize);
+    }
+
+    /**
+     * 读取 [regionStart, regionEnd) 区域内开始的行
+     */
+    MappedLineReader(FileChannel channel, long regionStart, long regionEnd, int windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.regionEnd = Math.min(regionEnd, size);
+        if (regionStart > 0 && regionStart < this.regionEnd) {
+            // 从前一个字节开始，跳过上一区域的最后一行（前一个字节是换行符时跳过的是空行）
+            map(regionStart - 1);
+            next();
+        } else {
+            map(Math.min(regionStart, size));
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (windowStart + position >= regionEnd) {
+            return false;
+        }
+        while (true) {
+            int limit = window.limit();
+            for (int i = position; i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    copyLine(position, i);
+                    position = i + 1;
+                    return true;
+                }
+            }
+
+            long lineOffset = windowStart + position;
+            if (windowStart + limit >= size) {
+                // 文件末尾没有换行符的最后一行
+                if (position < limit) {
+                    copyLine(position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            if (position == 0) {
+                // 整个窗口放不下这一行，加大窗口
+                if (windowSize >= MAX_WINDOW_SIZE) {
+                    throw new IOException("行长度超过映射窗口: 偏移 " + lineOffset);
+                }
+                windowSize = (int) Math.min(2L * windowSize, MAX_WINDOW_SIZE);
+            }
+            // 当前行跨越窗口边界，从行首重新映射
+            map(lineOffset);
+        }
+    }
+
+    @Override
+    public byte[] buffer() {
+        return line;
+    }
+
+    @Override
+    public int start() {
+        return 0;
+    }
+
+    @Override
+    public int end() {
+        return lineEnd;
+    }
+
+    private void map(long offset) throws IOException {
+        long length = Math.min(windowSize, size - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowStart = offset;
+        position = 0;
+    }
+
+    private void copyLine(int start, int end) {
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        int length = end - start;
+        if (length > line.length) {
+            line = new byte[Math.max(length, line.length * 2)];
+        }
+        window.position(start);
+        window.get(line, 0, length);
+        lineEnd = length;
+    }
+}
@@ -0,0 +1,75 @@
+package xin.xldl.timecalculator.cli;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从ASCII字节中解析数值
+ */
+final class Numbers {
+
+    // double可精确表示的最大整数
+    private static final long MAX_EXACT = 1L << 53;
+
+    // 可精确表示的10的幂
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Numbers() {
+    }
+
+    /**
+     * 解析 [start, end) 中的十进制数，结果与 Double.parseDouble 相同
+     *
+     * 常见的短小数（有效数字不超过2^53、小数不超过22位）直接由两个精确的double相除得到，
+     * 只舍入一次；其余情况（指数、超长数字等）交给 Double.parseDouble。
+     */
+    static double parseDouble(byte[] bytes, int start, int end) {
+        // 去掉首尾空白
+        while (start < end && bytes[start] <= ' ') {
+            start++;
+        }
+        while (end > start && bytes[end - 1] <= ' ') {
+            end--;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            int b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+                if (mantissa >= MAX_EXACT) {
+                    return parseSlow(bytes, start, end);
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return parseSlow(bytes, start, end);
+            }
+        }
+        if (digits == 0 || fractionDigits > 22) {
+            return parseSlow(bytes, start, end);
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POW10[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(byte[] bytes, int start, int end) {
+        return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+}
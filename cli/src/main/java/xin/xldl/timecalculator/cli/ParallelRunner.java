@@ -0,0 +1,130 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * 按文件区域并行处理
+ *
+ * 文件切分为固定大小的区域，每个区域作为一个任务提交到 ForkJoinPool，在自己的命令实例中
+ * 逐行处理，结果写入内存缓冲区。主线程按区域顺序取回结果写出，输出顺序与顺序处理完全相同；
+ * 同时进行的区域数有上限，内存占用与文件大小无关。
+ */
+final class ParallelRunner {
+
+    static final int REGION_SIZE = 2 * 1024 * 1024;
+
+    // 初始窗口比区域略大，遇到更长的行时读取器会加大窗口，单行长度上限与顺序处理相同
+    private static final int WINDOW_SIZE = 2 * REGION_SIZE;
+
+    // 每个线程最多领先的区域数
+    private static final int REGIONS_PER_THREAD = 2;
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final Supplier<LineCommand> commands;
+
+    // 写出后的输出缓冲区留给后面的区域复用，避免反复分配大数组
+    private final ConcurrentLinkedQueue<Bytes> spareBuffers = new ConcurrentLinkedQueue<>();
+
+    ParallelRunner(ForkJoinPool pool, int threads, Supplier<LineCommand> commands) {
+        this.pool = pool;
+        this.maxInFlight = threads * REGIONS_PER_THREAD;
+        this.commands = commands;
+    }
+
+    /**
+     * 处理一个文件，结果按顺序写入 out，各区域的命令状态合并到 command
+     */
+    void run(LineCommand command, FileChannel channel, String name, boolean header,
+             Utf8Output out, TimeCalc.ErrorPrinter errors) throws IOException {
+        long size = channel.size();
+        ArrayDeque<ForkJoinTask<Region>> inFlight = new ArrayDeque<>();
+        long lineOffset = 0;
+
+        for (long start = 0; start < size || !inFlight.isEmpty(); ) {
+            while (start < size && inFlight.size() < maxInFlight) {
+                long regionStart = start;
+                long regionEnd = Math.min(size, start + REGION_SIZE);
+                boolean firstRegion = regionStart == 0;
+                inFlight.add(pool.submit(() -> process(channel, regionStart, regionEnd, header && firstRegion)));
+                start = regionEnd;
+            }
+
+            Region region = join(inFlight.poll());
+            out.write(region.output.buffer(), 0, region.output.size());
+            for (int i = 0; i < region.errorLines.size(); i++) {
+                errors.print(name, lineOffset + region.errorLines.get(i), region.errorMessages.get(i));
+            }
+            lineOffset += region.lines;
+            command.merge(region.command);
+            region.output.reset();
+            spareBuffers.add(region.output);
+        }
+    }
+
+    private Region process(FileChannel channel, long start, long end, boolean header) {
+        Bytes buffer = spareBuffers.poll();
+        Region region = new Region(commands.get(), buffer != null ? buffer : new Bytes());
+        try {
+            MappedLineReader reader = new MappedLineReader(channel, start, end, WINDOW_SIZE);
+            Utf8Output out = new Utf8Output(region.output, 8 * 1024);
+            region.lines = TimeCalc.process(region.command, reader, header, out, region::addError);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return region;
+    }
+
+    private static Region join(ForkJoinTask<Region> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 一个区域的处理结果
+     */
+    private static final class Region {
+        final LineCommand command;
+        final Bytes output;
+        final List<Long> errorLines = new ArrayList<>();
+        final List<String> errorMessages = new ArrayList<>();
+        long lines;
+
+        Region(LineCommand command, Bytes output) {
+            this.command = command;
+            this.output = output;
+        }
+
+        void addError(long lineNumber, String message) {
+            errorLines.add(lineNumber);
+            errorMessages.add(message);
+        }
+    }
+
+    /**
+     * 可直接访问内部数组的字节缓冲区，避免写出时再复制一次
+     */
+    private static final class Bytes extends ByteArrayOutputStream {
+        Bytes() {
+            super(REGION_SIZE);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package xin.xldl.timecalculator.cli;
+
+import xin.xldl.timecalculator.core.IsoDateTime;
+import xin.xldl.timecalculator.core.PointMath;
+
+/**
+ * 时间推算：每行“基准时间,时长”，输出增加（或减少）时长后的时间点
+ *
+ * 与 TimePointActivity 相同，时长按整秒计算，基准时间的秒内纳秒保持不变。
+ */
+final class ProjectCommand extends LineCommand {
+
+    // LocalDateTime 可表示的范围（-999999999-01-01T00:00:00 ~ +999999999-12-31T23:59:59）
+    private static final long MIN_EPOCH_SECOND = -31_557_014_167_219_200L;
+    private static final long MAX_EPOCH_SECOND = 31_556_889_864_403_199L;
+
+    private final int unit;
+    private final boolean add;
+    private final IsoDateTime parser = new IsoDateTime();
+
+    ProjectCommand(int unit, boolean add) {
+        super(0, false);
+        this.unit = unit;
+        this.add = add;
+    }
+
+    @Override
+    String header() {
+        return "时间点";
+    }
+
+    @Override
+    void process(byte[] line, int start, int end, StringBuilder out) {
+        int separator = separator(line, start, end);
+        if (separator < 0) {
+            throw new IllegalArgumentException("需要“基准时间,时长”两个字段");
+        }
+        int baseStart = trimStart(line, start, separator);
+        int baseEnd = trimEnd(line, baseStart, separator);
+        if (!parser.parse(line, baseStart, baseEnd)) {
+            throw new IllegalArgumentException("无效的日期时间");
+        }
+        double amount = parseNumber(line, separator + 1, end);
+
+        long epochSecond;
+        try {
+            epochSecond = PointMath.projectSeconds(parser.epochSecond(), amount, unit, add);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("结果超出范围");
+        }
+        if (epochSecond < MIN_EPOCH_SECOND || epochSecond > MAX_EPOCH_SECOND) {
+            throw new IllegalArgumentException("结果超出范围");
+        }
+        IsoDateTime.appendTo(out, epochSecond, parser.nano());
+    }
+}
@@ -0,0 +1,88 @@
+package xin.xldl.timecalculator.cli;
+
+import xin.xldl.timecalculator.core.IntervalMath;
+import xin.xldl.timecalculator.core.IsoDateTime;
+
+/**
+ * 每行包含开始和结束时间的命令
+ *
+ * 字段以逗号或制表符分隔，可以带双引号；开始和结束所在的列可以指定，其余列忽略。
+ */
+abstract class RangeCommand extends LineCommand {
+
+    private final int startColumn;
+    private final int endColumn;
+    private final IsoDateTime parser = new IsoDateTime();
+
+    // 最近一次 findField 找到的字段
+    private int fieldStart;
+    private int fieldEnd;
+
+    /**
+     * @param startColumn 开始时间所在的列（从0开始）
+     * @param endColumn   结束时间所在的列（从0开始）
+     */
+    RangeCommand(int startColumn, int endColumn, int precision, boolean grouping) {
+        super(precision, grouping);
+        this.startColumn = startColumn;
+        this.endColumn = endColumn;
+    }
+
+    /**
+     * 解析一行中的开始和结束时间，返回两者之差（纳秒，结束早于开始时为负）
+     */
+    final long duration(byte[] line, int start, int end) {
+        if (!findField(line, start, end, startColumn)) {
+            throw new IllegalArgumentException("缺少开始时间");
+        }
+        long startNanos = parseNanos(line, fieldStart, fieldEnd);
+        if (!findField(line, start, end, endColumn)) {
+            throw new IllegalArgumentException("缺少结束时间");
+        }
+        long endNanos = parseNanos(line, fieldStart, fieldEnd);
+        try {
+            return IntervalMath.between(startNanos, endNanos);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("时间间隔超出范围");
+        }
+    }
+
+    /**
+     * 定位第 column 列，去掉空白和引号
+     *
+     * @return 行中没有这一列时返回 false
+     */
+    private boolean findField(byte[] line, int start, int end, int column) {
+        int fieldFrom = start;
+        for (int i = 0; i < column; i++) {
+            int separator = separator(line, fieldFrom, end);
+            if (separator < 0) {
+                return false;
+            }
+            fieldFrom = separator + 1;
+        }
+        int separator = separator(line, fieldFrom, end);
+        int fieldTo = separator < 0 ? end : separator;
+
+        fieldFrom = trimStart(line, fieldFrom, fieldTo);
+        fieldTo = trimEnd(line, fieldFrom, fieldTo);
+        if (fieldTo - fieldFrom >= 2 && line[fieldFrom] == '"' && line[fieldTo - 1] == '"') {
+            fieldFrom++;
+            fieldTo--;
+        }
+        fieldStart = fieldFrom;
+        fieldEnd = fieldTo;
+        return true;
+    }
+
+    private long parseNanos(byte[] line, int start, int end) {
+        if (!parser.parse(line, start, end)) {
+            throw new IllegalArgumentException("无效的日期时间");
+        }
+        try {
+            return IntervalMath.epochNanos(parser.epochSecond(), parser.nano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("日期时间超出范围");
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package xin.xldl.timecalculator.cli;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import xin.xldl.timecalculator.core.NumberFormatter;
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 时间计算器命令行
+ *
+ * <pre>
+ * timecalc convert &lt;从单位&gt; &lt;到单位&gt; [选项] [文件...]   每行一个数值
+ * timecalc interval [--unit 单位] [选项] [文件...]         每行“开始,结束”，输出总量
+ * timecalc breakdown [选项] [文件...]                    每行“开始,结束”，输出天/小时/分钟/秒/毫秒
+ * timecalc project &lt;单位&gt; [--subtract] [文件...]     每行“基准时间,时长”
+ * </pre>
+ * 没有文件或文件为“-”时读取标准输入，文件通过内存映射读取，指定 --threads 时按区域并行处理。
+ * 每个输入行输出一行结果，空行原样输出；无效的行输出“错误”，原因写到标准错误。
+ * 结果写到标准输出或 --output 指定的文件。
+ */
+public final class TimeCalc {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_INVALID_LINES = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String ERROR_TEXT = "错误";
+
+    private static final String USAGE =
+            "用法：\n"
+                    + "  timecalc convert <从单位> <到单位> [--precision low|medium|high] [--grouping] [通用选项] [文件...]\n"
+                    + "  timecalc interval [--unit 单位] [--columns 开始列,结束列] [--grouping] [通用选项] [文件...]\n"
+                    + "  timecalc breakdown [--columns 开始列,结束列] [通用选项] [文件...]\n"
+                    + "  timecalc project <单位> [--subtract] [通用选项] [文件...]\n"
+                    + "通用选项：--header（第一行为表头） --output 文件 --threads 线程数（文件输入并行处理）\n"
+                    + "列号从1开始，默认为1,2\n"
+                    + "单位：" + String.join("、", TimeUnits.names()) + "，或 ns、us、ms、s、min、h、d、w、mo、y\n"
+                    + "日期时间：yyyy-MM-dd[THH:mm[:ss[.SSS]]]";
+
+    private TimeCalc() {
+    }
+
+    public static void main(String[] args) {
+        int status = run(args, System.in, System.out, System.err);
+        System.exit(status);
+    }
+
+    /**
+     * 执行命令
+     *
+     * @return 退出码：0=全部成功，1=有无效的输入行，2=参数错误或读写失败
+     */
+    public static int run(String[] args, InputStream stdin, OutputStream stdout, PrintStream stderr) {
+        Options options = new Options();
+        Supplier<LineCommand> commands;
+        try {
+            commands = parseArguments(args, options);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.files.isEmpty()) {
+            options.files.add("-");
+        }
+
+        LineCommand command = commands.get();
+        ErrorPrinter errors = new ErrorPrinter(stderr);
+        ForkJoinPool pool = options.threads > 1 ? new ForkJoinPool(options.threads) : null;
+        try (OutputStream target = options.output == null ? null : new FileOutputStream(options.output)) {
+            Utf8Output out = new Utf8Output(target == null ? stdout : target, BUFFER_SIZE);
+            try {
+                if (options.header) {
+                    // 多个输入只输出一次表头，各输入的第一行都作为表头跳过
+                    out.append(command.header()).newLine();
+                }
+                for (String file : options.files) {
+                    if (file.equals("-")) {
+                        // 标准输入无法按区域切分，始终顺序处理
+                        process(command, new LineReader(stdin, BUFFER_SIZE), options.header, out,
+                                (line, message) -> errors.print("-", line, message));
+                        continue;
+                    }
+                    try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+                        if (pool != null) {
+                            new ParallelRunner(pool, options.threads, commands)
+                                    .run(command, channel, file, options.header, out, errors);
+                        } else {
+                            LineSource source = new MappedLineReader(channel, MappedLineReader.DEFAULT_WINDOW_SIZE);
+                            process(command, source, options.header, out,
+                                    (line, message) -> errors.print(file, line, message));
+                        }
+                    }
+                }
+            } finally {
+                // 出错时也写出已处理的结果
+                out.flush();
+            }
+        } catch (IOException e) {
+            stderr.println("读写失败: " + e.getMessage());
+            return EXIT_USAGE;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        command.finish(stderr);
+        return errors.count > 0 ? EXIT_INVALID_LINES : EXIT_OK;
+    }
+
+    /**
+     * 逐行处理一个输入
+     *
+     * @param header 第一行为表头时跳过该行（输出的表头由调用方写出）
+     * @return 读取的行数
+     */
+    static long process(LineCommand command, LineSource reader, boolean header,
+                        Utf8Output out, LineErrors errors) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        long lineNumber = 0;
+
+        if (header && reader.next()) {
+            lineNumber++;
+        }
+        while (reader.next()) {
+            lineNumber++;
+            int start = reader.start();
+            int end = reader.end();
+            line.setLength(0);
+            if (LineCommand.trimStart(reader.buffer(), start, end) < end) {
+                try {
+                    command.process(reader.buffer(), start, end, line);
+                } catch (IllegalArgumentException e) {
+                    line.setLength(0);
+                    line.append(ERROR_TEXT);
+                    errors.report(lineNumber, e.getMessage());
+                }
+            }
+            out.append(line).newLine();
+        }
+        return lineNumber;
+    }
+
+    /**
+     * 解析参数，返回创建命令实例的工厂（并行处理时每个任务使用自己的实例）
+     */
+    private static Supplier<LineCommand> parseArguments(String[] args, Options options) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("缺少命令");
+        }
+
+        List<String> positional = new ArrayList<>();
+        List<String> files = options.files;
+        int precision = NumberFormatter.PRECISION_MEDIUM;
+        boolean grouping = false;
+        boolean subtract = false;
+        String unit = null;
+        int startColumn = 0;
+        int endColumn = 1;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--header":
+                    options.header = true;
+                    break;
+                case "--output":
+                    options.output = value(args, ++i, arg);
+                    break;
+                case "--threads":
+                    options.threads = parseThreads(value(args, ++i, arg));
+                    break;
+                case "--columns":
+                    String columns = value(args, ++i, arg);
+                    int comma = columns.indexOf(',');
+                    if (comma < 0) {
+                        throw new IllegalArgumentException("无效的列号: " + columns);
+                    }
+                    startColumn = parseColumn(columns.substring(0, comma));
+                    endColumn = parseColumn(columns.substring(comma + 1));
+                    break;
+                case "--precision":
+                    precision = parsePrecision(value(args, ++i, arg));
+                    break;
+                case "--grouping":
+                    grouping = true;
+                    break;
+                case "--subtract":
+                    subtract = true;
+                    break;
+                case "--unit":
+                    unit = value(args, ++i, arg);
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("未知的选项: " + arg);
+                    }
+                    positional.add(arg);
+            }
+        }
+
+        int fractionPrecision = precision;
+        boolean useGrouping = grouping;
+        int fromColumn = startColumn;
+        int toColumn = endColumn;
+        switch (args[0]) {
+            case "convert": {
+                if (positional.size() < 2) {
+                    throw new IllegalArgumentException("convert 需要从单位和到单位");
+                }
+                int fromUnit = Units.parse(positional.get(0));
+                int toUnit = Units.parse(positional.get(1));
+                files.addAll(positional.subList(2, positional.size()));
+                return () -> new ConvertCommand(fromUnit, toUnit, fractionPrecision, useGrouping);
+            }
+            case "interval": {
+                int totalUnit = unit == null ? TimeUnits.SECOND : Units.parse(unit);
+                files.addAll(positional);
+                return () -> new IntervalCommand(totalUnit, fromColumn, toColumn, useGrouping);
+            }
+            case "breakdown":
+                files.addAll(positional);
+                return () -> new BreakdownCommand(fromColumn, toColumn);
+            case "project": {
+                if (positional.isEmpty()) {
+                    throw new IllegalArgumentException("project 需要时长单位");
+                }
+                int amountUnit = Units.parse(positional.get(0));
+                boolean add = !subtract;
+                files.addAll(positional.subList(1, positional.size()));
+                return () -> new ProjectCommand(amountUnit, add);
+            }
+            default:
+                throw new IllegalArgumentException("未知的命令: " + args[0]);
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " 缺少参数");
+        }
+        return args[index];
+    }
+
+    private static int parseThreads(String text) {
+        try {
+            int threads = Integer.parseInt(text.trim());
+            if (threads >= 1) {
+                return threads;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("无效的线程数: " + text);
+    }
+
+    private static int parseColumn(String text) {
+        try {
+            int column = Integer.parseInt(text.trim());
+            if (column >= 1) {
+                return column - 1;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("无效的列号: " + text);
+    }
+
+    private static int parsePrecision(String text) {
+        switch (text) {
+            case "0":
+            case "low":
+                return NumberFormatter.PRECISION_LOW;
+            case "1":
+            case "medium":
+                return NumberFormatter.PRECISION_MEDIUM;
+            case "2":
+            case "high":
+                return NumberFormatter.PRECISION_HIGH;
+            default:
+                throw new IllegalArgumentException("无效的精度: " + text);
+        }
+    }
+
+    /**
+     * 接收无效行的原因
+     */
+    interface LineErrors {
+        void report(long lineNumber, String message);
+    }
+
+    /**
+     * 把无效行的原因写到标准错误，并计数
+     */
+    static final class ErrorPrinter {
+        private final PrintStream stderr;
+        long count;
+
+        ErrorPrinter(PrintStream stderr) {
+            this.stderr = stderr;
+        }
+
+        void print(String name, long lineNumber, String message) {
+            count++;
+            stderr.println(name + ":" + lineNumber + ": " + message);
+        }
+    }
+
+    /**
+     * 与具体命令无关的选项
+     */
+    private static final class Options {
+        final List<String> files = new ArrayList<>();
+        boolean header;
+        String output;
+        int threads = 1;
+    }
+}
@@ -0,0 +1,53 @@
+package xin.xldl.timecalculator.cli;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import xin.xldl.timecalculator.core.TimeUnits;
+
+/**
+ * 命令行中的单位名称
+ *
+ * 接受界面中的中文名称和常用英文缩写。
+ */
+final class Units {
+
+    private static final Map<String, Integer> NAMES = new HashMap<>();
+
+    static {
+        for (int unit = 0; unit < TimeUnits.COUNT; unit++) {
+            NAMES.put(TimeUnits.name(unit), unit);
+        }
+        alias(TimeUnits.NANOSECOND, "ns", "nanos", "nanosecond", "nanoseconds");
+        alias(TimeUnits.MICROSECOND, "us", "µs", "micros", "microsecond", "microseconds");
+        alias(TimeUnits.MILLISECOND, "ms", "millis", "millisecond", "milliseconds");
+        alias(TimeUnits.SECOND, "s", "sec", "second", "seconds", "秒钟");
+        alias(TimeUnits.MINUTE, "min", "minute", "minutes", "分");
+        alias(TimeUnits.HOUR, "h", "hr", "hour", "hours", "时");
+        alias(TimeUnits.DAY, "d", "day", "days");
+        alias(TimeUnits.WEEK, "w", "wk", "week", "weeks", "星期");
+        alias(TimeUnits.MONTH, "mo", "month", "months");
+        alias(TimeUnits.YEAR, "y", "yr", "year", "years");
+    }
+
+    private Units() {
+    }
+
+    /**
+     * 解析单位名称，无法识别时抛出 IllegalArgumentException
+     */
+    static int parse(String name) {
+        Integer unit = NAMES.get(name.trim().toLowerCase(Locale.ROOT));
+        if (unit == null) {
+            throw new IllegalArgumentException("未知的时间单位: " + name);
+        }
+        return unit;
+    }
+
+    private static void alias(int unit, String... names) {
+        for (String name : names) {
+            NAMES.put(name, unit);
+        }
+    }
+}
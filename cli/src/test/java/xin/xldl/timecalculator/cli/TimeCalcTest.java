@@ -0,0 +1,226 @@
+package xin.xldl.timecalculator.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeCalcTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String stdout;
+    private String stderr;
+
+    private int run(String input, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = TimeCalc.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                out, new PrintStream(err, true, StandardCharsets.UTF_8));
+        stdout = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        stderr = new String(err.toByteArray(), StandardCharsets.UTF_8);
+        return status;
+    }
+
+    @Test
+    public void convertsEachLine() {
+        assertEquals(TimeCalc.EXIT_OK, run("1\n2.5\r\n\n-3", "convert", "周", "d"));
+        assertEquals("7\n17.5\n\n-21\n", stdout);
+
+        assertEquals(TimeCalc.EXIT_OK, run("1000000\n", "convert", "s", "ms", "--grouping"));
+        assertEquals("1,000,000,000\n", stdout);
+
+        assertEquals(TimeCalc.EXIT_OK, run("1\n", "convert", "d", "年", "--precision", "high"));
+        assertEquals("0.00274\n", stdout);
+    }
+
+    @Test
+    public void computesIntervalsAndProjections() {
+        assertEquals(TimeCalc.EXIT_OK,
+                run("2023-10-01,2023-10-02T12:59\n2023-10-02\t2023-10-01\n", "interval", "--unit", "h"));
+        assertEquals("36\n-24\n", stdout);
+
+        assertEquals(TimeCalc.EXIT_OK, run("2023-01-01,2024-01-01\n", "interval", "--unit", "ms", "--grouping"));
+        assertEquals("31,536,000,000\n", stdout);
+
+        assertEquals(TimeCalc.EXIT_OK, run("2024-02-28T23:30:00.5,1\n", "project", "天"));
+        assertEquals("2024-02-29T23:30:00.500\n", stdout);
+
+        assertEquals(TimeCalc.EXIT_OK, run("2024-03-01, 90\n", "project", "min", "--subtract"));
+        assertEquals("2024-02-29T22:30\n", stdout.replace(":00\n", "\n"));
+
+        // 超过4位的年份带 '+' 输出，并能再次作为输入
+        assertEquals(TimeCalc.EXIT_OK, run("9999-12-31T12:00,1\n", "project", "天"));
+        assertEquals("+10000-01-01T12:00:00\n", stdout);
+        assertEquals(TimeCalc.EXIT_OK, run("+10000-01-01T12:00,1\n", "project", "天", "--subtract"));
+        assertEquals("9999-12-31T12:00:00\n", stdout);
+    }
+
+    @Test
+    public void breaksDownIntervalsFromMappedFile() throws Exception {
+        File input = folder.newFile("events.csv");
+        Files.write(input.toPath(), ("id,\"end\",start\r\n"
+                + "1,\"2023-10-02T13:04:05.678\",\"2023-10-01T00:00\"\r\n"
+                + "2,2023-10-01T00:00,2023-10-01T00:00:01.5\n"
+                + "3,2023-10-01\n"
+                + "4,2023-10-01,2023-10-01").getBytes(StandardCharsets.UTF_8));
+        File output = new File(folder.getRoot(), "out.csv");
+
+        assertEquals(TimeCalc.EXIT_INVALID_LINES, run("", "breakdown", "--header", "--columns", "3,2",
+                "--output", output.getPath(), input.getPath()));
+        assertEquals("", stdout);
+        assertEquals("天,小时,分钟,秒,毫秒\n1,13,4,5,678\n0,0,0,-1,-500\n错误\n0,0,0,0,0\n",
+                new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+        assertTrue(stderr, stderr.contains(input.getPath() + ":4: "));
+        assertTrue(stderr, stderr.contains("共 3 个间隔"));
+    }
+
+    @Test
+    public void writesHeaderOncePerRun() throws Exception {
+        File first = folder.newFile("first.csv");
+        File second = folder.newFile("second.csv");
+        Files.write(first.toPath(), "秒\n60\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(second.toPath(), "秒\n120\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(TimeCalc.EXIT_OK, run("", "convert", "s", "min", "--header",
+                first.getPath(), second.getPath()));
+        assertEquals("分钟\n1\n2\n", stdout);
+
+        assertEquals(TimeCalc.EXIT_OK, run("", "convert", "s", "min", "--header", "--threads", "2",
+                first.getPath(), second.getPath()));
+        assertEquals("分钟\n1\n2\n", stdout);
+    }
+
+    @Test
+    public void mappedReaderHandlesLinesAcrossWindows() throws Exception {
+        File file = folder.newFile("lines.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 后面的行比初始窗口长，窗口需要加大
+            MappedLineReader reader = new MappedLineReader(channel, 2);
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(reader.next());
+                assertEquals(String.valueOf(i), new String(reader.buffer(), reader.start(),
+                        reader.end() - reader.start(), StandardCharsets.US_ASCII));
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void parallelOutputMatchesSequential() throws Exception {
+        // 超过两个区域，并在区域边界附近放入无效行
+        File input = folder.newFile("large.csv");
+        StringBuilder content = new StringBuilder("start,end\n");
+        Random random = new Random(3);
+        int rows = 3 * ParallelRunner.REGION_SIZE / 40;
+        for (int i = 0; i < rows; i++) {
+            if (i % 50_000 == 7) {
+                content.append("invalid\n");
+                continue;
+            }
+            content.append(String.format("2023-%02d-%02dT%02d:%02d:%02d,2024-01-01T00:00:00.%03d\n",
+                    1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24),
+                    random.nextInt(60), random.nextInt(60), random.nextInt(1000)));
+        }
+        Files.write(input.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(TimeCalc.EXIT_INVALID_LINES, run("", "breakdown", "--header", input.getPath()));
+        String sequentialOut = stdout;
+        String sequentialErr = stderr;
+        assertEquals(rows + 1, sequentialOut.split("\n").length);
+
+        assertEquals(TimeCalc.EXIT_INVALID_LINES, run("", "breakdown", "--header", "--threads", "3", input.getPath()));
+        assertEquals(sequentialOut, stdout);
+        assertEquals(sequentialErr, stderr);
+    }
+
+    @Test
+    public void parallelAcceptsLinesLongerThanRegion() throws Exception {
+        // 单行超过并行读取的初始窗口，仍与顺序处理结果相同
+        File input = folder.newFile("long.txt");
+        StringBuilder content = new StringBuilder("1\n");
+        for (int i = 0; i < 5 * ParallelRunner.REGION_SIZE / 2; i++) {
+            content.append(' ');
+        }
+        content.append("2\n3\n");
+        Files.write(input.toPath(), content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(TimeCalc.EXIT_OK, run("", "convert", "min", "s", input.getPath()));
+        assertEquals("60\n120\n180\n", stdout);
+        assertEquals(TimeCalc.EXIT_OK, run("", "convert", "min", "s", "--threads", "2", input.getPath()));
+        assertEquals("60\n120\n180\n", stdout);
+        assertEquals("", stderr);
+    }
+
+    @Test
+    public void reportsInvalidLinesAndUsage() {
+        assertEquals(TimeCalc.EXIT_INVALID_LINES, run("1\nabc\n2\n", "convert", "s", "ms"));
+        assertEquals("1000\n错误\n2000\n", stdout);
+        assertTrue(stderr, stderr.startsWith("-:2: "));
+
+        assertEquals(TimeCalc.EXIT_USAGE, run("", "convert", "s"));
+        assertEquals(TimeCalc.EXIT_USAGE, run("", "convert", "s", "光年"));
+        assertEquals(TimeCalc.EXIT_USAGE, run("", "convert", "s", "ms", "--precision", "max"));
+        assertEquals(TimeCalc.EXIT_USAGE, run("", "breakdown", "--threads", "0"));
+        assertEquals("", stdout);
+    }
+
+    @Test
+    public void numberParsingMatchesJdk() {
+        Random random = new Random(12);
+        String[] samples = {"0", "-0", "+5", "0.1", "123.456", ".5", "5.", "1e3", "9007199254740993",
+                "0.30000000000000004", "1.7976931348623157e308", " 42 "};
+        for (String sample : samples) {
+            assertParse(sample);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            long mantissa = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            String digits = Long.toString(mantissa);
+            int point = random.nextInt(digits.length() + 1);
+            assertParse(digits.substring(0, point) + "." + digits.substring(point));
+        }
+    }
+
+    @Test
+    public void readsLongLinesAcrossBufferBoundaries() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 40; j++) {
+                input.append(' ');
+            }
+            input.append(i).append('\n');
+        }
+        LineReader reader = new LineReader(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.US_ASCII)), 16);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(reader.next());
+            assertEquals(41, reader.end() - reader.start());
+            assertEquals('0' + i, reader.buffer()[reader.end() - 1]);
+        }
+        assertFalse(reader.next());
+    }
+
+    private static void assertParse(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        assertEquals(text, Double.doubleToLongBits(Double.parseDouble(text)),
+                Double.doubleToLongBits(Numbers.parseDouble(bytes, 0, bytes.length)));
+    }
+}
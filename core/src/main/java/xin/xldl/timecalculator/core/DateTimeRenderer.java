@@ -0,0 +1,253 @@
+package xin.xldl.timecalculator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日期时间渲染
+ *
+ * 全进程共享的格式缓存，按（模式, 语言, 12/24小时制）取得已编译的实例。
+ * 直接按字段写入调用方的 StringBuilder，中文环境下直接输出"上午/下午"，
+ * 不再经过英文AM/PM再替换。实例不可变，可在任意线程使用。
+ *
+ * 支持的模式字母：y 年、M 月、d 日、H 时(0-23)、h 时(1-12)、m 分、s 秒、a 上午/下午，
+ * 单引号内为原样文本，其余字符原样输出。
+ */
+public final class DateTimeRenderer {
+
+    /** 日期 */
+    public static final String DATE_PATTERN = "yyyy年MM月dd日";
+    /** 时间 */
+    public static final String TIME_PATTERN = "HH:mm:ss";
+    /** 日期和时间 */
+    public static final String FULL_PATTERN = "yyyy年MM月dd日 HH:mm:ss";
+
+    private static final ConcurrentHashMap<String, DateTimeRenderer> CACHE = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(32);
+        }
+    };
+
+    // 字段类型
+    private static final byte LITERAL = 0;
+    private static final byte YEAR = 1;
+    private static final byte MONTH = 2;
+    private static final byte DAY = 3;
+    private static final byte HOUR_OF_DAY = 4;
+    private static final byte HOUR_OF_AMPM = 5;
+    private static final byte MINUTE = 6;
+    private static final byte SECOND = 7;
+    private static final byte AMPM = 8;
+
+    private final String pattern;
+    private final byte[] types;
+    private final byte[] widths;
+    private final String[] literals;
+    private final String am;
+    private final String pm;
+
+    private DateTimeRenderer(String pattern, Locale locale) {
+        this.pattern = pattern;
+
+        boolean chinese = "zh".equals(locale.getLanguage());
+        this.am = chinese ? "上午" : "AM";
+        this.pm = chinese ? "下午" : "PM";
+
+        List<Object[]> tokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("未闭合的引号: " + pattern);
+                }
+                if (end == i + 1) {
+                    literal.append('\'');
+                } else {
+                    literal.append(pattern, i + 1, end);
+                }
+                i = end + 1;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int width = 1;
+                while (i + width < pattern.length() && pattern.charAt(i + width) == c) {
+                    width++;
+                }
+                if (literal.length() > 0) {
+                    tokens.add(new Object[]{LITERAL, (byte) 0, literal.toString()});
+                    literal.setLength(0);
+                }
+                tokens.add(new Object[]{fieldType(c, pattern), (byte) width, null});
+                i += width;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (literal.length() > 0) {
+            tokens.add(new Object[]{LITERAL, (byte) 0, literal.toString()});
+        }
+
+        int n = tokens.size();
+        types = new byte[n];
+        widths = new byte[n];
+        literals = new String[n];
+        for (int t = 0; t < n; t++) {
+            Object[] token = tokens.get(t);
+            types[t] = (Byte) token[0];
+            widths[t] = (Byte) token[1];
+            literals[t] = (String) token[2];
+        }
+    }
+
+    /**
+     * 取得缓存的渲染器
+     *
+     * @param pattern   24小时制模式，如 {@link #FULL_PATTERN}
+     * @param locale    决定上午/下午的文字
+     * @param is24Hour  false时把 H 换成 h，并在含有小时的模式末尾追加上午/下午
+     */
+    public static DateTimeRenderer of(String pattern, Locale locale, boolean is24Hour) {
+        String key = pattern + '\u0000' + locale.toLanguageTag() + (is24Hour ? "\u000024" : "\u000012");
+        DateTimeRenderer renderer = CACHE.get(key);
+        if (renderer == null) {
+            renderer = new DateTimeRenderer(is24Hour ? pattern : to12Hour(pattern), locale);
+            DateTimeRenderer existing = CACHE.putIfAbsent(key, renderer);
+            if (existing != null) {
+                renderer = existing;
+            }
+        }
+        return renderer;
+    }
+
+    /**
+     * 实际使用的模式
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * 按字段渲染并追加到 out，不分配对象
+     */
+    public StringBuilder appendTo(StringBuilder out, int year, int month, int day,
+                                  int hour, int minute, int second) {
+        for (int t = 0; t < types.length; t++) {
+            int width = widths[t];
+            switch (types[t]) {
+                case LITERAL:
+                    out.append(literals[t]);
+                    break;
+                case YEAR:
+                    appendPadded(out, year, width);
+                    break;
+                case MONTH:
+                    appendPadded(out, month, width);
+                    break;
+                case DAY:
+                    appendPadded(out, day, width);
+                    break;
+                case HOUR_OF_DAY:
+                    appendPadded(out, hour, width);
+                    break;
+                case HOUR_OF_AMPM:
+                    int hour12 = hour % 12;
+                    appendPadded(out, hour12 == 0 ? 12 : hour12, width);
+                    break;
+                case MINUTE:
+                    appendPadded(out, minute, width);
+                    break;
+                case SECOND:
+                    appendPadded(out, second, width);
+                    break;
+                case AMPM:
+                    out.append(hour < 12 ? am : pm);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 按字段渲染为字符串（使用线程内复用的缓冲区）
+     */
+    public String format(int year, int month, int day, int hour, int minute, int second) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return appendTo(buffer, year, month, day, hour, minute, second).toString();
+    }
+
+    private static void appendPadded(StringBuilder out, int value, int width) {
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+
+    private static byte fieldType(char c, String pattern) {
+        switch (c) {
+            case 'y':
+                return YEAR;
+            case 'M':
+                return MONTH;
+            case 'd':
+                return DAY;
+            case 'H':
+                return HOUR_OF_DAY;
+            case 'h':
+                return HOUR_OF_AMPM;
+            case 'm':
+                return MINUTE;
+            case 's':
+                return SECOND;
+            case 'a':
+                return AMPM;
+            default:
+                throw new IllegalArgumentException("不支持的模式字母 '" + c + "': " + pattern);
+        }
+    }
+
+    /**
+     * 24小时制模式转换为12小时制模式
+     */
+    private static String to12Hour(String pattern) {
+        StringBuilder result = new StringBuilder(pattern.length() + 2);
+        boolean quoted = false;
+        boolean hasHour = false;
+        boolean hasAmPm = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && c == 'H') {
+                c = 'h';
+                hasHour = true;
+            } else if (!quoted && c == 'h') {
+                hasHour = true;
+            } else if (!quoted && c == 'a') {
+                hasAmPm = true;
+            }
+            result.append(c);
+        }
+        if (hasHour && !hasAmPm) {
+            result.append(" a");
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package xin.xldl.timecalculator.core;
+
+/**
+ * 历史记录提交策略
+ *
+ * 每次计算出结果时只记为待提交，输入停下来（空闲超时、输入框失去焦点、复制、交换单位、离开界面）
+ * 才由调用方提交。提交时，如果上一条已提交的记录单位相同且在合并时间窗内，就覆盖上一条而不是新增，
+ * 连续修改同一组单位的数值只留下最后的结果。
+ *
+ * 时间由调用方传入，不访问时钟；非线程安全，只在主线程使用。
+ */
+public final class HistoryCommitPolicy {
+
+    /** 没有需要写入的记录 */
+    public static final int NONE = 0;
+    /** 新增一条记录 */
+    public static final int APPEND = 1;
+    /** 覆盖最新的一条记录 */
+    public static final int REPLACE = 2;
+
+    /** 输入停止多久后提交 */
+    public static final long DEFAULT_IDLE_MILLIS = 1500;
+    /** 同一组单位在这段时间内的记录会合并 */
+    public static final long DEFAULT_MERGE_WINDOW_MILLIS = 60_000;
+
+    private final long mergeWindowMillis;
+
+    // 待提交的结果
+    private boolean pending;
+    private int pendingFromUnit;
+    private int pendingToUnit;
+    private int pendingPrecision;
+    private double pendingFromValue;
+    private double pendingToValue;
+
+    // 最近一次提交的记录
+    private boolean committed;
+    private int fromUnit;
+    private int toUnit;
+    private int precision;
+    private double fromValue;
+    private double toValue;
+    private long timestamp;
+
+    private long offered;
+    private long appended;
+    private long replaced;
+
+    public HistoryCommitPolicy() {
+        this(DEFAULT_MERGE_WINDOW_MILLIS);
+    }
+
+    public HistoryCommitPolicy(long mergeWindowMillis) {
+        if (mergeWindowMillis < 0) {
+            throw new IllegalArgumentException("mergeWindowMillis: " + mergeWindowMillis);
+        }
+        this.mergeWindowMillis = mergeWindowMillis;
+    }
+
+    /**
+     * 记下最新的计算结果，替换之前未提交的结果
+     */
+    public void offer(int fromUnit, int toUnit, int precision, double fromValue, double toValue) {
+        pending = true;
+        pendingFromUnit = fromUnit;
+        pendingToUnit = toUnit;
+        pendingPrecision = precision;
+        pendingFromValue = fromValue;
+        pendingToValue = toValue;
+        offered++;
+    }
+
+    /**
+     * 丢弃未提交的结果（如输入被清空）
+     */
+    public void discard() {
+        pending = false;
+    }
+
+    public boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * 提交待提交的结果
+     *
+     * @return {@link #NONE}、{@link #APPEND} 或 {@link #REPLACE}；不为 NONE 时可通过读取方法取得要写入的记录
+     */
+    public int commit(long epochMillis) {
+        if (!pending) {
+            return NONE;
+        }
+        pending = false;
+
+        boolean samePair = committed && pendingFromUnit == fromUnit && pendingToUnit == toUnit;
+        if (samePair && pendingPrecision == precision
+                && Double.compare(pendingFromValue, fromValue) == 0) {
+            // 与上一条完全相同
+            return NONE;
+        }
+        boolean merge = samePair && epochMillis - timestamp <= mergeWindowMillis;
+
+        committed = true;
+        fromUnit = pendingFromUnit;
+        toUnit = pendingToUnit;
+        precision = pendingPrecision;
+        fromValue = pendingFromValue;
+        toValue = pendingToValue;
+        timestamp = epochMillis;
+
+        if (merge) {
+            replaced++;
+            return REPLACE;
+        }
+        appended++;
+        return APPEND;
+    }
+
+    /**
+     * 把已保存的最新一条记录当作上一次提交（打开界面时），恢复的输入与它相同时不会重复记录
+     */
+    public void restore(int fromUnit, int toUnit, int precision,
+                        double fromValue, double toValue, long epochMillis) {
+        committed = true;
+        this.fromUnit = fromUnit;
+        this.toUnit = toUnit;
+        this.precision = precision;
+        this.fromValue = fromValue;
+        this.toValue = toValue;
+        this.timestamp = epochMillis;
+    }
+
+    /**
+     * 忘记上一条已提交的记录（历史记录被清空后），之后的提交总是新增
+     */
+    public void reset() {
+        pending = false;
+        committed = false;
+    }
+
+    // ==================== 最近一次提交的记录 ====================
+
+    public int fromUnit() {
+        return fromUnit;
+    }
+
+    public int toUnit() {
+        return toUnit;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public double fromValue() {
+        return fromValue;
+    }
+
+    public double toValue() {
+        return toValue;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    // ==================== 统计 ====================
+
+    /** 收到的计算结果数 */
+    public long offered() {
+        return offered;
+    }
+
+    /** 新增的记录数 */
+    public long appended() {
+        return appended;
+    }
+
+    /** 合并到上一条的记录数 */
+    public long replaced() {
+        return replaced;
+    }
+}
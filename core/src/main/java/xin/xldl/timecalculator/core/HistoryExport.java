@@ -0,0 +1,788 @@
+package xin.xldl.timecalculator.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 换算历史记录的导出与导入
+ *
+ * 支持CSV和JSON Lines两种格式，可选gzip压缩。记录逐条编码后经固定大小的直接缓冲区写入 {@link FileChannel}，
+ * 读取时同样按块读入并逐行解析，内存占用与记录数量无关。
+ *
+ * CSV（UTF-8，带BOM以便表格软件识别中文）：
+ * <pre>
+ * created_at,from_unit,to_unit,precision,from_value,to_value
+ * 1715750400000,周,天,1,1.0,7.0
+ * </pre>
+ * JSON Lines，每行一个对象：
+ * <pre>
+ * {"created_at":1715750400000,"from_unit":"周","to_unit":"天","precision":1,"from_value":1.0,"to_value":7.0}
+ * </pre>
+ * created_at 为纪元毫秒，单位为名称（导入时也接受单位索引），数值为可精确还原的十进制表示。
+ */
+public final class HistoryExport {
+
+    public static final int CSV = 0;
+    public static final int JSON_LINES = 1;
+
+    /** 默认的通道缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "created_at,from_unit,to_unit,precision,from_value,to_value";
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private HistoryExport() {
+    }
+
+    /**
+     * 导出文件的扩展名，如 ".csv"、".jsonl.gz"
+     */
+    public static String extension(int format, boolean gzip) {
+        String extension = format == CSV ? ".csv" : ".jsonl";
+        return gzip ? extension + ".gz" : extension;
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 逐条写入记录，关闭时写出缓冲区中剩余的数据（不关闭通道）
+     */
+    public static final class Writer implements Closeable {
+
+        private final int format;
+        private final OutputStream out;
+        // 一条记录编码后的文本和字节
+        private final StringBuilder line = new StringBuilder(160);
+        private byte[] bytes = new byte[256];
+        private long count;
+
+        public Writer(FileChannel channel, int format, boolean gzip) throws IOException {
+            this(channel, format, gzip, DEFAULT_BUFFER_SIZE);
+        }
+
+        public Writer(FileChannel channel, int format, boolean gzip, int bufferSize) throws IOException {
+            if (format != CSV && format != JSON_LINES) {
+                throw new IllegalArgumentException("format: " + format);
+            }
+            this.format = format;
+            OutputStream sink = new ChannelOutput(channel, bufferSize);
+            this.out = gzip ? new GZIPOutputStream(sink, bufferSize) : sink;
+            if (format == CSV) {
+                out.write(BOM);
+                line.append(CSV_HEADER).append('\n');
+                writeLine();
+            }
+        }
+
+        public void write(int fromUnit, int toUnit, int precision,
+                          double fromValue, double toValue, long epochMillis) throws IOException {
+            line.setLength(0);
+            if (format == CSV) {
+                line.append(epochMillis)
+                        .append(',').append(TimeUnits.name(fromUnit))
+                        .append(',').append(TimeUnits.name(toUnit))
+                        .append(',').append(precision)
+                        .append(',').append(fromValue)
+                        .append(',').append(toValue);
+            } else {
+                line.append("{\"created_at\":").append(epochMillis)
+                        .append(",\"from_unit\":\"").append(TimeUnits.name(fromUnit))
+                        .append("\",\"to_unit\":\"").append(TimeUnits.name(toUnit))
+                        .append("\",\"precision\":").append(precision)
+                        .append(",\"from_value\":");
+                appendJsonNumber(line, fromValue);
+                line.append(",\"to_value\":");
+                appendJsonNumber(line, toValue);
+                line.append('}');
+            }
+            line.append('\n');
+            writeLine();
+            count++;
+        }
+
+        /**
+         * 已写入的记录数
+         */
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        // JSON没有无穷大和NaN，写成字符串
+        private static void appendJsonNumber(StringBuilder out, double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                out.append('"').append(value).append('"');
+            } else {
+                out.append(value);
+            }
+        }
+
+        private void writeLine() throws IOException {
+            int length = line.length();
+            if (bytes.length < length * 3) {
+                bytes = new byte[length * 3];
+            }
+            int n = 0;
+            for (int i = 0; i < length; i++) {
+                char c = line.charAt(i);
+                if (c < 0x80) {
+                    bytes[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[n++] = (byte) (0xC0 | (c >> 6));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    // 单位名称都在基本多文种平面内
+                    bytes[n++] = (byte) (0xE0 | (c >> 12));
+                    bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            out.write(bytes, 0, n);
+        }
+    }
+
+    /**
+     * 经直接缓冲区写入通道，关闭时只写出剩余数据
+     */
+    private static final class ChannelOutput extends OutputStream {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        ChannelOutput(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            long start = IoGuard.begin();
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            } finally {
+                IoGuard.end(IoGuard.WRITE, "history.export", start);
+            }
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 逐条读取CSV或JSON Lines记录，自动识别格式和gzip压缩
+     *
+     * 无法解析的行（包括单位或精度无效的记录）被跳过并计数。关闭时不关闭通道。
+     */
+    public static final class Reader implements Closeable {
+
+        private final InputStream in;
+        private final byte[] buffer;
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        // 解码后的字段和JSON键
+        private final StringBuilder text = new StringBuilder(32);
+        private final StringBuilder key = new StringBuilder(16);
+        private int cursor;
+
+        private long epochMillis;
+        private int fromUnit;
+        private int toUnit;
+        private int precision;
+        private double fromValue;
+        private double toValue;
+
+        private long count;
+        private long skipped;
+        private boolean firstLine = true;
+
+        public Reader(FileChannel channel) throws IOException {
+            this(channel, DEFAULT_BUFFER_SIZE);
+        }
+
+        public Reader(FileChannel channel, int bufferSize) throws IOException {
+            buffer = new byte[bufferSize];
+            // 按gzip的魔数识别压缩
+            PushbackInputStream source = new PushbackInputStream(new ChannelInput(channel, bufferSize), 2);
+            int first = source.read();
+            int second = first < 0 ? -1 : source.read();
+            if (second >= 0) {
+                source.unread(second);
+            }
+            if (first >= 0) {
+                source.unread(first);
+            }
+            in = first == 0x1F && second == 0x8B ? new GZIPInputStream(source, bufferSize) : source;
+        }
+
+        /**
+         * 读取下一条有效记录
+         *
+         * @return 没有更多记录时返回 false
+         */
+        public boolean next() throws IOException {
+            while (true) {
+                int end = findLineEnd();
+                if (end < 0) {
+                    return false;
+                }
+                int start = position;
+                position = end + 1;
+                if (end > start && buffer[end - 1] == '\r') {
+                    end--;
+                }
+                if (firstLine) {
+                    firstLine = false;
+                    if (end - start >= 3 && buffer[start] == BOM[0] && buffer[start + 1] == BOM[1]
+                            && buffer[start + 2] == BOM[2]) {
+                        start += 3;
+                    }
+                    if (startsWith(start, end, CSV_HEADER)) {
+                        continue;
+                    }
+                }
+                if (start == end) {
+                    continue;
+                }
+
+                boolean valid;
+                try {
+                    valid = buffer[start] == '{' ? parseJson(start, end) : parseCsv(start, end);
+                } catch (NumberFormatException e) {
+                    valid = false;
+                }
+                if (valid && fromUnit >= 0 && toUnit >= 0 && precision >= 0) {
+                    count++;
+                    return true;
+                }
+                skipped++;
+            }
+        }
+
+        public long epochMillis() {
+            return epochMillis;
+        }
+
+        public int fromUnit() {
+            return fromUnit;
+        }
+
+        public int toUnit() {
+            return toUnit;
+        }
+
+        public int precision() {
+            return precision;
+        }
+
+        public double fromValue() {
+            return fromValue;
+        }
+
+        public double toValue() {
+            return toValue;
+        }
+
+        /**
+         * 已读取的有效记录数
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * 跳过的无效行数
+         */
+        public long skipped() {
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * 找到当前行的换行符（最后一行没有换行符时补一个），超过缓冲区的行被跳过
+         *
+         * @return 换行符的位置，没有更多数据时返回 -1
+         */
+        private int findLineEnd() throws IOException {
+            int scan = position;
+            while (true) {
+                for (int i = scan; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        return i;
+                    }
+                }
+                if (eof) {
+                    if (position == limit) {
+                        return -1;
+                    }
+                    compact();
+                    if (limit == buffer.length) {
+                        // 没有位置补换行符，视为过长的行
+                        skipped++;
+                        position = limit;
+                        return -1;
+                    }
+                    buffer[limit] = '\n';
+                    return limit++;
+                }
+
+                // 把未读完的行移到开头后继续读取
+                if (position > 0) {
+                    compact();
+                } else if (limit == buffer.length) {
+                    skipLongLine();
+                    scan = position;
+                    continue;
+                }
+                scan = limit;
+                int n = in.read(buffer, limit, buffer.length - limit);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    limit += n;
+                }
+            }
+        }
+
+        private void compact() {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+        private void skipLongLine() throws IOException {
+            skipped++;
+            firstLine = false;
+            while (true) {
+                for (int i = 0; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        position = i + 1;
+                        return;
+                    }
+                }
+                limit = in.read(buffer, 0, buffer.length);
+                if (limit < 0) {
+                    limit = 0;
+                    eof = true;
+                    position = 0;
+                    return;
+                }
+            }
+        }
+
+        private boolean startsWith(int start, int end, String prefix) {
+            if (end - start < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buffer[start + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // ==================== CSV ====================
+
+        private boolean parseCsv(int start, int end) {
+            cursor = start;
+            if (!csvField(end)) {
+                return false;
+            }
+            epochMillis = parseLong(text);
+            if (epochMillis == Long.MIN_VALUE || !csvField(end)) {
+                return false;
+            }
+            fromUnit = unitOf(text);
+            if (!csvField(end)) {
+                return false;
+            }
+            toUnit = unitOf(text);
+            if (!csvField(end)) {
+                return false;
+            }
+            precision = precisionOf(text);
+            if (!csvField(end)) {
+                return false;
+            }
+            fromValue = Double.parseDouble(text.toString());
+            if (!csvField(end)) {
+                return false;
+            }
+            toValue = Double.parseDouble(text.toString());
+            return true;
+        }
+
+        /**
+         * 解码下一个字段到 text，去掉两端的引号
+         */
+        private boolean csvField(int end) {
+            if (cursor > end) {
+                return false;
+            }
+            int fieldEnd = cursor;
+            while (fieldEnd < end && buffer[fieldEnd] != ',') {
+                fieldEnd++;
+            }
+            int from = cursor;
+            int to = fieldEnd;
+            if (to - from >= 2 && buffer[from] == '"' && buffer[to - 1] == '"') {
+                from++;
+                to--;
+            }
+            text.setLength(0);
+            decodeUtf8(from, to, text);
+            cursor = fieldEnd + 1;
+            return true;
+        }
+
+        // ==================== JSON Lines ====================
+
+        /**
+         * 解析只含字符串和数值的扁平对象，未知的键被忽略
+         */
+        private boolean parseJson(int start, int end) {
+            boolean hasTime = false;
+            boolean hasFrom = false;
+            boolean hasTo = false;
+            boolean hasPrecision = false;
+            boolean hasFromValue = false;
+            boolean hasToValue = false;
+
+            cursor = start + 1;
+            skipWhitespace(end);
+            if (cursor < end && buffer[cursor] == '}') {
+                return false;
+            }
+            while (true) {
+                skipWhitespace(end);
+                if (cursor >= end || buffer[cursor] != '"' || !jsonString(end, key)) {
+                    return false;
+                }
+                skipWhitespace(end);
+                if (cursor >= end || buffer[cursor] != ':') {
+                    return false;
+                }
+                cursor++;
+                skipWhitespace(end);
+                if (cursor >= end) {
+                    return false;
+                }
+                if (buffer[cursor] == '"') {
+                    if (!jsonString(end, text)) {
+                        return false;
+                    }
+                } else {
+                    int valueStart = cursor;
+                    while (cursor < end && buffer[cursor] != ',' && buffer[cursor] != '}'
+                            && buffer[cursor] != ' ' && buffer[cursor] != '\t') {
+                        cursor++;
+                    }
+                    text.setLength(0);
+                    decodeUtf8(valueStart, cursor, text);
+                }
+
+                if (equals(key, "created_at")) {
+                    epochMillis = parseLong(text);
+                    hasTime = epochMillis != Long.MIN_VALUE;
+                } else if (equals(key, "from_unit")) {
+                    fromUnit = unitOf(text);
+                    hasFrom = true;
+                } else if (equals(key, "to_unit")) {
+                    toUnit = unitOf(text);
+                    hasTo = true;
+                } else if (equals(key, "precision")) {
+                    precision = precisionOf(text);
+                    hasPrecision = true;
+                } else if (equals(key, "from_value")) {
+                    fromValue = Double.parseDouble(text.toString());
+                    hasFromValue = true;
+                } else if (equals(key, "to_value")) {
+                    toValue = Double.parseDouble(text.toString());
+                    hasToValue = true;
+                }
+
+                skipWhitespace(end);
+                if (cursor >= end) {
+                    return false;
+                }
+                if (buffer[cursor] == '}') {
+                    break;
+                }
+                if (buffer[cursor] != ',') {
+                    return false;
+                }
+                cursor++;
+            }
+            return hasTime && hasFrom && hasTo && hasPrecision && hasFromValue && hasToValue;
+        }
+
+        private void skipWhitespace(int end) {
+            while (cursor < end && (buffer[cursor] == ' ' || buffer[cursor] == '\t')) {
+                cursor++;
+            }
+        }
+
+        /**
+         * 解码从 cursor 处的引号开始的字符串（处理转义），cursor 移到结束引号之后
+         */
+        private boolean jsonString(int end, StringBuilder out) {
+            out.setLength(0);
+            int i = cursor + 1;
+            int runStart = i;
+            while (i < end) {
+                byte b = buffer[i];
+                if (b == '"') {
+                    decodeUtf8(runStart, i, out);
+                    cursor = i + 1;
+                    return true;
+                }
+                if (b != '\\') {
+                    i++;
+                    continue;
+                }
+                decodeUtf8(runStart, i, out);
+                if (i + 1 >= end) {
+                    return false;
+                }
+                char escaped = (char) buffer[i + 1];
+                i += 2;
+                switch (escaped) {
+                    case 'n':
+                        out.append('\n');
+                        break;
+                    case 't':
+                        out.append('\t');
+                        break;
+                    case 'r':
+                        out.append('\r');
+                        break;
+                    case 'b':
+                        out.append('\b');
+                        break;
+                    case 'f':
+                        out.append('\f');
+                        break;
+                    case 'u': {
+                        if (i + 4 > end) {
+                            return false;
+                        }
+                        int code = 0;
+                        for (int k = 0; k < 4; k++) {
+                            int digit = Character.digit(buffer[i + k], 16);
+                            if (digit < 0) {
+                                return false;
+                            }
+                            code = code * 16 + digit;
+                        }
+                        out.append((char) code);
+                        i += 4;
+                        break;
+                    }
+                    default:
+                        // \" \\ \/
+                        out.append(escaped);
+                        break;
+                }
+                runStart = i;
+            }
+            return false;
+        }
+
+        // ==================== 字段 ====================
+
+        private void decodeUtf8(int start, int end, StringBuilder out) {
+            int i = start;
+            while (i < end) {
+                int b = buffer[i] & 0xFF;
+                if (b < 0x80) {
+                    out.append((char) b);
+                    i++;
+                } else if (b < 0xE0 && i + 1 < end) {
+                    out.append((char) (((b & 0x1F) << 6) | (buffer[i + 1] & 0x3F)));
+                    i += 2;
+                } else if (b < 0xF0 && i + 2 < end) {
+                    out.append((char) (((b & 0x0F) << 12) | ((buffer[i + 1] & 0x3F) << 6) | (buffer[i + 2] & 0x3F)));
+                    i += 3;
+                } else if (i + 3 < end) {
+                    int codePoint = ((b & 0x07) << 18) | ((buffer[i + 1] & 0x3F) << 12)
+                            | ((buffer[i + 2] & 0x3F) << 6) | (buffer[i + 3] & 0x3F);
+                    out.appendCodePoint(codePoint);
+                    i += 4;
+                } else {
+                    out.append('\uFFFD');
+                    i++;
+                }
+            }
+        }
+
+        /**
+         * 单位名称或索引对应的可选单位
+         *
+         * @return 无效时返回 -1
+         */
+        private static int unitOf(CharSequence text) {
+            for (int unit = 0; unit < TimeUnits.COUNT; unit++) {
+                if (equals(text, TimeUnits.name(unit))) {
+                    return unit;
+                }
+            }
+            long index = parseLong(text);
+            return index >= 0 && index < TimeUnits.COUNT ? (int) index : -1;
+        }
+
+        /**
+         * 精度值；先检查范围再转为 int，避免超出 int 的值截断后落入有效范围
+         *
+         * @return 无效时返回 -1
+         */
+        private static int precisionOf(CharSequence text) {
+            long value = parseLong(text);
+            return value >= NumberFormatter.PRECISION_LOW && value <= NumberFormatter.PRECISION_HIGH ? (int) value : -1;
+        }
+
+        /**
+         * 解析十进制整数
+         *
+         * @return 无效或超出 long 范围时返回 Long.MIN_VALUE
+         */
+        private static long parseLong(CharSequence text) {
+            int length = text.length();
+            if (length == 0 || length > 19) {
+                return Long.MIN_VALUE;
+            }
+            boolean negative = text.charAt(0) == '-';
+            if (negative && length == 1) {
+                return Long.MIN_VALUE;
+            }
+            long value = 0;
+            for (int i = negative ? 1 : 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Long.MIN_VALUE;
+                }
+                int digit = c - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    return Long.MIN_VALUE;
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        private static boolean equals(CharSequence text, String value) {
+            if (text.length() != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (text.charAt(i) != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 经直接缓冲区读取通道
+     */
+    private static final class ChannelInput extends InputStream {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        ChannelInput(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+            buffer.flip();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            long start = IoGuard.begin();
+            try {
+                buffer.clear();
+                int n;
+                do {
+                    n = channel.read(buffer);
+                } while (n == 0);
+                buffer.flip();
+                return n > 0;
+            } finally {
+                IoGuard.end(IoGuard.READ, "history.import", start);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package xin.xldl.timecalculator.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 旧版换算历史日志的读取
+ *
+ * 旧版本把换算历史保存为仅追加的内存映射文件，现在只在第一次创建历史数据库时读取并导入，
+ * 不再写入。文件以只读方式映射，打开时只检查文件头。
+ *
+ * 文件格式（小端序）：
+ * <pre>
+ * 文件头 16字节：magic(int) version(short) recordSize(short) count(long)
+ * 记录   32字节：fromUnit(byte) toUnit(byte) precision(byte) 保留(5字节)
+ *               fromValue(double) toValue(double) epochMillis(long)
+ * </pre>
+ * 文件末尾可能有预先映射但未使用的空间，只有前 count 条是有效记录。下标0为最早的记录。
+ */
+public final class HistoryLog implements Closeable {
+
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 32;
+
+    public static final int MAGIC = 0x4C484354; // "TCHL"
+
+    private static final int OFFSET_COUNT = 8;
+    private static final int OFFSET_FROM_UNIT = 0;
+    private static final int OFFSET_TO_UNIT = 1;
+    private static final int OFFSET_PRECISION = 2;
+    private static final int OFFSET_FROM_VALUE = 8;
+    private static final int OFFSET_TO_VALUE = 16;
+    private static final int OFFSET_TIMESTAMP = 24;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int count;
+
+    /**
+     * 打开日志文件
+     *
+     * @throws IOException 文件不存在、不是日志文件或已损坏
+     */
+    public HistoryLog(File path) throws IOException {
+        long start = IoGuard.begin();
+        try {
+            file = new RandomAccessFile(path, "r");
+            try {
+                long length = file.length();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("历史记录文件过大: " + path);
+                }
+                buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                count = readCount(path, length);
+            } catch (IOException | RuntimeException e) {
+                file.close();
+                throw e;
+            }
+        } finally {
+            IoGuard.end(IoGuard.READ, "history.open", start);
+        }
+    }
+
+    /**
+     * 检查文件头，返回有效的记录数；空文件（创建后还没写入文件头）没有记录
+     */
+    private int readCount(File path, long length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (length < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(6) != RECORD_SIZE) {
+            throw new IOException("不是有效的历史记录文件: " + path);
+        }
+        long stored = buffer.getLong(OFFSET_COUNT);
+        if (stored < 0 || stored > (length - HEADER_SIZE) / RECORD_SIZE) {
+            throw new IOException("历史记录文件已损坏: " + path);
+        }
+        return (int) stored;
+    }
+
+    /**
+     * 记录数量
+     */
+    public int size() {
+        return count;
+    }
+
+    public int fromUnit(int index) {
+        return buffer.get(checkedOffset(index) + OFFSET_FROM_UNIT);
+    }
+
+    public int toUnit(int index) {
+        return buffer.get(checkedOffset(index) + OFFSET_TO_UNIT);
+    }
+
+    public int precision(int index) {
+        return buffer.get(checkedOffset(index) + OFFSET_PRECISION);
+    }
+
+    public double fromValue(int index) {
+        return buffer.getDouble(checkedOffset(index) + OFFSET_FROM_VALUE);
+    }
+
+    public double toValue(int index) {
+        return buffer.getDouble(checkedOffset(index) + OFFSET_TO_VALUE);
+    }
+
+    public long timestamp(int index) {
+        return buffer.getLong(checkedOffset(index) + OFFSET_TIMESTAMP);
+    }
+
+    /**
+     * 关闭文件；映射在GC时释放，只读映射不需要写回
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private int checkedOffset(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,509 @@
+package xin.xldl.timecalculator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 历史记录搜索索引
+ *
+ * 每条记录索引三类内容：出现的单位（位掩码，第 unit 位为1）、记录日期（本地纪元日）和若干数值文本。
+ * 数值文本的前1~4个字符建立倒排表；更长的查询词先用前4个字符的倒排表取候选，再与保存的文本比较，
+ * 单位和日期直接在候选上判断。记录必须按（时间, 行号）递增的顺序追加，倒排表因此天然有序，
+ * 搜索从最新的记录往前取，取够数量即停止。行号本身不要求有序（导入的旧记录行号较大但时间较早）。所有方法都是线程安全的。
+ */
+public final class HistorySearchIndex {
+
+    // 建立倒排表的最长前缀
+    private static final int MAX_PREFIX = 4;
+    // 数值文本的字符：0~9、小数点、负号
+    private static final int SYMBOLS = 12;
+    // 各长度前缀编码的起点，长度为 n 的前缀共 12^n 个
+    private static final int[] PREFIX_OFFSET = {0, 0, 12, 156, 1884};
+    private static final int PREFIX_CODES = 1884 + 20736;
+
+    // 记录按追加顺序存放
+    private long[] rowIds = new long[64];
+    private long[] times = new long[64];
+    private int[] days = new int[64];
+    private int[] units = new int[64];
+    // 第 i 条记录的文本位于 texts[textStart[i], textStart[i + 1])，每个文本后跟一个空格
+    private int[] textStart = new int[65];
+    private char[] texts = new char[1024];
+    private int size;
+
+    // 前缀编码 -> 包含该前缀的记录序号（递增）
+    private final int[][] postings = new int[PREFIX_CODES][];
+    private final int[] postingSizes = new int[PREFIX_CODES];
+
+    /**
+     * 追加一条记录
+     *
+     * @param rowId    行号
+     * @param time     排序用的时间（如创建时间的毫秒数）；时间相同时按行号排序，
+     *                 （time, rowId）必须排在已有的所有记录之后
+     * @param epochDay 记录日期（本地纪元日）
+     * @param unitMask 出现的单位，第 unit 位为1
+     * @param values   数值文本，其中不属于数值的字符（如千位分隔符）被忽略
+     */
+    public synchronized void add(long rowId, long time, long epochDay, int unitMask, CharSequence... values) {
+        if (size > 0 && (time < times[size - 1] || (time == times[size - 1] && rowId <= rowIds[size - 1]))) {
+            throw new IllegalArgumentException("time: " + time + ", rowId: " + rowId);
+        }
+        if (size == rowIds.length) {
+            int capacity = size * 2;
+            rowIds = Arrays.copyOf(rowIds, capacity);
+            times = Arrays.copyOf(times, capacity);
+            days = Arrays.copyOf(days, capacity);
+            units = Arrays.copyOf(units, capacity);
+            textStart = Arrays.copyOf(textStart, capacity + 1);
+        }
+
+        int doc = size;
+        int end = textStart[doc];
+        int needed = end;
+        for (CharSequence value : values) {
+            needed += value.length() + 1;
+        }
+        if (needed > texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(needed, texts.length * 2));
+        }
+        for (CharSequence value : values) {
+            int start = end;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (symbol(c) >= 0) {
+                    texts[end++] = c;
+                }
+            }
+            if (end > start) {
+                texts[end++] = ' ';
+            }
+        }
+
+        rowIds[doc] = rowId;
+        times[doc] = time;
+        days[doc] = (int) epochDay;
+        units[doc] = unitMask;
+        textStart[doc + 1] = end;
+        size++;
+        updatePostings(doc, true);
+    }
+
+    /**
+     * 用新内容替换行号为 rowId 的最新一条记录；最新一条不是该行时追加
+     */
+    public synchronized void replaceLast(long rowId, long time, long epochDay, int unitMask, CharSequence... values) {
+        if (size > 0 && rowIds[size - 1] == rowId) {
+            updatePostings(size - 1, false);
+            size--;
+        }
+        add(rowId, time, epochDay, unitMask, values);
+    }
+
+    /**
+     * 删除所有记录并释放倒排表
+     */
+    public synchronized void clear() {
+        size = 0;
+        Arrays.fill(postings, null);
+        Arrays.fill(postingSizes, 0);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 搜索匹配的记录，最新的在前
+     *
+     * @param out 接收行号，最多取 out.length 条
+     * @return 匹配的条数
+     */
+    public synchronized int search(Query query, long[] out) {
+        if (out.length == 0 || query.fromDay > query.toDay) {
+            return 0;
+        }
+
+        // 从最短的倒排表中取候选；没有数值条件时逐条检查
+        int[] candidates = null;
+        int count = size;
+        for (char[] value : query.values) {
+            int code = prefixCode(value, Math.min(value.length, MAX_PREFIX));
+            int n = postingSizes[code];
+            if (n == 0) {
+                return 0;
+            }
+            if (candidates == null || n < count) {
+                candidates = postings[code];
+                count = n;
+            }
+        }
+
+        int found = 0;
+        for (int i = count - 1; i >= 0 && found < out.length; i--) {
+            int doc = candidates == null ? i : candidates[i];
+            if (matches(doc, query)) {
+                out[found++] = rowIds[doc];
+            }
+        }
+        return found;
+    }
+
+    private boolean matches(int doc, Query query) {
+        if ((units[doc] & query.unitMask) != query.unitMask) {
+            return false;
+        }
+        int day = days[doc];
+        if (day < query.fromDay || day > query.toDay) {
+            return false;
+        }
+        for (char[] value : query.values) {
+            if (!hasPrefix(doc, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录中是否有以 prefix 开头的文本
+     */
+    private boolean hasPrefix(int doc, char[] prefix) {
+        int end = textStart[doc + 1];
+        int start = textStart[doc];
+        while (start < end) {
+            int i = 0;
+            while (i < prefix.length && texts[start + i] == prefix[i]) {
+                i++;
+            }
+            if (i == prefix.length) {
+                return true;
+            }
+            // 跳到下一个文本（文本以空格结尾，不会越过 end）
+            while (texts[start] != ' ') {
+                start++;
+            }
+            start++;
+        }
+        return false;
+    }
+
+    /**
+     * 把记录的每个文本的前缀加入（或移出）倒排表；移出只用于最新一条记录
+     */
+    private void updatePostings(int doc, boolean add) {
+        int end = textStart[doc + 1];
+        int start = textStart[doc];
+        int code = 0;
+        for (int i = start; i < end; i++) {
+            if (texts[i] == ' ') {
+                start = i + 1;
+                code = 0;
+                continue;
+            }
+            int length = i - start + 1;
+            if (length > MAX_PREFIX) {
+                continue;
+            }
+            code = code * SYMBOLS + symbol(texts[i]);
+            int prefix = PREFIX_OFFSET[length] + code;
+            int n = postingSizes[prefix];
+            int[] list = postings[prefix];
+            if (add) {
+                // 同一记录的多个文本可能有相同前缀
+                if (n > 0 && list[n - 1] == doc) {
+                    continue;
+                }
+                if (list == null) {
+                    list = postings[prefix] = new int[4];
+                } else if (n == list.length) {
+                    list = postings[prefix] = Arrays.copyOf(list, n * 2);
+                }
+                list[n] = doc;
+                postingSizes[prefix] = n + 1;
+            } else if (n > 0 && list[n - 1] == doc) {
+                postingSizes[prefix] = n - 1;
+            }
+        }
+    }
+
+    private static int prefixCode(char[] text, int length) {
+        int code = 0;
+        for (int i = 0; i < length; i++) {
+            code = code * SYMBOLS + symbol(text[i]);
+        }
+        return PREFIX_OFFSET[length] + code;
+    }
+
+    private static int symbol(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c == '.') {
+            return 10;
+        }
+        if (c == '-') {
+            return 11;
+        }
+        return -1;
+    }
+
+    // ==================== 查询 ====================
+
+    // 相对日期
+    private static final int TODAY = 0;
+    private static final int YESTERDAY = 1;
+    private static final int DAY_BEFORE_YESTERDAY = 2;
+    private static final int THIS_WEEK = 3;
+    private static final int LAST_WEEK = 4;
+    private static final int THIS_MONTH = 5;
+    private static final int LAST_MONTH = 6;
+    private static final int THIS_YEAR = 7;
+    private static final int LAST_YEAR = 8;
+
+    // 查询中的词，按最长匹配识别；WORD_UNITS 和 WORD_DATES 中不适用的为 -1
+    private static final String[] WORDS;
+    private static final int[] WORD_UNITS;
+    private static final int[] WORD_DATES;
+
+    static {
+        String[] dates = {"今天", "昨天", "前天", "本周", "这周", "上周", "本月", "这个月", "上月", "上个月", "今年", "去年"};
+        int[] dateKinds = {TODAY, YESTERDAY, DAY_BEFORE_YESTERDAY, THIS_WEEK, THIS_WEEK, LAST_WEEK,
+                THIS_MONTH, THIS_MONTH, LAST_MONTH, LAST_MONTH, THIS_YEAR, LAST_YEAR};
+        // 单位名称和常用缩写（单字的“分”“时”容易出现在其他词中，不作为单位）
+        String[] aliases = {"ns", "us", "ms", "s", "min", "h", "d", "w"};
+        int[] aliasUnits = {TimeUnits.NANOSECOND, TimeUnits.MICROSECOND,
+                TimeUnits.MILLISECOND, TimeUnits.SECOND, TimeUnits.MINUTE, TimeUnits.HOUR, TimeUnits.DAY, TimeUnits.WEEK};
+
+        int count = TimeUnits.COUNT + aliases.length + dates.length;
+        WORDS = new String[count];
+        WORD_UNITS = new int[count];
+        WORD_DATES = new int[count];
+        Arrays.fill(WORD_UNITS, -1);
+        Arrays.fill(WORD_DATES, -1);
+        int w = 0;
+        for (int unit = 0; unit < TimeUnits.COUNT; unit++, w++) {
+            WORDS[w] = TimeUnits.name(unit);
+            WORD_UNITS[w] = unit;
+        }
+        for (int i = 0; i < aliases.length; i++, w++) {
+            WORDS[w] = aliases[i];
+            WORD_UNITS[w] = aliasUnits[i];
+        }
+        for (int i = 0; i < dates.length; i++, w++) {
+            WORDS[w] = dates[i];
+            WORD_DATES[w] = dateKinds[i];
+        }
+    }
+
+    /**
+     * 解析后的搜索条件，所有条件同时满足才算匹配
+     *
+     * 支持的写法（可以混合，空格可以省略，无法识别的字符被忽略）：
+     * <ul>
+     * <li>单位：纳秒、分钟、天……以及 ns、ms、s、min、h、d 等缩写</li>
+     * <li>数值：按前缀匹配，1 匹配 1、15、1.5；千位分隔符被忽略</li>
+     * <li>日期：今天、昨天、前天、本周、上周、本月、上月、今年、去年，
+     *     或 yyyy-MM、yyyy-MM-dd（也可以用 / 分隔）</li>
+     * </ul>
+     * 例如“上周的纳秒换算”匹配上周记录的、用到纳秒的记录。
+     */
+    public static final class Query {
+
+        final int unitMask;
+        final long fromDay;
+        final long toDay;
+        final char[][] values;
+
+        private Query(int unitMask, long fromDay, long toDay, char[][] values) {
+            this.unitMask = unitMask;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.values = values;
+        }
+
+        /**
+         * 解析搜索文本
+         *
+         * @param today 今天的本地纪元日，用于相对日期
+         */
+        public static Query parse(CharSequence text, long today) {
+            String s = text.toString().toLowerCase(Locale.ROOT);
+            int n = s.length();
+            int unitMask = 0;
+            long[] range = {Long.MIN_VALUE, Long.MAX_VALUE};
+            List<char[]> values = new ArrayList<>();
+
+            int i = 0;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (isDigit(c) || (c == '-' && i + 1 < n && isDigit(s.charAt(i + 1)))) {
+                    int end = i + 1;
+                    while (end < n && (isDigit(s.charAt(end)) || ".,-/".indexOf(s.charAt(end)) >= 0)) {
+                        end++;
+                    }
+                    if (!parseDate(s, i, end, range)) {
+                        addValues(s, i, end, values);
+                    }
+                    i = end;
+                    continue;
+                }
+
+                int best = -1;
+                for (int w = 0; w < WORDS.length; w++) {
+                    if ((best < 0 || WORDS[w].length() > WORDS[best].length()) && s.startsWith(WORDS[w], i)) {
+                        best = w;
+                    }
+                }
+                // 字母缩写必须是完整的词，避免 "ms" 中的 "s" 被单独识别
+                if (best >= 0 && isLetter(c)) {
+                    int end = i + WORDS[best].length();
+                    if ((i > 0 && isLetter(s.charAt(i - 1))) || (end < n && isLetter(s.charAt(end)))) {
+                        best = -1;
+                    }
+                }
+                if (best < 0) {
+                    i++;
+                } else {
+                    if (WORD_UNITS[best] >= 0) {
+                        unitMask |= 1 << WORD_UNITS[best];
+                    } else {
+                        intersect(range, WORD_DATES[best], today);
+                    }
+                    i += WORDS[best].length();
+                }
+            }
+            return new Query(unitMask, range[0], range[1], values.toArray(new char[0][]));
+        }
+
+        /**
+         * 是否没有任何条件（匹配所有记录）
+         */
+        public boolean isEmpty() {
+            return unitMask == 0 && values.length == 0 && fromDay == Long.MIN_VALUE && toDay == Long.MAX_VALUE;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isLetter(char c) {
+            return c >= 'a' && c <= 'z';
+        }
+
+        /**
+         * 把 yyyy-MM 或 yyyy-MM-dd 与日期范围取交集
+         *
+         * @return 不是有效日期时返回 false
+         */
+        private static boolean parseDate(String s, int start, int end, long[] range) {
+            int[] parts = new int[3];
+            int count = 0;
+            int digits = 0;
+            for (int i = start; i <= end; i++) {
+                char c = i < end ? s.charAt(i) : '/';
+                if (isDigit(c)) {
+                    parts[count] = parts[count] * 10 + (c - '0');
+                    digits++;
+                } else if (c == '-' || c == '/') {
+                    boolean valid = count == 0 ? digits == 4 : digits >= 1 && digits <= 2;
+                    if (!valid || (i < end && count == 2)) {
+                        return false;
+                    }
+                    count++;
+                    digits = 0;
+                } else {
+                    return false;
+                }
+            }
+            if (count < 2) {
+                return false;
+            }
+
+            int year = parts[0];
+            int month = parts[1];
+            if (month < 1 || month > 12) {
+                return false;
+            }
+            int length = IsoDateTime.lengthOfMonth(year, month);
+            long first = IsoDateTime.epochDay(year, month, 1);
+            if (count == 2) {
+                narrow(range, first, first + length - 1);
+            } else {
+                if (parts[2] < 1 || parts[2] > length) {
+                    return false;
+                }
+                narrow(range, first + parts[2] - 1, first + parts[2] - 1);
+            }
+            return true;
+        }
+
+        /**
+         * 数值条件；其中的分隔符把文本拆成多个数值
+         */
+        private static void addValues(String s, int start, int end, List<char[]> values) {
+            StringBuilder value = new StringBuilder(end - start);
+            for (int i = start; i <= end; i++) {
+                char c = i < end ? s.charAt(i) : '/';
+                if (c == '/' || (c == '-' && i > start)) {
+                    if (value.length() > 0) {
+                        values.add(value.toString().toCharArray());
+                        value.setLength(0);
+                    }
+                } else if (c != ',') {
+                    value.append(c);
+                }
+            }
+        }
+
+        private static void intersect(long[] range, int kind, long today) {
+            long yearMonth = IsoDateTime.yearMonth(today);
+            int year = (int) Math.floorDiv(yearMonth, 12L);
+            int month = (int) Math.floorMod(yearMonth, 12L) + 1;
+            // 周一为一周的第一天，1970-01-01 是周四
+            int dayOfWeek = (int) Math.floorMod(today + 3, 7L);
+            switch (kind) {
+                case TODAY:
+                    narrow(range, today, today);
+                    break;
+                case YESTERDAY:
+                    narrow(range, today - 1, today - 1);
+                    break;
+                case DAY_BEFORE_YESTERDAY:
+                    narrow(range, today - 2, today - 2);
+                    break;
+                case THIS_WEEK:
+                    narrow(range, today - dayOfWeek, today);
+                    break;
+                case LAST_WEEK:
+                    narrow(range, today - dayOfWeek - 7, today - dayOfWeek - 1);
+                    break;
+                case THIS_MONTH:
+                    narrow(range, IsoDateTime.epochDay(year, month, 1), today);
+                    break;
+                case LAST_MONTH: {
+                    long first = IsoDateTime.epochDay(year, month, 1);
+                    int previousYear = month == 1 ? year - 1 : year;
+                    int previousMonth = month == 1 ? 12 : month - 1;
+                    narrow(range, IsoDateTime.epochDay(previousYear, previousMonth, 1), first - 1);
+                    break;
+                }
+                case THIS_YEAR:
+                    narrow(range, IsoDateTime.epochDay(year, 1, 1), today);
+                    break;
+                case LAST_YEAR:
+                    narrow(range, IsoDateTime.epochDay(year - 1, 1, 1), IsoDateTime.epochDay(year, 1, 1) - 1);
+                    break;
+                default:
+                    throw new IllegalArgumentException("kind: " + kind);
+            }
+        }
+
+        private static void narrow(long[] range, long from, long to) {
+            range[0] = Math.max(range[0], from);
+            range[1] = Math.min(range[1], to);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package xin.xldl.timecalculator.core;
+
+/**
+ * 时间间隔计算
+ *
+ * 时间点以纪元纳秒（long）表示，可覆盖1677年至2262年，足够日期选择器使用。
+ * 所有分解方法都接收非负的间隔纳秒数。
+ */
+public final class IntervalMath {
+
+    private IntervalMath() {
+    }
+
+    /**
+     * 由纪元秒和秒内纳秒得到纪元纳秒，溢出时抛出 ArithmeticException
+     */
+    public static long epochNanos(long epochSecond, int nanoOfSecond) {
+        return Math.addExact(Math.multiplyExact(epochSecond, TimeUnits.NANOS_PER_SECOND), nanoOfSecond);
+    }
+
+    /**
+     * 计算时间差（结束 - 开始），结果为负表示结束时间早于开始时间
+     */
+    public static long between(long startNanos, long endNanos) {
+        return Math.subtractExact(endNanos, startNanos);
+    }
+
+    /**
+     * 取绝对值，溢出时抛出 ArithmeticException
+     */
+    public static long abs(long durationNanos) {
+        if (durationNanos == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        return Math.abs(durationNanos);
+    }
+
+    // ==================== 总量 ====================
+
+    public static long totalDays(long durationNanos) {
+        return durationNanos / TimeUnits.NANOS_PER_DAY;
+    }
+
+    public static long totalHours(long durationNanos) {
+        return durationNanos / TimeUnits.NANOS_PER_HOUR;
+    }
+
+    public static long totalMinutes(long durationNanos) {
+        return durationNanos / TimeUnits.NANOS_PER_MINUTE;
+    }
+
+    public static long totalSeconds(long durationNanos) {
+        return durationNanos / TimeUnits.NANOS_PER_SECOND;
+    }
+
+    public static long totalMillis(long durationNanos) {
+        return durationNanos / TimeUnits.NANOS_PER_MILLI;
+    }
+
+    // ==================== 分量 ====================
+
+    public static int hoursPart(long durationNanos) {
+        return (int) (totalHours(durationNanos) % 24);
+    }
+
+    public static int minutesPart(long durationNanos) {
+        return (int) (totalMinutes(durationNanos) % 60);
+    }
+
+    public static int secondsPart(long durationNanos) {
+        return (int) (totalSeconds(durationNanos) % 60);
+    }
+
+    public static int millisPart(long durationNanos) {
+        return (int) (totalMillis(durationNanos) % 1000);
+    }
+}
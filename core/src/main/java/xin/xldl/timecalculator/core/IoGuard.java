@@ -0,0 +1,87 @@
+package xin.xldl.timecalculator.core;
+
+/**
+ * 受保护线程上的磁盘读写检测
+ *
+ * 本项目自己的磁盘读写入口（历史记录日志、偏好设置）用 begin/end 包住实际的读写；
+ * 在受保护的线程（应用中为主线程）上执行时，读写的种类、位置、耗时和调用栈报告给监听器。
+ * 其他线程上 begin 只比较一次线程引用，不计时，也不分配对象。
+ * <pre>
+ * long start = IoGuard.begin();
+ * ...读写...
+ * IoGuard.end(IoGuard.WRITE, "history.append", start);
+ * </pre>
+ */
+public final class IoGuard {
+
+    public static final int READ = 0;
+    public static final int WRITE = 1;
+
+    // begin 在未受保护的线程上的返回值
+    private static final long NOT_GUARDED = Long.MIN_VALUE;
+
+    /**
+     * 接收受保护线程上的读写
+     */
+    public interface Listener {
+        /**
+         * @param type      {@link #READ} 或 {@link #WRITE}
+         * @param operation 读写的位置，如 "history.append"
+         * @param nanos     读写耗时
+         * @param stack     调用栈，第一帧为发起读写的方法
+         */
+        void onDiskAccess(int type, String operation, long nanos, StackTraceElement[] stack);
+    }
+
+    private static volatile Thread guardedThread;
+    private static volatile Listener listener;
+
+    private IoGuard() {
+    }
+
+    /**
+     * 保护一个线程，之后该线程上的读写都报告给 listener（只能保护一个线程，后调用的替换先调用的）
+     */
+    public static synchronized void guard(Thread thread, Listener listener) {
+        IoGuard.listener = listener;
+        IoGuard.guardedThread = thread;
+    }
+
+    public static synchronized void unguard() {
+        guardedThread = null;
+        listener = null;
+    }
+
+    /**
+     * 读写开始前调用
+     *
+     * @return 传给 {@link #end} 的开始时间
+     */
+    public static long begin() {
+        return Thread.currentThread() == guardedThread ? System.nanoTime() : NOT_GUARDED;
+    }
+
+    /**
+     * 读写结束后调用（包括抛出异常时）
+     */
+    public static void end(int type, String operation, long start) {
+        if (start == NOT_GUARDED) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        Listener current = listener;
+        if (current == null) {
+            return;
+        }
+        // 去掉 end 自身和读写入口两帧
+        StackTraceElement[] trace = new Throwable().getStackTrace();
+        int skip = Math.min(2, trace.length);
+        StackTraceElement[] stack = new StackTraceElement[trace.length - skip];
+        System.arraycopy(trace, skip, stack, 0, stack.length);
+        current.onDiskAccess(type, operation, nanos, stack);
+    }
+
+    public static String typeName(int type) {
+        return type == READ ? "read" : "write";
+    }
+}
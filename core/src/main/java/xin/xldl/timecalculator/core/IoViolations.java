@@ -0,0 +1,169 @@
+package xin.xldl.timecalculator.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 受保护线程上磁盘读写的汇总
+ *
+ * 按（读/写，位置，调用方）合并，记录次数、总耗时、最大耗时和第一次出现时的调用栈。
+ * 调用方是调用栈中第一个属于指定包的帧。耗时未知的记录（如 StrictMode 报告的违规）只计次数。
+ * 所有方法都是线程安全的。
+ */
+public final class IoViolations implements IoGuard.Listener {
+
+    // 保存的调用栈帧数
+    private static final int MAX_STACK_FRAMES = 16;
+
+    private final String callerPackage;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * @param callerPackage 用于确定调用方的包名前缀，如 "xin.xldl.timecalculator."
+     */
+    public IoViolations(String callerPackage) {
+        this.callerPackage = callerPackage;
+    }
+
+    @Override
+    public void onDiskAccess(int type, String operation, long nanos, StackTraceElement[] stack) {
+        record(type, operation, nanos, stack);
+    }
+
+    /**
+     * 记录一次读写
+     *
+     * @param nanos 耗时，未知时为负数
+     */
+    public synchronized void record(int type, String operation, long nanos, StackTraceElement[] stack) {
+        String caller = caller(stack);
+        String key = type + "|" + operation + "|" + caller;
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(type, operation, caller, formatStack(stack));
+            entries.put(key, entry);
+        }
+        entry.count++;
+        if (nanos >= 0) {
+            entry.timedCount++;
+            entry.totalNanos += nanos;
+            entry.maxNanos = Math.max(entry.maxNanos, nanos);
+        }
+    }
+
+    /**
+     * 各记录的副本，按第一次出现的顺序
+     */
+    public synchronized List<Entry> entries() {
+        List<Entry> copy = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            copy.add(entry.copy());
+        }
+        return copy;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 文本报告，每条记录一段
+     */
+    public synchronized String describe() {
+        StringBuilder text = new StringBuilder();
+        for (Entry entry : entries.values()) {
+            text.append(IoGuard.typeName(entry.type)).append(' ').append(entry.operation)
+                    .append(" ← ").append(entry.caller)
+                    .append("：").append(entry.count).append("次");
+            if (entry.timedCount > 0) {
+                text.append(String.format(Locale.ROOT, "，共 %.3fms，最大 %.3fms",
+                        entry.totalNanos / 1e6, entry.maxNanos / 1e6));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private String caller(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().startsWith(callerPackage)) {
+                return frame.getClassName() + "." + frame.getMethodName();
+            }
+        }
+        return stack.length > 0 ? stack[0].getClassName() + "." + stack[0].getMethodName() : "?";
+    }
+
+    private static String formatStack(StackTraceElement[] stack) {
+        StringBuilder text = new StringBuilder();
+        int frames = Math.min(stack.length, MAX_STACK_FRAMES);
+        for (int i = 0; i < frames; i++) {
+            text.append("\tat ").append(stack[i]).append('\n');
+        }
+        if (stack.length > frames) {
+            text.append("\t... ").append(stack.length - frames).append(" more\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * 一个位置的汇总
+     */
+    public static final class Entry {
+        public final int type;
+        public final String operation;
+        public final String caller;
+        public final String stackTrace;
+
+        long count;
+        long timedCount;
+        long totalNanos;
+        long maxNanos;
+
+        Entry(int type, String operation, String caller, String stackTrace) {
+            this.type = type;
+            this.operation = operation;
+            this.caller = caller;
+            this.stackTrace = stackTrace;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /**
+         * 有耗时的次数
+         */
+        public long timedCount() {
+            return timedCount;
+        }
+
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        Entry copy() {
+            Entry copy = new Entry(type, operation, caller, stackTrace);
+            copy.count = count;
+            copy.timedCount = timedCount;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return IoGuard.typeName(type) + " " + operation + " ← " + caller + " ×" + count + "\n" + stackTrace;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package xin.xldl.timecalculator.core;
+
+import java.util.Locale;
+
+/**
+ * ISO-8601 本地日期时间的解析与输出
+ *
+ * 与界面中 LocalDateTime 配合 ZoneOffset.UTC 的用法一致，日期时间按不带时区的本地时间处理，
+ * 以纪元秒和秒内纳秒表示。支持的格式：
+ * <pre>
+ * yyyy-MM-dd
+ * yyyy-MM-ddTHH:mm
+ * yyyy-MM-ddTHH:mm:ss
+ * yyyy-MM-ddTHH:mm:ss.SSSSSSSSS（1~9位小数）
+ * </pre>
+ * 日期和时间之间也可以用空格分隔。与 LocalDateTime 一致，年份可以带符号，
+ * 超过4位时必须带符号，最多9位。解析直接读取字符，不创建对象；
+ * 解析结果保存在实例中，实例不是线程安全的。
+ */
+public final class IsoDateTime {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    // 0000-03-01 到 1970-01-01 的天数
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+
+    private static final DateTimeRenderer RENDERER =
+            DateTimeRenderer.of("yyyy-MM-dd'T'HH:mm:ss", Locale.ROOT, true);
+
+    // 年份最多9位，与 LocalDateTime 的范围一致
+    private static final int MAX_YEAR_DIGITS = 9;
+
+    private long epochSecond;
+    private int nano;
+
+    // 正在解析的输入，只在 parse 期间有效
+    private CharSequence text;
+    private byte[] bytes;
+
+    /**
+     * 最近一次成功解析的纪元秒
+     */
+    public long epochSecond() {
+        return epochSecond;
+    }
+
+    /**
+     * 最近一次成功解析的秒内纳秒
+     */
+    public int nano() {
+        return nano;
+    }
+
+    /**
+     * 解析字符串
+     *
+     * @return 格式或数值无效时返回 false，此时结果不变
+     */
+    public boolean parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * 解析字符串的 [start, end) 部分
+     */
+    public boolean parse(CharSequence text, int start, int end) {
+        this.text = text;
+        try {
+            return parseRange(start, end);
+        } finally {
+            this.text = null;
+        }
+    }
+
+    /**
+     * 解析 ASCII 字节的 [start, end) 部分
+     */
+    public boolean parse(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        try {
+            return parseRange(start, end);
+        } finally {
+            this.bytes = null;
+        }
+    }
+
+    /**
+     * 字符和字节共用的解析过程，通过 {@link #at} 读取当前输入
+     */
+    private boolean parseRange(int start, int end) {
+        if (end - start < 10) {
+            return false;
+        }
+        // 年份：4位，或带符号的4~9位（与 LocalDateTime 一致，超过4位时必须带符号，'+' 只用于超过4位）
+        int sign = at(start);
+        int yearStart = sign == '+' || sign == '-' ? start + 1 : start;
+        int yearEnd = yearStart;
+        while (yearEnd < end && yearEnd - yearStart <= MAX_YEAR_DIGITS && isDigit(at(yearEnd))) {
+            yearEnd++;
+        }
+        int yearDigits = yearEnd - yearStart;
+        if (yearDigits < 4 || yearDigits > MAX_YEAR_DIGITS
+                || (yearDigits > 4 && yearStart == start) || (sign == '+' && yearDigits == 4)) {
+            return false;
+        }
+        int year = digits(yearStart, yearDigits);
+        if (sign == '-') {
+            year = -year;
+        }
+
+        // 年份之后的字段按4位年份的偏移读取
+        int base = yearEnd - 4;
+        int length = end - base;
+        if (length != 10 && length != 16 && length < 19) {
+            return false;
+        }
+        int month = digits(base + 5, 2);
+        int day = digits(base + 8, 2);
+        if (month < 0 || day < 0 || at(base + 4) != '-' || at(base + 7) != '-') {
+            return false;
+        }
+
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int fraction = 0;
+        if (length > 10) {
+            int separator = at(base + 10);
+            hour = digits(base + 11, 2);
+            minute = digits(base + 14, 2);
+            if ((separator != 'T' && separator != ' ') || hour < 0 || minute < 0
+                    || at(base + 13) != ':') {
+                return false;
+            }
+            if (length > 16) {
+                second = digits(base + 17, 2);
+                if (second < 0 || at(base + 16) != ':') {
+                    return false;
+                }
+                if (length > 19) {
+                    int digitCount = length - 20;
+                    if (at(base + 19) != '.' || digitCount < 1 || digitCount > 9) {
+                        return false;
+                    }
+                    fraction = digits(base + 20, digitCount);
+                    if (fraction < 0) {
+                        return false;
+                    }
+                    for (int i = digitCount; i < 9; i++) {
+                        fraction *= 10;
+                    }
+                }
+            }
+        }
+        return set(year, month, day, hour, minute, second, fraction);
+    }
+
+    /**
+     * 将纪元秒和纳秒按 yyyy-MM-ddTHH:mm:ss[.SSS] 追加到 out
+     *
+     * 小数部分与 LocalDateTime.toString() 一致，按3、6、9位输出，纳秒为0时省略。
+     */
+    public static StringBuilder appendTo(StringBuilder out, long epochSecond, int nano) {
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // 纪元日转换为公历日期（以3月1日为年首，400年为一个周期）
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, 146_097L);
+        int dayOfEra = (int) (z - era * 146_097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year > 9999) {
+            // 与 LocalDateTime.toString() 一致，超过4位的年份带 '+'
+            out.append('+');
+        }
+        RENDERER.appendTo(out, (int) year, month, day,
+                secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60);
+
+        if (nano != 0) {
+            out.append('.');
+            // 从最高位开始输出，去掉的低位都是0
+            int last = nano % 1_000_000 == 0 ? 100_000 : nano % 1_000 == 0 ? 100 : 0;
+            for (int divisor = 100_000_000; divisor > last; divisor /= 10) {
+                out.append((char) ('0' + nano / divisor % 10));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 公历日期对应的纪元日（1970-01-01 为0）
+     */
+    public static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400L);
+        int yearOfEra = (int) (y - era * 400);
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * 纪元日所在的年月，按 year * 12 + (month - 1) 返回
+     */
+    static long yearMonth(long epochDay) {
+        // 与 appendTo 相同的换算
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, 146_097L);
+        int dayOfEra = (int) (z - era * 146_097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    private boolean set(int year, int month, int day, int hour, int minute, int second, int fraction) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return false;
+        }
+        epochSecond = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+        nano = fraction;
+        return true;
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * 当前输入第 i 个位置的字符
+     */
+    private int at(int i) {
+        return bytes != null ? bytes[i] : text.charAt(i);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 读取固定位数的十进制数字，遇到非数字返回 -1
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int c = at(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,187 @@
+package xin.xldl.timecalculator.core;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 数字格式化
+ *
+ * 输出与 DecimalFormat("#,##0.##") 一类模式一致：HALF_EVEN舍入、去掉小数末尾的0、千位分隔符。
+ * 数字直接写入内部复用的 char[]，{@link #formatTo} 不产生任何垃圾对象。
+ * 实例持有缓冲区，不是线程安全的，每个线程使用自己的实例。
+ */
+public final class NumberFormatter {
+
+    /** 无穷大和NaN的显示文本 */
+    public static final String INFINITY_TEXT = "无限大";
+
+    // 显示精度：0=低, 1=中, 2=高
+    public static final int PRECISION_LOW = 0;
+    public static final int PRECISION_MEDIUM = 1;
+    public static final int PRECISION_HIGH = 2;
+
+    // 各精度对应的最多小数位数
+    private static final int[] PRECISION_DIGITS = {0, 2, 6};
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L,
+            10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    /** 支持的最多小数位数 */
+    public static final int MAX_FRACTION_DIGITS = POW10.length - 1;
+
+    // 超过该值时double乘法不再保留小数部分，改走精确路径
+    private static final double MAX_FAST = 0x1p52;
+
+    // 19位整数 + 6个分隔符 + 符号 + 小数点 + 9位小数
+    private final char[] buffer = new char[40];
+    private final StringBuilder builder = new StringBuilder(40);
+
+    /**
+     * 精度档位对应的最多小数位数
+     */
+    public static int fractionDigits(int precision) {
+        if (precision < 0 || precision >= PRECISION_DIGITS.length) {
+            return PRECISION_DIGITS[PRECISION_MEDIUM];
+        }
+        return PRECISION_DIGITS[precision];
+    }
+
+    /**
+     * 按精度档位格式化，带千位分隔符
+     */
+    public String format(double number, int precision) {
+        builder.setLength(0);
+        return formatTo(builder, number, precision).toString();
+    }
+
+    /**
+     * 按精度档位格式化并追加到 out，不分配对象
+     */
+    public StringBuilder formatTo(StringBuilder out, double number, int precision) {
+        return appendFixed(out, number, fractionDigits(precision), true);
+    }
+
+    /**
+     * 按最多小数位数格式化
+     */
+    public String formatFixed(double number, int maxFractionDigits, boolean grouping) {
+        builder.setLength(0);
+        return appendFixed(builder, number, maxFractionDigits, grouping).toString();
+    }
+
+    /**
+     * 按最多小数位数格式化并追加到 out
+     *
+     * @param maxFractionDigits 最多小数位数（0~9），末尾的0会被去掉
+     * @param grouping          是否使用千位分隔符
+     */
+    public StringBuilder appendFixed(StringBuilder out, double number, int maxFractionDigits, boolean grouping) {
+        if (Double.isInfinite(number) || Double.isNaN(number)) {
+            return out.append(INFINITY_TEXT);
+        }
+        if (maxFractionDigits < 0 || maxFractionDigits > MAX_FRACTION_DIGITS) {
+            throw new IllegalArgumentException("maxFractionDigits: " + maxFractionDigits);
+        }
+
+        // 与DecimalFormat一致，-0.0 和舍入为0的负数都显示负号
+        boolean negative = number < 0 || (number == 0 && 1 / number < 0);
+        double abs = Math.abs(number);
+
+        long scale = POW10[maxFractionDigits];
+        double scaled = abs * scale;
+        if (scaled < MAX_FAST) {
+            double floor = Math.floor(scaled);
+            double distanceToHalf = Math.abs(scaled - floor - 0.5);
+            // 乘法可能有半个ulp的误差，只有离舍入边界足够远时才能直接取整
+            if (maxFractionDigits == 0 || distanceToHalf > Math.ulp(scaled)) {
+                long rounded = (long) Math.rint(scaled);
+                return appendDigits(out, negative, rounded / scale, rounded % scale,
+                        maxFractionDigits, grouping);
+            }
+        }
+        return appendSlow(out, negative, abs, maxFractionDigits, grouping);
+    }
+
+    /**
+     * 快速路径：整数部分和小数部分都在long中
+     */
+    private StringBuilder appendDigits(StringBuilder out, boolean negative, long integer, long fraction,
+                                       int fractionDigits, boolean grouping) {
+        int pos = buffer.length;
+
+        // 小数部分，去掉末尾的0
+        while (fractionDigits > 0 && fraction % 10 == 0) {
+            fraction /= 10;
+            fractionDigits--;
+        }
+        if (fractionDigits > 0) {
+            for (int i = 0; i < fractionDigits; i++) {
+                buffer[--pos] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            buffer[--pos] = '.';
+        }
+
+        // 整数部分，从低位开始每三位插入分隔符
+        int count = 0;
+        do {
+            if (grouping && count > 0 && count % 3 == 0) {
+                buffer[--pos] = ',';
+            }
+            buffer[--pos] = (char) ('0' + integer % 10);
+            integer /= 10;
+            count++;
+        } while (integer > 0);
+
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        return out.append(buffer, pos, buffer.length - pos);
+    }
+
+    /**
+     * 精确路径：大数或紧邻舍入边界的值
+     *
+     * DecimalFormat按double的最短十进制表示取位，恰好处于两者中间时再按精确二进制值判断。
+     */
+    private StringBuilder appendSlow(StringBuilder out, boolean negative, double abs,
+                                     int fractionDigits, boolean grouping) {
+        BigDecimal shortest = new BigDecimal(Double.toString(abs));
+        BigDecimal rounded;
+        if (shortest.scale() == fractionDigits + 1
+                && shortest.unscaledValue().mod(BigDecimal.TEN.toBigInteger()).intValue() == 5) {
+            rounded = new BigDecimal(abs).setScale(fractionDigits, RoundingMode.HALF_EVEN);
+        } else {
+            rounded = shortest.setScale(fractionDigits, RoundingMode.HALF_EVEN);
+        }
+
+        String plain = rounded.toPlainString();
+        int dot = plain.indexOf('.');
+        int integerEnd = dot < 0 ? plain.length() : dot;
+        int fractionEnd = plain.length();
+        if (dot >= 0) {
+            while (fractionEnd > dot + 1 && plain.charAt(fractionEnd - 1) == '0') {
+                fractionEnd--;
+            }
+            if (fractionEnd == dot + 1) {
+                fractionEnd = dot;
+            }
+        }
+
+        if (negative) {
+            out.append('-');
+        }
+        for (int i = 0; i < integerEnd; i++) {
+            if (grouping && i > 0 && (integerEnd - i) % 3 == 0) {
+                out.append(',');
+            }
+            out.append(plain.charAt(i));
+        }
+        if (fractionEnd > integerEnd) {
+            out.append(plain, integerEnd, fractionEnd);
+        }
+        return out;
+    }
+}
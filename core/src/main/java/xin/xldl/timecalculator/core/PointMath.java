@@ -0,0 +1,44 @@
+package xin.xldl.timecalculator.core;
+
+/**
+ * 时间点推算
+ *
+ * 推算结果可能落在几百年之外，超出纪元纳秒的表示范围，
+ * 而推算时长本身按整秒截断，因此这里以纪元秒计算，秒内纳秒由调用方保留。
+ */
+public final class PointMath {
+
+    private PointMath() {
+    }
+
+    /**
+     * 将时长换算为秒数（不截断）
+     */
+    public static double toSeconds(double amount, int unit) {
+        return UnitConverter.convert(amount, unit, TimeUnits.SECOND);
+    }
+
+    /**
+     * 将时长换算为整秒偏移量（向零截断），超出范围时抛出 ArithmeticException
+     */
+    public static long offsetSeconds(double amount, int unit) {
+        double seconds = toSeconds(amount, unit);
+        if (Double.isNaN(seconds) || seconds >= 0x1p63 || seconds < -0x1p63) {
+            throw new ArithmeticException("时长超出范围");
+        }
+        return (long) seconds;
+    }
+
+    /**
+     * 计算新时间点的纪元秒
+     *
+     * @param baseEpochSecond 基准时间的纪元秒
+     * @param amount          时长数值
+     * @param unit            时长单位
+     * @param add             true=增加, false=减少
+     */
+    public static long projectSeconds(long baseEpochSecond, double amount, int unit, boolean add) {
+        long offset = offsetSeconds(amount, unit);
+        return add ? Math.addExact(baseEpochSecond, offset) : Math.subtractExact(baseEpochSecond, offset);
+    }
+}
@@ -0,0 +1,242 @@
+package xin.xldl.timecalculator.core;
+
+/**
+ * 以原始类型为键的LRU结果缓存
+ *
+ * 键由三个long组成，调用方把数值的位模式、单位索引、精度、纪元秒等打包进去，查找时不装箱、不分配对象。
+ * 容量固定，满了之后淘汰最久未使用的条目。所有方法都是线程安全的。
+ */
+public final class ResultCache<V> {
+
+    private static final int NONE = -1;
+
+    private final int capacity;
+
+    // 条目按槽位存放
+    private final long[] keyA;
+    private final long[] keyB;
+    private final long[] keyC;
+    private final int[] hashes;
+    private final Object[] values;
+    // 使用顺序的双向链表，head为最近使用；空闲槽位通过next串成链表
+    private final int[] prev;
+    private final int[] next;
+
+    // 开放寻址的散列表，元素为槽位+1，0表示空
+    private final int[] table;
+    private final int mask;
+
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    // 曾经使用过的槽位数
+    private int allocated;
+    private int size;
+
+    private long hits;
+    private long misses;
+
+    public ResultCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        keyA = new long[capacity];
+        keyB = new long[capacity];
+        keyC = new long[capacity];
+        hashes = new int[capacity];
+        values = new Object[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+
+        // 装载因子不超过1/2
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        table = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * 查找结果，命中时把条目移到最近使用
+     *
+     * @return 没有缓存时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long a, long b, long c) {
+        int index = find(a, b, c, hash(a, b, c));
+        if (index < 0) {
+            misses++;
+            return null;
+        }
+        hits++;
+        int slot = table[index] - 1;
+        moveToHead(slot);
+        return (V) values[slot];
+    }
+
+    /**
+     * 放入结果，已存在时替换；缓存已满时淘汰最久未使用的条目
+     */
+    public synchronized void put(long a, long b, long c, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        int hash = hash(a, b, c);
+        int index = find(a, b, c, hash);
+        if (index >= 0) {
+            int slot = table[index] - 1;
+            values[slot] = value;
+            moveToHead(slot);
+            return;
+        }
+
+        if (size == capacity) {
+            remove(tail);
+            // 删除会移动散列表中的元素，重新查找插入位置
+            index = find(a, b, c, hash);
+        }
+        int slot = allocateSlot();
+        keyA[slot] = a;
+        keyB[slot] = b;
+        keyC[slot] = c;
+        hashes[slot] = hash;
+        values[slot] = value;
+        table[~index] = slot + 1;
+        linkHead(slot);
+        size++;
+    }
+
+    /**
+     * 淘汰最久未使用的条目，直到不超过 maxSize 个
+     */
+    public synchronized void trimToSize(int maxSize) {
+        while (size > Math.max(0, maxSize)) {
+            remove(tail);
+        }
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    // ==================== 散列表 ====================
+
+    private static int hash(long a, long b, long c) {
+        long h = a * 0x9E3779B97F4A7C15L;
+        h = (h ^ b) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ c) * 0x165667B19E3779F9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 查找键所在的散列表位置
+     *
+     * @return 找到时返回位置；没有时返回 ~（可插入的空位置）
+     */
+    private int find(long a, long b, long c, int hash) {
+        int index = hash & mask;
+        while (true) {
+            int entry = table[index];
+            if (entry == 0) {
+                return ~index;
+            }
+            int slot = entry - 1;
+            if (hashes[slot] == hash && keyA[slot] == a && keyB[slot] == b && keyC[slot] == c) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除条目，并把后面同一探测序列中的元素前移，不留删除标记
+     */
+    private void remove(int slot) {
+        int index = find(keyA[slot], keyB[slot], keyC[slot], hashes[slot]);
+        int gap = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            int entry = table[current];
+            if (entry == 0) {
+                break;
+            }
+            int home = hashes[entry - 1] & mask;
+            // home 不在 (gap, current] 区间内时，元素可以前移到空位
+            boolean movable = gap <= current
+                    ? home <= gap || home > current
+                    : home <= gap && home > current;
+            if (movable) {
+                table[gap] = entry;
+                gap = current;
+            }
+        }
+        table[gap] = 0;
+
+        unlink(slot);
+        values[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    private int allocateSlot() {
+        if (free != NONE) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        return allocated++;
+    }
+
+    // ==================== 使用顺序 ====================
+
+    private void moveToHead(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkHead(slot);
+        }
+    }
+
+    private void linkHead(int slot) {
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        head = slot;
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+}
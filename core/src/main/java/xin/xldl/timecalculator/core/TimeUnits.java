@@ -0,0 +1,98 @@
+package xin.xldl.timecalculator.core;
+
+import java.util.Arrays;
+
+/**
+ * 时间单位定义
+ *
+ * 所有单位都以整数纳秒表示，月按30天、年按365天计算。
+ */
+public final class TimeUnits {
+
+    public static final int NANOSECOND = 0;
+    public static final int MICROSECOND = 1;
+    public static final int MILLISECOND = 2;
+    public static final int SECOND = 3;
+    public static final int MINUTE = 4;
+    public static final int HOUR = 5;
+    public static final int DAY = 6;
+    public static final int WEEK = 7;
+    public static final int MONTH = 8;
+    public static final int YEAR = 9;
+
+    /** 单位数量 */
+    public static final int COUNT = 10;
+
+    // 只出现在详细结果中的特殊单位，不在单位选择列表中
+    public static final int WORKDAY = 10;   // 工作日（8小时）
+    public static final int LEAP_YEAR = 11; // 闰年（366天）
+
+    /** 包括特殊单位的单位数量 */
+    public static final int EXTENDED_COUNT = 12;
+
+    public static final long NANOS_PER_MICRO = 1_000L;
+    public static final long NANOS_PER_MILLI = 1_000_000L;
+    public static final long NANOS_PER_SECOND = 1_000_000_000L;
+    public static final long NANOS_PER_MINUTE = 60 * NANOS_PER_SECOND;
+    public static final long NANOS_PER_HOUR = 60 * NANOS_PER_MINUTE;
+    public static final long NANOS_PER_DAY = 24 * NANOS_PER_HOUR;
+
+    // 单位名称
+    private static final String[] NAMES = {
+            "纳秒", "微秒", "毫秒", "秒", "分钟", "小时", "天", "周", "月", "年", "工作日", "闰年天数"
+    };
+
+    // 每个单位对应的纳秒数
+    static final long[] NANOS_PER_UNIT = {
+            1L,                   // 纳秒
+            NANOS_PER_MICRO,      // 微秒
+            NANOS_PER_MILLI,      // 毫秒
+            NANOS_PER_SECOND,     // 秒
+            NANOS_PER_MINUTE,     // 分钟
+            NANOS_PER_HOUR,       // 小时
+            NANOS_PER_DAY,        // 天
+            7 * NANOS_PER_DAY,    // 周
+            30 * NANOS_PER_DAY,   // 月（30天）
+            365 * NANOS_PER_DAY,  // 年（365天）
+            8 * NANOS_PER_HOUR,   // 工作日（8小时）
+            366 * NANOS_PER_DAY   // 闰年（366天）
+    };
+
+    private TimeUnits() {
+    }
+
+    /**
+     * 获取单位名称
+     */
+    public static String name(int unit) {
+        return NAMES[unit];
+    }
+
+    /**
+     * 按名称查找单位（只用于迁移旧版按名称保存的记录）
+     *
+     * @return 单位索引，找不到时为 -1
+     */
+    public static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取所有可选单位的名称（不含特殊单位，返回副本）
+     */
+    public static String[] names() {
+        return Arrays.copyOf(NAMES, COUNT);
+    }
+
+    /**
+     * 获取单位对应的纳秒数
+     */
+    public static long nanosPerUnit(int unit) {
+        return NANOS_PER_UNIT[unit];
+    }
+}
@@ -0,0 +1,247 @@
+package xin.xldl.timecalculator.core;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * 时间单位换算
+ *
+ * 无状态，单位索引见 {@link TimeUnits}，包括工作日、闰年两个特殊单位。
+ * 每对单位的换算比例由整数纳秒表约分得到精确有理数 NUM/DEN：
+ * 整数输入先在long中精确相乘，再做一次正确舍入的除法；
+ * 只有乘积溢出或超出double精确整数范围时才退回 BigDecimal；小数输入的乘积溢出时同样如此。
+ */
+public final class UnitConverter {
+
+    // double可精确表示的最大整数
+    private static final long MAX_EXACT = 1L << 53;
+
+    // 溢出时的计算精度，远高于double的17位有效数字，保证最终舍入正确
+    private static final MathContext FALLBACK_CONTEXT = new MathContext(40);
+
+    private static final int N = TimeUnits.EXTENDED_COUNT;
+
+    // 换算矩阵：约分后的换算比例，包括特殊单位，下标为 fromUnit * N + toUnit
+    private static final long[] NUM = new long[N * N];
+    private static final long[] DEN = new long[N * N];
+    // 乘以NUM不溢出的最大绝对值
+    private static final long[] LIMIT = new long[N * N];
+
+    static {
+        for (int from = 0; from < N; from++) {
+            for (int to = 0; to < N; to++) {
+                long a = TimeUnits.NANOS_PER_UNIT[from];
+                long b = TimeUnits.NANOS_PER_UNIT[to];
+                long g = gcd(a, b);
+                int index = from * N + to;
+                NUM[index] = a / g;
+                DEN[index] = b / g;
+                LIMIT[index] = Long.MAX_VALUE / NUM[index];
+            }
+        }
+    }
+
+    private UnitConverter() {
+    }
+
+    /**
+     * 单位换算计算
+     *
+     * 整数输入的结果是精确值的正确舍入；小数输入在比例为整数或整数分之一时同样只舍入一次，
+     * 其余情况（如周换算为月 7/30）先乘后除，误差不超过1ulp；乘积溢出而结果有限时退回 BigDecimal。
+     * 结果与平台无关、可逐位复现。
+     */
+    public static double convert(double value, int fromUnit, int toUnit) {
+        if (Math.abs(value) < 0x1p63) {
+            long integral = (long) value;
+            if (integral == value) {
+                return convert(integral, fromUnit, toUnit);
+            }
+        }
+
+        int index = fromUnit * N + toUnit;
+        long num = NUM[index];
+        long den = DEN[index];
+        if (den == 1) {
+            return value * num;
+        }
+        if (num == 1) {
+            return value / den;
+        }
+        return scale(value, num, den);
+    }
+
+    /**
+     * 整数数值的单位换算，结果为精确值的正确舍入
+     */
+    public static double convert(long value, int fromUnit, int toUnit) {
+        int index = fromUnit * N + toUnit;
+        return convertExact(value, NUM[index], DEN[index], LIMIT[index]);
+    }
+
+    /**
+     * 把一个数值换算为所有单位（包括特殊单位），out[toUnit] 为换算结果
+     *
+     * 只扫描换算矩阵的一行，结果与逐个调用 {@link #convert(double, int, int)} 完全相同。
+     *
+     * @param out 长度至少为 {@link TimeUnits#EXTENDED_COUNT}
+     */
+    public static void convertToAll(double value, int fromUnit, double[] out) {
+        checkRange(out.length, 0, N);
+        int row = fromUnit * N;
+        long integral = (long) value;
+        if (integral == value && Math.abs(value) < 0x1p63) {
+            for (int to = 0; to < N; to++) {
+                out[to] = convertExact(integral, NUM[row + to], DEN[row + to], LIMIT[row + to]);
+            }
+            return;
+        }
+        for (int to = 0; to < N; to++) {
+            long num = NUM[row + to];
+            long den = DEN[row + to];
+            out[to] = den == 1 ? value * num : num == 1 ? value / den : scale(value, num, den);
+        }
+    }
+
+    /**
+     * 批量换算 values 中的所有数值，结果写入 out（可以与 values 是同一个数组）
+     *
+     * 结果与逐个调用 {@link #convert(double, int, int)} 完全相同，不分配对象。
+     */
+    public static void convert(double[] values, int fromUnit, int toUnit, double[] out) {
+        convert(values, 0, values.length, fromUnit, toUnit, out, 0);
+    }
+
+    /**
+     * 批量换算 values[offset, offset + length)，结果写入 out[outOffset, outOffset + length)
+     *
+     * @throws IndexOutOfBoundsException 范围超出数组
+     */
+    public static void convert(double[] values, int offset, int length, int fromUnit, int toUnit,
+                               double[] out, int outOffset) {
+        checkRange(values.length, offset, length);
+        checkRange(out.length, outOffset, length);
+        int index = fromUnit * N + toUnit;
+        long num = NUM[index];
+        long den = DEN[index];
+
+        // 比例为整数或整数分之一时，一次double乘除即是正确舍入，与整数路径结果相同；
+        // 只有 -0.0 在整数路径中得到 +0.0，需要单独处理
+        if (den == 1) {
+            double factor = num;
+            for (int i = 0; i < length; i++) {
+                double value = values[offset + i];
+                out[outOffset + i] = value == 0 ? 0.0 : value * factor;
+            }
+        } else if (num == 1) {
+            double divisor = den;
+            for (int i = 0; i < length; i++) {
+                double value = values[offset + i];
+                out[outOffset + i] = value == 0 ? 0.0 : value / divisor;
+            }
+        } else {
+            long limit = LIMIT[index];
+            for (int i = 0; i < length; i++) {
+                double value = values[offset + i];
+                long integral = (long) value;
+                out[outOffset + i] = integral == value && Math.abs(value) < 0x1p63
+                        ? convertExact(integral, num, den, limit)
+                        : scale(value, num, den);
+            }
+        }
+    }
+
+    /**
+     * 批量换算整数数值，结果写入 out
+     *
+     * 结果与逐个调用 {@link #convert(long, int, int)} 完全相同，不分配对象（溢出退回 BigDecimal 时除外）。
+     */
+    public static void convert(long[] values, int fromUnit, int toUnit, double[] out) {
+        convert(values, 0, values.length, fromUnit, toUnit, out, 0);
+    }
+
+    /**
+     * 批量换算 values[offset, offset + length)，结果写入 out[outOffset, outOffset + length)
+     *
+     * @throws IndexOutOfBoundsException 范围超出数组
+     */
+    public static void convert(long[] values, int offset, int length, int fromUnit, int toUnit,
+                               double[] out, int outOffset) {
+        checkRange(values.length, offset, length);
+        checkRange(out.length, outOffset, length);
+        int index = fromUnit * N + toUnit;
+        long num = NUM[index];
+        long den = DEN[index];
+        long limit = LIMIT[index];
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = convertExact(values[offset + i], num, den, limit);
+        }
+    }
+
+    /**
+     * 将整数数值换算为纳秒，溢出时抛出 ArithmeticException
+     */
+    public static long toNanos(long value, int unit) {
+        return Math.multiplyExact(value, TimeUnits.NANOS_PER_UNIT[unit]);
+    }
+
+    /**
+     * 将纳秒换算为指定单位（向零截断）
+     */
+    public static long fromNanos(long nanos, int unit) {
+        return nanos / TimeUnits.NANOS_PER_UNIT[unit];
+    }
+
+    private static double convertExact(long value, long num, long den, long limit) {
+        // long快速路径：乘积不溢出且位于double精确整数范围内
+        if (value <= limit && value >= -limit) {
+            long product = value * num;
+            if (den == 1) {
+                return product;
+            }
+            if (product > -MAX_EXACT && product < MAX_EXACT) {
+                return (double) product / den;
+            }
+            if (product % den == 0) {
+                return product / den;
+            }
+        }
+        return convertBig(value, num, den);
+    }
+
+    /**
+     * 溢出时的精确计算
+     */
+    private static double convertBig(long value, long num, long den) {
+        BigDecimal product = BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(num));
+        return product.divide(BigDecimal.valueOf(den), FALLBACK_CONTEXT).doubleValue();
+    }
+
+    /**
+     * 小数乘以比例 num/den，先乘后除；乘积溢出为无穷大而结果有限时用 BigDecimal 计算
+     */
+    private static double scale(double value, long num, long den) {
+        double product = value * num;
+        if (Double.isInfinite(product) && !Double.isInfinite(value)) {
+            return new BigDecimal(value).multiply(BigDecimal.valueOf(num))
+                    .divide(BigDecimal.valueOf(den), FALLBACK_CONTEXT).doubleValue();
+        }
+        return product / den;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + ", length " + length + ", array length " + arrayLength);
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,60 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DateTimeRendererTest {
+
+    @Test
+    public void rendersChineseDayPeriod() {
+        DateTimeRenderer renderer = DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, false);
+        assertEquals("yyyy年MM月dd日 hh:mm:ss a", renderer.pattern());
+        assertEquals("2023年10月01日 12:05:09 上午", renderer.format(2023, 10, 1, 0, 5, 9));
+        assertEquals("2023年10月01日 12:00:00 下午", renderer.format(2023, 10, 1, 12, 0, 0));
+    }
+
+    @Test
+    public void cachedPerPatternLocaleAndClock() {
+        DateTimeRenderer a = DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, true);
+        assertSame(a, DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, true));
+        assertNotSame(a, DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, false));
+        assertEquals("hh:mm:ss a", DateTimeRenderer.of(DateTimeRenderer.TIME_PATTERN, Locale.CHINA, false).pattern());
+        // 日期模式不含小时，12小时制下保持不变
+        assertEquals(DateTimeRenderer.DATE_PATTERN,
+                DateTimeRenderer.of(DateTimeRenderer.DATE_PATTERN, Locale.CHINA, false).pattern());
+    }
+
+    @Test
+    public void matchesDateTimeFormatterWithReplacement() {
+        DateTimeFormatter full24 = DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA);
+        DateTimeFormatter full12 = DateTimeFormatter.ofPattern("yyyy年MM月dd日 hh:mm:ss a", Locale.ENGLISH);
+        DateTimeRenderer renderer24 = DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, true);
+        DateTimeRenderer renderer12 = DateTimeRenderer.of(DateTimeRenderer.FULL_PATTERN, Locale.CHINA, false);
+
+        Random random = new Random(7);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime t = LocalDateTime.of(1900 + random.nextInt(300), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+            out.setLength(0);
+            renderer24.appendTo(out, t.getYear(), t.getMonthValue(), t.getDayOfMonth(),
+                    t.getHour(), t.getMinute(), t.getSecond());
+            assertEquals(t.format(full24), out.toString());
+            assertEquals(t.format(full12).replace("AM", "上午").replace("PM", "下午"),
+                    renderer12.format(t.getYear(), t.getMonthValue(), t.getDayOfMonth(),
+                            t.getHour(), t.getMinute(), t.getSecond()));
+        }
+    }
+
+    @Test
+    public void quotedLiterals() {
+        DateTimeRenderer renderer = DateTimeRenderer.of("'at' HH'h'''", Locale.ENGLISH, true);
+        assertEquals("at 07h'", renderer.format(2000, 1, 1, 7, 0, 0));
+    }
+}
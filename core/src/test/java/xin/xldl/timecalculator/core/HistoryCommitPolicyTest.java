@@ -0,0 +1,102 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistoryCommitPolicyTest {
+
+    @Test
+    public void keystrokesCollapseIntoOneCommit() {
+        HistoryCommitPolicy policy = new HistoryCommitPolicy(60_000);
+        // 输入 "1234" 的每一次重新计算
+        for (double value : new double[]{1, 12, 123, 1234}) {
+            policy.offer(TimeUnits.WEEK, TimeUnits.DAY, 1, value, value * 7);
+        }
+        assertTrue(policy.hasPending());
+
+        assertEquals(HistoryCommitPolicy.APPEND, policy.commit(1000));
+        assertEquals(1234, policy.fromValue(), 0);
+        assertEquals(8638, policy.toValue(), 0);
+        assertEquals(1000, policy.timestamp());
+        assertFalse(policy.hasPending());
+
+        // 没有新结果时，再次触发不写入
+        assertEquals(HistoryCommitPolicy.NONE, policy.commit(2000));
+        assertEquals(4, policy.offered());
+        assertEquals(1, policy.appended());
+    }
+
+    @Test
+    public void samePairWithinWindowReplaces() {
+        HistoryCommitPolicy policy = new HistoryCommitPolicy(60_000);
+        policy.offer(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 1, 60);
+        assertEquals(HistoryCommitPolicy.APPEND, policy.commit(0));
+
+        policy.offer(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 2, 120);
+        assertEquals(HistoryCommitPolicy.REPLACE, policy.commit(30_000));
+
+        // 时间窗从上一次提交算起
+        policy.offer(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 3, 180);
+        assertEquals(HistoryCommitPolicy.REPLACE, policy.commit(80_000));
+
+        policy.offer(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 4, 240);
+        assertEquals(HistoryCommitPolicy.APPEND, policy.commit(200_000));
+        assertEquals(2, policy.replaced());
+    }
+
+    @Test
+    public void differentPairAppends() {
+        HistoryCommitPolicy policy = new HistoryCommitPolicy(60_000);
+        policy.offer(TimeUnits.HOUR, TimeUnits.MINUTE, 1, 1, 60);
+        policy.commit(0);
+
+        // 交换单位
+        policy.offer(TimeUnits.MINUTE, TimeUnits.HOUR, 1, 60, 1);
+        assertEquals(HistoryCommitPolicy.APPEND, policy.commit(1));
+        assertEquals(TimeUnits.MINUTE, policy.fromUnit());
+        assertEquals(TimeUnits.HOUR, policy.toUnit());
+    }
+
+    @Test
+    public void identicalResultIsSkipped() {
+        HistoryCommitPolicy policy = new HistoryCommitPolicy(60_000);
+        policy.offer(TimeUnits.DAY, TimeUnits.HOUR, 1, 2, 48);
+        policy.commit(0);
+
+        policy.offer(TimeUnits.DAY, TimeUnits.HOUR, 1, 2, 48);
+        assertEquals(HistoryCommitPolicy.NONE, policy.commit(30_000));
+
+        // 精度不同时覆盖
+        policy.offer(TimeUnits.DAY, TimeUnits.HOUR, 2, 2, 48);
+        assertEquals(HistoryCommitPolicy.REPLACE, policy.commit(30_001));
+    }
+
+    @Test
+    public void restoredRecordIsNotRepeated() {
+        HistoryCommitPolicy policy = new HistoryCommitPolicy(60_000);
+        policy.restore(TimeUnits.WEEK, TimeUnits.DAY, 1, 1, 7, 0);
+
+        // 打开界面时恢复上次的输入
+        policy.offer(TimeUnits.WEEK, TimeUnits.DAY, 1, 1, 7);
+        assertEquals(HistoryCommitPolicy.NONE, policy.commit(1_000_000));
+
+        policy.offer(TimeUnits.WEEK, TimeUnits.DAY, 1, 2, 14);
+        assertEquals(HistoryCommitPolicy.APPEND, policy.commit(1_000_001));
+    }
+
+    @Test
+    public void discardAndReset() {
+        HistoryCommitPolicy policy = new HistoryCommitPolicy(60_000);
+        policy.offer(TimeUnits.DAY, TimeUnits.HOUR, 1, 2, 48);
+        policy.discard();
+        assertEquals(HistoryCommitPolicy.NONE, policy.commit(0));
+
+        policy.offer(TimeUnits.DAY, TimeUnits.HOUR, 1, 2, 48);
+        policy.commit(0);
+        policy.reset();
+        // 清空历史后不能覆盖已不存在的记录
+        policy.offer(TimeUnits.DAY, TimeUnits.HOUR, 1, 3, 72);
+        assertEquals(HistoryCommitPolicy.APPEND, policy.commit(1));
+    }
+}
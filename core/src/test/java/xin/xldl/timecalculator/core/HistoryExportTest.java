@@ -0,0 +1,191 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HistoryExportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 读取器不关闭通道，测试结束时统一关闭
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    @After
+    public void closeChannels() throws IOException {
+        for (FileChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    private File export(int format, boolean gzip, int n, int bufferSize) throws IOException {
+        File path = new File(folder.getRoot(), "history" + HistoryExport.extension(format, gzip));
+        try (FileChannel channel = FileChannel.open(path.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             HistoryExport.Writer writer = new HistoryExport.Writer(channel, format, gzip, bufferSize)) {
+            for (int i = 0; i < n; i++) {
+                writer.write(i % TimeUnits.COUNT, TimeUnits.SECOND, i % 3, i * 0.1, -i / 3.0, 1_700_000_000_000L + i);
+            }
+            assertEquals(n, writer.count());
+        }
+        return path;
+    }
+
+    private HistoryExport.Reader open(File path, int bufferSize) throws IOException {
+        FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.READ);
+        channels.add(channel);
+        return new HistoryExport.Reader(channel, bufferSize);
+    }
+
+    private void assertRoundTrip(int format, boolean gzip) throws IOException {
+        int n = 20_000;
+        // 小缓冲区，让记录跨越缓冲区边界
+        File path = export(format, gzip, n, 1000);
+        try (HistoryExport.Reader reader = open(path, 1000)) {
+            for (int i = 0; i < n; i++) {
+                assertTrue(reader.next());
+                assertEquals(i % TimeUnits.COUNT, reader.fromUnit());
+                assertEquals(TimeUnits.SECOND, reader.toUnit());
+                assertEquals(i % 3, reader.precision());
+                assertEquals(i * 0.1, reader.fromValue(), 0);
+                assertEquals(-i / 3.0, reader.toValue(), 0);
+                assertEquals(1_700_000_000_000L + i, reader.epochMillis());
+            }
+            assertFalse(reader.next());
+            assertEquals(n, reader.count());
+            assertEquals(0, reader.skipped());
+        }
+    }
+
+    @Test
+    public void csvRoundTrip() throws IOException {
+        assertRoundTrip(HistoryExport.CSV, false);
+    }
+
+    @Test
+    public void jsonLinesRoundTrip() throws IOException {
+        assertRoundTrip(HistoryExport.JSON_LINES, false);
+    }
+
+    @Test
+    public void gzipRoundTrip() throws IOException {
+        assertRoundTrip(HistoryExport.CSV, true);
+        assertRoundTrip(HistoryExport.JSON_LINES, true);
+    }
+
+    @Test
+    public void csvIsReadableText() throws IOException {
+        File path = export(HistoryExport.CSV, false, 2, 64);
+        String text = new String(Files.readAllBytes(path.toPath()), StandardCharsets.UTF_8);
+        assertEquals("\uFEFFcreated_at,from_unit,to_unit,precision,from_value,to_value\n"
+                + "1700000000000,纳秒,秒,0,0.0,0.0\n"
+                + "1700000000001,微秒,秒,1,0.1,-0.3333333333333333\n", text);
+    }
+
+    @Test
+    public void nonFiniteValuesInJson() throws IOException {
+        File path = new File(folder.getRoot(), "special.jsonl");
+        try (FileChannel channel = FileChannel.open(path.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             HistoryExport.Writer writer = new HistoryExport.Writer(channel, HistoryExport.JSON_LINES, false)) {
+            writer.write(TimeUnits.YEAR, TimeUnits.NANOSECOND, 0, 1e300, Double.POSITIVE_INFINITY, 1);
+        }
+        String text = new String(Files.readAllBytes(path.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.contains("\"to_value\":\"Infinity\""));
+
+        try (HistoryExport.Reader reader = open(path, 256)) {
+            assertTrue(reader.next());
+            assertEquals(1e300, reader.fromValue(), 0);
+            assertEquals(Double.POSITIVE_INFINITY, reader.toValue(), 0);
+        }
+    }
+
+    @Test
+    public void readsHandEditedFiles() throws IOException {
+        File path = new File(folder.getRoot(), "edited.txt");
+        String text = "created_at,from_unit,to_unit,precision,from_value,to_value\r\n"
+                + "100,\"周\",天,1,1,7\r\n"
+                + "\r\n"
+                + "101,7,6,1,2,14\r\n"
+                + "bad line\n"
+                + "102,光年,天,1,1,7\n"
+                + "103,周,天,9,1,7\n"
+                + "103,周,天,4294967297,1,7\n"
+                + "9999999999999999999,周,天,1,1,7\n"
+                + "{ \"to_value\": 21, \"from_value\": 3, \"precision\": 2, \"from_unit\": \"\\u5468\","
+                + " \"to_unit\": \"天\", \"note\": \"手动\\\"添加\\\"\", \"created_at\": 104 }\n"
+                + "{\"created_at\":105,\"from_unit\":\"周\"}\n"
+                + "{\"created_at\":105,\"from_unit\":\"周\",\"to_unit\":\"天\",\"precision\":4294967297,"
+                + "\"from_value\":1,\"to_value\":7}\n"
+                + "106,小时,分钟,0,1.5,90";
+        Files.write(path.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        try (HistoryExport.Reader reader = open(path, 256)) {
+            assertTrue(reader.next());
+            assertEquals(100, reader.epochMillis());
+            assertEquals(TimeUnits.WEEK, reader.fromUnit());
+            assertTrue(reader.next());
+            assertEquals(TimeUnits.DAY, reader.toUnit());
+            assertEquals(14, reader.toValue(), 0);
+            assertTrue(reader.next());
+            assertEquals(104, reader.epochMillis());
+            assertEquals(TimeUnits.WEEK, reader.fromUnit());
+            assertEquals(21, reader.toValue(), 0);
+            // 最后一行没有换行符
+            assertTrue(reader.next());
+            assertEquals(106, reader.epochMillis());
+            assertEquals(90, reader.toValue(), 0);
+            assertFalse(reader.next());
+            assertEquals(4, reader.count());
+            assertEquals(7, reader.skipped());
+        }
+    }
+
+    @Test
+    public void rejectsTimestampsBeyondLong() throws IOException {
+        File path = new File(folder.getRoot(), "overflow.csv");
+        String text = "9223372036854775808,周,天,1,1,7\n"
+                + "{\"created_at\":-9999999999999999999,\"from_unit\":\"周\",\"to_unit\":\"天\","
+                + "\"precision\":1,\"from_value\":1,\"to_value\":7}\n"
+                + "9223372036854775807,周,天,1,1,7\n";
+        Files.write(path.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        try (HistoryExport.Reader reader = open(path, 256)) {
+            assertTrue(reader.next());
+            assertEquals(Long.MAX_VALUE, reader.epochMillis());
+            assertFalse(reader.next());
+            assertEquals(2, reader.skipped());
+        }
+    }
+
+    @Test
+    public void skipsLinesLongerThanBuffer() throws IOException {
+        File path = new File(folder.getRoot(), "long.csv");
+        StringBuilder text = new StringBuilder("1,周,天,1,1,7\n");
+        for (int i = 0; i < 500; i++) {
+            text.append('x');
+        }
+        text.append("\n2,周,天,1,2,14\n");
+        Files.write(path.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+        try (HistoryExport.Reader reader = open(path, 64)) {
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertEquals(2, reader.epochMillis());
+            assertFalse(reader.next());
+            assertEquals(1, reader.skipped());
+        }
+    }
+}
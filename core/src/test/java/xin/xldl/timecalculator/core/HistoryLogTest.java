@@ -0,0 +1,100 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class HistoryLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsRecordsWrittenByOldVersion() throws IOException {
+        ByteBuffer content = header(2, 2);
+        record(content, TimeUnits.WEEK, TimeUnits.DAY, NumberFormatter.PRECISION_MEDIUM, 1.5, 10.5, 1_700_000_000_000L);
+        record(content, TimeUnits.HOUR, TimeUnits.SECOND, NumberFormatter.PRECISION_HIGH, -2, -7200, 1_700_000_001_000L);
+        File path = write(content);
+
+        try (HistoryLog log = new HistoryLog(path)) {
+            assertEquals(2, log.size());
+            assertEquals(TimeUnits.WEEK, log.fromUnit(0));
+            assertEquals(TimeUnits.DAY, log.toUnit(0));
+            assertEquals(NumberFormatter.PRECISION_MEDIUM, log.precision(0));
+            assertEquals(1.5, log.fromValue(0), 0);
+            assertEquals(10.5, log.toValue(0), 0);
+            assertEquals(1_700_000_000_000L, log.timestamp(0));
+            assertEquals(TimeUnits.HOUR, log.fromUnit(1));
+            assertEquals(-7200, log.toValue(1), 0);
+            assertEquals(1_700_000_001_000L, log.timestamp(1));
+        }
+    }
+
+    @Test
+    public void ignoresUnusedMappedSpace() throws IOException {
+        // 旧版按1024条预先映射文件，计数之后的空间不是记录
+        ByteBuffer content = header(1, 1024);
+        record(content, TimeUnits.MINUTE, TimeUnits.SECOND, 0, 1, 60, 5);
+        File path = write(content);
+
+        try (HistoryLog log = new HistoryLog(path)) {
+            assertEquals(1, log.size());
+            assertEquals(60, log.toValue(0), 0);
+            try {
+                log.fromValue(1);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+                // 只能读取有效记录
+            }
+        }
+    }
+
+    @Test
+    public void emptyFileHasNoRecords() throws IOException {
+        try (HistoryLog log = new HistoryLog(folder.newFile("empty.log"))) {
+            assertEquals(0, log.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCountBeyondFile() throws IOException {
+        new HistoryLog(write(header(3, 2))).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        File path = folder.newFile("other.bin");
+        Files.write(path.toPath(), new byte[64]);
+        new HistoryLog(path).close();
+    }
+
+    /**
+     * 按旧版格式写出文件头，文件大小为 capacity 条记录
+     */
+    static ByteBuffer header(long count, int capacity) {
+        ByteBuffer content = ByteBuffer.allocate(HistoryLog.HEADER_SIZE + capacity * HistoryLog.RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        content.putInt(HistoryLog.MAGIC).putShort((short) 1).putShort((short) HistoryLog.RECORD_SIZE).putLong(count);
+        return content;
+    }
+
+    static void record(ByteBuffer content, int fromUnit, int toUnit, int precision,
+                       double fromValue, double toValue, long epochMillis) {
+        content.put((byte) fromUnit).put((byte) toUnit).put((byte) precision).put(new byte[5])
+                .putDouble(fromValue).putDouble(toValue).putLong(epochMillis);
+    }
+
+    private File write(ByteBuffer content) throws IOException {
+        File path = new File(folder.getRoot(), "history.log");
+        Files.write(path.toPath(), content.array());
+        return path;
+    }
+}
@@ -0,0 +1,142 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistorySearchIndexTest {
+
+    // 2024-05-15，周三
+    private static final long TODAY = IsoDateTime.epochDay(2024, 5, 15);
+
+    private static int units(int... units) {
+        int mask = 0;
+        for (int unit : units) {
+            mask |= 1 << unit;
+        }
+        return mask;
+    }
+
+    private static long[] search(HistorySearchIndex index, String text, int limit) {
+        long[] out = new long[limit];
+        int count = index.search(HistorySearchIndex.Query.parse(text, TODAY), out);
+        long[] result = new long[count];
+        System.arraycopy(out, 0, result, 0, count);
+        return result;
+    }
+
+    private static HistorySearchIndex sample() {
+        HistorySearchIndex index = new HistorySearchIndex();
+        // 上周一、上周日、本周一、今天（周三）
+        index.add(1, 1, TODAY - 9, units(TimeUnits.NANOSECOND, TimeUnits.SECOND), "1,000,000,000", "1");
+        index.add(2, 2, TODAY - 3, units(TimeUnits.NANOSECOND, TimeUnits.MILLISECOND), "2500000", "2.5");
+        index.add(3, 3, TODAY - 2, units(TimeUnits.WEEK, TimeUnits.DAY), "1", "7");
+        index.add(4, 4, TODAY, units(TimeUnits.HOUR, TimeUnits.MINUTE), "1.5", "90");
+        return index;
+    }
+
+    @Test
+    public void unitsValuesAndDates() {
+        HistorySearchIndex index = sample();
+
+        assertArrayEquals(new long[]{2, 1}, search(index, "纳秒", 10));
+        assertArrayEquals(new long[]{2, 1}, search(index, "上周的纳秒换算", 10));
+        assertArrayEquals(new long[]{4, 3}, search(index, "本周", 10));
+        assertArrayEquals(new long[]{4}, search(index, "今天", 10));
+
+        // 数值按前缀匹配，千位分隔符被忽略，最新的在前
+        assertArrayEquals(new long[]{4, 3, 1}, search(index, "1", 10));
+        assertArrayEquals(new long[]{4, 3}, search(index, "1", 2));
+        assertArrayEquals(new long[]{4}, search(index, "1.", 10));
+        assertArrayEquals(new long[]{1}, search(index, "1,000", 10));
+        assertArrayEquals(new long[]{3}, search(index, "7天", 10));
+
+        // 缩写和日期
+        assertArrayEquals(new long[]{2}, search(index, "ms", 10));
+        assertArrayEquals(new long[]{4}, search(index, "2024-05-15 min", 10));
+        assertArrayEquals(new long[]{4, 3, 2, 1}, search(index, "2024/5", 10));
+        assertEquals(0, search(index, "2024-04", 10).length);
+        assertEquals(0, search(index, "年", 10).length);
+    }
+
+    @Test
+    public void longValuesAreVerified() {
+        HistorySearchIndex index = new HistorySearchIndex();
+        index.add(1, 1, TODAY, 0, "123456");
+        index.add(2, 2, TODAY, 0, "123499");
+        index.add(3, 3, TODAY, 0, "-123456.5");
+
+        // 前4个字符相同，超出的部分逐条比较
+        assertArrayEquals(new long[]{2, 1}, search(index, "1234", 10));
+        assertArrayEquals(new long[]{1}, search(index, "12345", 10));
+        assertArrayEquals(new long[]{3}, search(index, "-123456.", 10));
+        assertEquals(0, search(index, "1234567", 10).length);
+    }
+
+    @Test
+    public void replaceLastAndClear() {
+        HistorySearchIndex index = sample();
+        index.replaceLast(4, 4, TODAY, units(TimeUnits.HOUR, TimeUnits.MINUTE), "0.5", "30");
+        assertArrayEquals(new long[]{3, 1}, search(index, "1", 10));
+        assertArrayEquals(new long[]{4}, search(index, "30", 10));
+        assertEquals(4, index.size());
+
+        // 行号不是最新一条时追加
+        index.replaceLast(5, 5, TODAY, units(TimeUnits.YEAR), "1");
+        assertArrayEquals(new long[]{5, 3, 1}, search(index, "1", 10));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, search(index, "1", 10).length);
+        index.add(1, 1, TODAY, 0, "1");
+        assertArrayEquals(new long[]{1}, search(index, "1", 10));
+    }
+
+    @Test
+    public void ordersByTimeThenRowId() {
+        HistorySearchIndex index = new HistorySearchIndex();
+        // 导入的旧记录行号较大，时间较早
+        index.add(7, 100, TODAY - 1, 0, "1");
+        index.add(8, 100, TODAY - 1, 0, "1");
+        index.add(2, 200, TODAY, 0, "1");
+        assertArrayEquals(new long[]{2, 8, 7}, search(index, "1", 10));
+        assertArrayEquals(new long[]{2, 8}, search(index, "1", 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rowIdsMustIncreaseWithinSameTime() {
+        HistorySearchIndex index = sample();
+        index.add(4, 4, TODAY, 0, "1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timesMustNotDecrease() {
+        HistorySearchIndex index = sample();
+        index.add(9, 3, TODAY, 0, "1");
+    }
+
+    @Test
+    public void queryParsing() {
+        assertTrue(HistorySearchIndex.Query.parse("的换算记录", TODAY).isEmpty());
+        assertTrue(HistorySearchIndex.Query.parse("", TODAY).isEmpty());
+
+        HistorySearchIndex.Query lastMonth = HistorySearchIndex.Query.parse("上个月", TODAY);
+        assertEquals(IsoDateTime.epochDay(2024, 4, 1), lastMonth.fromDay);
+        assertEquals(IsoDateTime.epochDay(2024, 4, 30), lastMonth.toDay);
+
+        HistorySearchIndex.Query lastYear = HistorySearchIndex.Query.parse("去年", TODAY);
+        assertEquals(IsoDateTime.epochDay(2023, 1, 1), lastYear.fromDay);
+        assertEquals(IsoDateTime.epochDay(2023, 12, 31), lastYear.toDay);
+
+        // 字母缩写必须是完整的词
+        assertEquals(1 << TimeUnits.MINUTE, HistorySearchIndex.Query.parse("min", TODAY).unitMask);
+        assertEquals(0, HistorySearchIndex.Query.parse("sec", TODAY).unitMask);
+        assertEquals(1 << TimeUnits.NANOSECOND, HistorySearchIndex.Query.parse("纳秒", TODAY).unitMask);
+
+        // 无效日期按数值处理
+        HistorySearchIndex.Query invalid = HistorySearchIndex.Query.parse("2024-13", TODAY);
+        assertEquals(2, invalid.values.length);
+        assertEquals("2024", new String(invalid.values[0]));
+        assertEquals("13", new String(invalid.values[1]));
+    }
+}
@@ -0,0 +1,43 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntervalMathTest {
+
+    @Test
+    public void breakdownMatchesExample() {
+        // 2023-10-01 09:30:00 -> 2023-10-02 14:45:30
+        long start = IntervalMath.epochNanos(1696152600L, 0);
+        long end = IntervalMath.epochNanos(1696257930L, 0);
+        long duration = IntervalMath.between(start, end);
+
+        assertEquals(1, IntervalMath.totalDays(duration));
+        assertEquals(5, IntervalMath.hoursPart(duration));
+        assertEquals(15, IntervalMath.minutesPart(duration));
+        assertEquals(30, IntervalMath.secondsPart(duration));
+        assertEquals(0, IntervalMath.millisPart(duration));
+        assertEquals(29, IntervalMath.totalHours(duration));
+        assertEquals(105_330_000L, IntervalMath.totalMillis(duration));
+    }
+
+    @Test
+    public void negativeIntervalAbs() {
+        long duration = IntervalMath.between(5 * TimeUnits.NANOS_PER_SECOND, 0);
+        assertTrue(duration < 0);
+        assertEquals(5, IntervalMath.totalSeconds(IntervalMath.abs(duration)));
+    }
+
+    @Test
+    public void projectionTruncatesToWholeSeconds() {
+        assertEquals(1090, PointMath.projectSeconds(1000, 1.5, TimeUnits.MINUTE, true));
+        assertEquals(1000 - 3600, PointMath.projectSeconds(1000, 1, TimeUnits.HOUR, false));
+        assertEquals(1000, PointMath.projectSeconds(1000, 0.9, TimeUnits.SECOND, true));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void projectionOverflowThrows() {
+        PointMath.projectSeconds(0, 1e300, TimeUnits.YEAR, true);
+    }
+}
@@ -0,0 +1,82 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IoGuardTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final IoViolations violations = new IoViolations("xin.xldl.timecalculator.");
+
+    @After
+    public void unguard() {
+        IoGuard.unguard();
+    }
+
+    @Test
+    public void reportsDiskAccessOnGuardedThread() throws Exception {
+        IoGuard.guard(Thread.currentThread(), violations);
+        File path = folder.newFile("history.log");
+
+        new HistoryLog(path).close();
+        new HistoryLog(path).close();
+
+        List<IoViolations.Entry> entries = violations.entries();
+        assertEquals(1, entries.size());
+        IoViolations.Entry open = entries.get(0);
+        assertEquals("history.open", open.operation);
+        assertEquals(IoGuard.READ, open.type);
+        assertEquals(2, open.count());
+        assertEquals(2, open.timedCount());
+        assertTrue(open.maxNanos() <= open.totalNanos());
+        // 调用方为发起读写的测试方法，而不是日志类本身
+        assertEquals(IoGuardTest.class.getName() + ".reportsDiskAccessOnGuardedThread", open.caller);
+        assertTrue(open.stackTrace.startsWith("\tat " + IoGuardTest.class.getName()));
+    }
+
+    @Test
+    public void ignoresOtherThreads() throws Exception {
+        IoGuard.guard(Thread.currentThread(), violations);
+        File path = folder.newFile("history.log");
+
+        Thread worker = new Thread(() -> {
+            try (HistoryLog log = new HistoryLog(path)) {
+                assertEquals(0, log.size());
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        worker.start();
+        worker.join();
+
+        assertEquals(0, violations.size());
+    }
+
+    @Test
+    public void untimedRecordsOnlyCount() {
+        StackTraceElement[] stack = {
+                new StackTraceElement("android.os.StrictMode", "onReadFromDisk", null, 1),
+                new StackTraceElement("xin.xldl.timecalculator.MainActivity", "onResume", null, 2),
+        };
+        violations.record(IoGuard.READ, "DiskReadViolation", -1, stack);
+        violations.record(IoGuard.READ, "DiskReadViolation", -1, stack);
+
+        IoViolations.Entry entry = violations.entries().get(0);
+        assertEquals("xin.xldl.timecalculator.MainActivity.onResume", entry.caller);
+        assertEquals(2, entry.count());
+        assertEquals(0, entry.timedCount());
+        assertEquals(0, entry.totalNanos());
+
+        violations.clear();
+        assertEquals(0, violations.size());
+    }
+}
@@ -0,0 +1,114 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IsoDateTimeTest {
+
+    @Test
+    public void parsesSupportedLayouts() {
+        IsoDateTime parser = new IsoDateTime();
+
+        assertTrue(parser.parse("2023-10-01"));
+        assertEquals(LocalDateTime.of(2023, 10, 1, 0, 0).toEpochSecond(ZoneOffset.UTC), parser.epochSecond());
+
+        assertTrue(parser.parse("2023-10-01T09:30"));
+        assertEquals(LocalDateTime.of(2023, 10, 1, 9, 30).toEpochSecond(ZoneOffset.UTC), parser.epochSecond());
+
+        assertTrue(parser.parse("2023-10-01 09:30:15.25"));
+        assertEquals(LocalDateTime.of(2023, 10, 1, 9, 30, 15).toEpochSecond(ZoneOffset.UTC), parser.epochSecond());
+        assertEquals(250_000_000, parser.nano());
+    }
+
+    @Test
+    public void rejectsInvalidInput() {
+        IsoDateTime parser = new IsoDateTime();
+        String[] invalid = {
+                "", "2023-1-01", "2023-13-01", "2023-02-29", "2023-04-31", "2023-10-01T24:00",
+                "2023-10-01T09:60", "2023-10-01T09:30:60", "2023-10-01T09:30:1", "2023-10-01T09:30:00.",
+                "2023-10-01T09:30:00.1234567890", "2023/10/01", "2023-10-01X09:30", "abcd-10-01"
+        };
+        for (String text : invalid) {
+            assertFalse(text, parser.parse(text));
+        }
+        assertTrue(parser.parse("2024-02-29"));
+        assertFalse(parser.parse("1900-02-29"));
+        assertTrue(parser.parse("2000-02-29"));
+    }
+
+    @Test
+    public void matchesJavaTime() {
+        IsoDateTime parser = new IsoDateTime();
+        Random random = new Random(3);
+        long min = LocalDateTime.of(1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long max = LocalDateTime.of(9999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            long epochSecond = min + (long) (random.nextDouble() * (max - min));
+            int nano;
+            switch (i % 4) {
+                case 0:
+                    nano = 0;
+                    break;
+                case 1:
+                    nano = random.nextInt(1000) * 1_000_000;
+                    break;
+                case 2:
+                    nano = random.nextInt(1_000_000) * 1000;
+                    break;
+                default:
+                    nano = random.nextInt(1_000_000_000);
+                    break;
+            }
+            LocalDateTime expected = LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+
+            out.setLength(0);
+            IsoDateTime.appendTo(out, epochSecond, nano);
+            String text = expected.getSecond() == 0 && nano == 0 ? expected + ":00" : expected.toString();
+            assertEquals(text, out.toString());
+
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertTrue(text, parser.parse(bytes, 0, bytes.length));
+            assertEquals(epochSecond, parser.epochSecond());
+            assertEquals(nano, parser.nano());
+        }
+    }
+
+    @Test
+    public void roundTripsSignedYears() {
+        IsoDateTime parser = new IsoDateTime();
+        StringBuilder out = new StringBuilder();
+        LocalDateTime[] values = {
+                LocalDateTime.of(10_000, 1, 1, 0, 0, 0),
+                LocalDateTime.of(123_456, 2, 29, 12, 30, 15, 500_000_000),
+                LocalDateTime.MAX.withNano(0),
+                LocalDateTime.of(-1, 12, 31, 23, 59, 59),
+                LocalDateTime.of(-10_000, 3, 1, 0, 0, 0),
+                LocalDateTime.MIN
+        };
+        for (LocalDateTime value : values) {
+            long epochSecond = value.toEpochSecond(ZoneOffset.UTC);
+            out.setLength(0);
+            IsoDateTime.appendTo(out, epochSecond, value.getNano());
+            String text = value.toString();
+            assertEquals(value.getSecond() == 0 && value.getNano() == 0 ? text + ":00" : text, out.toString());
+
+            assertTrue(text, parser.parse(text));
+            assertEquals(epochSecond, parser.epochSecond());
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertTrue(text, parser.parse(bytes, 0, bytes.length));
+            assertEquals(epochSecond, parser.epochSecond());
+        }
+
+        String[] invalid = {"10000-01-01", "+2023-01-01", "+1000000000-01-01", "--2023-01-01", "+-2023-01-01", "-023-01-01"};
+        for (String text : invalid) {
+            assertFalse(text, parser.parse(text));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long lowest = LatencyHistogram.highestValue(i - 1) + 1;
+            assertEquals(i, LatencyHistogram.bucket(lowest));
+            assertEquals(i, LatencyHistogram.bucket(LatencyHistogram.highestValue(i)));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void percentilesWithinBucketError() {
+        Random random = new Random(18);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // 1微秒到约1秒，按对数均匀分布
+            values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percent : new double[]{50, 95, 99, 100}) {
+            long exact = values[(int) Math.ceil(percent / 100 * values.length) - 1];
+            long estimate = histogram.percentile(percent);
+            assertTrue(percent + ": " + estimate + " < " + exact, estimate >= exact);
+            assertTrue(percent + ": " + estimate + " > " + exact, estimate <= exact + exact / 8);
+        }
+        assertEquals(values[values.length - 1], histogram.max());
+        assertEquals(values.length, histogram.count());
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+        assertEquals(0, histogram.mean());
+
+        histogram.record(100);
+        histogram.record(300);
+        histogram.record(-5);
+        assertEquals(3, histogram.count());
+        assertEquals(133, histogram.mean());
+        assertEquals(300, histogram.max());
+        assertEquals(0, histogram.percentile(1));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+    }
+}
@@ -0,0 +1,82 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NumberFormatterTest {
+
+    private static final String[] PATTERNS = {"#,##0", "#,##0.##", "#,##0.######"};
+
+    private final NumberFormatter formatter = new NumberFormatter();
+
+    @Test
+    public void precisionModes() {
+        assertEquals("1,235", formatter.format(1234.5678, NumberFormatter.PRECISION_LOW));
+        assertEquals("1,234.57", formatter.format(1234.5678, NumberFormatter.PRECISION_MEDIUM));
+        assertEquals("1,234.5678", formatter.format(1234.5678, NumberFormatter.PRECISION_HIGH));
+        assertEquals("7", formatter.format(7.0, NumberFormatter.PRECISION_HIGH));
+        assertEquals("0", formatter.format(0.0000001, NumberFormatter.PRECISION_HIGH));
+    }
+
+    @Test
+    public void infinityAndNaN() {
+        assertEquals(NumberFormatter.INFINITY_TEXT, formatter.format(Double.POSITIVE_INFINITY, 1));
+        assertEquals(NumberFormatter.INFINITY_TEXT, formatter.format(Double.NaN, 1));
+    }
+
+    @Test
+    public void halfEvenTies() {
+        assertEquals("0.12", formatter.format(0.125, NumberFormatter.PRECISION_MEDIUM));
+        assertEquals("2", formatter.format(2.5, NumberFormatter.PRECISION_LOW));
+        assertEquals("2.67", formatter.format(2.675, NumberFormatter.PRECISION_MEDIUM));
+    }
+
+    @Test
+    public void appendWithoutGrouping() {
+        StringBuilder out = new StringBuilder("x=");
+        formatter.appendFixed(out, 1234567.125, 2, false);
+        assertEquals("x=1234567.12", out.toString());
+    }
+
+    @Test
+    public void matchesDecimalFormat() {
+        DecimalFormat[] formats = new DecimalFormat[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++) {
+            formats[i] = new DecimalFormat(PATTERNS[i], DecimalFormatSymbols.getInstance(Locale.ROOT));
+        }
+
+        Random random = new Random(42);
+        for (int n = 0; n < 200_000; n++) {
+            double value;
+            switch (n % 4) {
+                case 0:
+                    value = random.nextDouble() * Math.pow(10, random.nextInt(30) - 10);
+                    break;
+                case 1:
+                    value = random.nextInt(100_000) / 1000.0;
+                    break;
+                case 2:
+                    value = UnitConverter.convert(random.nextInt(10_000), random.nextInt(10), random.nextInt(10));
+                    break;
+                default:
+                    value = Double.longBitsToDouble(random.nextLong());
+                    break;
+            }
+            if (random.nextBoolean()) {
+                value = -value;
+            }
+            for (int precision = 0; precision < PATTERNS.length; precision++) {
+                String expected = Double.isNaN(value) || Double.isInfinite(value)
+                        ? NumberFormatter.INFINITY_TEXT : formats[precision].format(value);
+                assertEquals("value=" + value + " precision=" + precision,
+                        expected, formatter.format(value, precision));
+            }
+        }
+    }
+}
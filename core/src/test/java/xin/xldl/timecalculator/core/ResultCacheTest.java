@@ -0,0 +1,97 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ResultCache<String> cache = new ResultCache<>(2);
+        cache.put(1, 0, 0, "a");
+        cache.put(2, 0, 0, "b");
+        assertEquals("a", cache.get(1, 0, 0));
+
+        // b 最久未使用
+        cache.put(3, 0, 0, "c");
+        assertNull(cache.get(2, 0, 0));
+        assertEquals("a", cache.get(1, 0, 0));
+        assertEquals("c", cache.get(3, 0, 0));
+
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void keyUsesAllThreeParts() {
+        ResultCache<String> cache = new ResultCache<>(8);
+        cache.put(1, 2, 3, "x");
+        assertNull(cache.get(1, 2, 4));
+        assertNull(cache.get(1, 3, 3));
+        assertNull(cache.get(2, 2, 3));
+        cache.put(1, 2, 3, "y");
+        assertEquals("y", cache.get(1, 2, 3));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void trimAndClear() {
+        ResultCache<String> cache = new ResultCache<>(4);
+        for (int i = 0; i < 4; i++) {
+            cache.put(i, 0, 0, "v" + i);
+        }
+        cache.trimToSize(2);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(0, 0, 0));
+        assertEquals("v3", cache.get(3, 0, 0));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(3, 0, 0));
+        cache.put(5, 0, 0, "v5");
+        assertEquals("v5", cache.get(5, 0, 0));
+    }
+
+    @Test
+    public void matchesLinkedHashMapModel() {
+        Random random = new Random(5);
+        int capacity = 13;
+        ResultCache<Long> cache = new ResultCache<>(capacity);
+        Map<List<Long>, Long> model = new LinkedHashMap<List<Long>, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Long>, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        for (int i = 0; i < 200_000; i++) {
+            // 键空间小，反复发生冲突、淘汰和删除
+            long a = random.nextInt(40);
+            long b = random.nextInt(2);
+            long c = random.nextInt(2) * Long.MIN_VALUE;
+            List<Long> key = Arrays.asList(a, b, c);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                assertEquals(model.get(key), cache.get(a, b, c));
+            } else if (op < 9) {
+                long value = random.nextLong();
+                model.put(key, value);
+                cache.put(a, b, c, value);
+            } else {
+                int keep = random.nextInt(capacity + 1);
+                while (model.size() > keep) {
+                    model.remove(model.keySet().iterator().next());
+                }
+                cache.trimToSize(keep);
+            }
+            assertEquals(model.size(), cache.size());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package xin.xldl.timecalculator.core;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UnitConverterTest {
+
+    @Test
+    public void weekToDays() {
+        assertEquals(7.0, UnitConverter.convert(1, TimeUnits.WEEK, TimeUnits.DAY), 0.0);
+    }
+
+    @Test
+    public void secondsToNanos() {
+        assertEquals(1_500_000_000.0, UnitConverter.convert(1.5, TimeUnits.SECOND, TimeUnits.NANOSECOND), 0.0);
+    }
+
+    @Test
+    public void sameUnitIsIdentity() {
+        assertEquals(0.1, UnitConverter.convert(0.1, TimeUnits.MONTH, TimeUnits.MONTH), 0.0);
+    }
+
+    @Test
+    public void toNanosIsExact() {
+        assertEquals(31_536_000_000_000_000L, UnitConverter.toNanos(1, TimeUnits.YEAR));
+        assertEquals(3, UnitConverter.fromNanos(UnitConverter.toNanos(3, TimeUnits.HOUR), TimeUnits.HOUR));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void toNanosOverflowThrows() {
+        UnitConverter.toNanos(1_000, TimeUnits.YEAR);
+    }
+
+    @Test
+    public void integralInputIsCorrectlyRounded() {
+        for (int from = 0; from < TimeUnits.COUNT; from++) {
+            for (int to = 0; to < TimeUnits.COUNT; to++) {
+                for (long value : new long[]{1, 7, 123_456_789, -42, Long.MAX_VALUE / 3}) {
+                    double input = value;
+                    assertEquals(exact((long) input, from, to), UnitConverter.convert(input, from, to), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nanosecondToYearIsExact() {
+        assertEquals(1.0 / 31_536_000_000_000_000.0,
+                UnitConverter.convert(1, TimeUnits.NANOSECOND, TimeUnits.YEAR), 0.0);
+    }
+
+    @Test
+    public void overflowFallsBackToBigDecimal() {
+        assertEquals(exact(Long.MAX_VALUE, TimeUnits.YEAR, TimeUnits.NANOSECOND),
+                UnitConverter.convert(Long.MAX_VALUE, TimeUnits.YEAR, TimeUnits.NANOSECOND), 0.0);
+    }
+
+    @Test
+    public void largeFractionalInputDoesNotOverflowEarly() {
+        // 1e308 * 7 溢出，但 1e308 * 7 / 30 在double范围内
+        double expected = new BigDecimal(1e308).multiply(BigDecimal.valueOf(7))
+                .divide(BigDecimal.valueOf(30), new MathContext(40)).doubleValue();
+        assertEquals(expected, UnitConverter.convert(1e308, TimeUnits.WEEK, TimeUnits.MONTH), 0.0);
+        assertEquals(-expected, UnitConverter.convert(-1e308, TimeUnits.WEEK, TimeUnits.MONTH), 0.0);
+
+        double[] all = new double[TimeUnits.EXTENDED_COUNT];
+        UnitConverter.convertToAll(1e308, TimeUnits.WEEK, all);
+        assertEquals(expected, all[TimeUnits.MONTH], 0.0);
+        double[] batch = {1e308};
+        UnitConverter.convert(batch, TimeUnits.WEEK, TimeUnits.MONTH, batch);
+        assertEquals(expected, batch[0], 0.0);
+
+        // 结果本身超出范围时仍为无穷大
+        assertTrue(Double.isInfinite(UnitConverter.convert(Double.MAX_VALUE, TimeUnits.YEAR, TimeUnits.MONTH)));
+    }
+
+    @Test
+    public void fractionalInputAndSpecialValues() {
+        assertEquals(36.0, UnitConverter.convert(1.5, TimeUnits.DAY, TimeUnits.HOUR), 0.0);
+        assertEquals(0.35, UnitConverter.convert(1.5, TimeUnits.WEEK, TimeUnits.MONTH), 1e-15);
+        assertTrue(Double.isInfinite(UnitConverter.convert(Double.POSITIVE_INFINITY, TimeUnits.DAY, TimeUnits.HOUR)));
+        assertTrue(Double.isNaN(UnitConverter.convert(Double.NaN, TimeUnits.DAY, TimeUnits.HOUR)));
+    }
+
+    @Test
+    public void arrayConversionMatchesScalar() {
+        Random random = new Random(7);
+        double[] doubles = new double[64];
+        long[] longs = new long[64];
+        for (int i = 0; i < doubles.length; i++) {
+            longs[i] = random.nextLong() >> random.nextInt(64);
+            doubles[i] = i % 2 == 0 ? longs[i] : random.nextDouble() * Math.pow(10, random.nextInt(20) - 5);
+        }
+        doubles[1] = -0.0;
+        doubles[3] = Double.NaN;
+        doubles[5] = Double.NEGATIVE_INFINITY;
+        longs[1] = Long.MIN_VALUE;
+
+        double[] out = new double[66];
+        for (int from = 0; from < TimeUnits.COUNT; from++) {
+            for (int to = 0; to < TimeUnits.COUNT; to++) {
+                UnitConverter.convert(doubles, 0, doubles.length, from, to, out, 2);
+                for (int i = 0; i < doubles.length; i++) {
+                    assertEquals(Double.doubleToLongBits(UnitConverter.convert(doubles[i], from, to)),
+                            Double.doubleToLongBits(out[i + 2]));
+                }
+                UnitConverter.convert(longs, from, to, out);
+                for (int i = 0; i < longs.length; i++) {
+                    assertEquals(UnitConverter.convert(longs[i], from, to), out[i], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void convertToAllMatchesScalarIncludingSpecialUnits() {
+        double[] row = new double[TimeUnits.EXTENDED_COUNT];
+        for (double value : new double[]{0, -0.0, 1, 1.5, -2.25, 123_456_789, 1e300, Double.NaN}) {
+            for (int from = 0; from < TimeUnits.EXTENDED_COUNT; from++) {
+                UnitConverter.convertToAll(value, from, row);
+                for (int to = 0; to < TimeUnits.EXTENDED_COUNT; to++) {
+                    assertEquals(Double.doubleToLongBits(UnitConverter.convert(value, from, to)),
+                            Double.doubleToLongBits(row[to]));
+                }
+            }
+        }
+
+        UnitConverter.convertToAll(16, TimeUnits.HOUR, row);
+        assertEquals(2.0, row[TimeUnits.WORKDAY], 0.0);
+        UnitConverter.convertToAll(732, TimeUnits.DAY, row);
+        assertEquals(2.0, row[TimeUnits.LEAP_YEAR], 0.0);
+        assertEquals(10, TimeUnits.names().length);
+        assertEquals("工作日", TimeUnits.name(TimeUnits.WORKDAY));
+        assertEquals(TimeUnits.WEEK, TimeUnits.indexOf("周"));
+        assertEquals(-1, TimeUnits.indexOf("fortnight"));
+    }
+
+    @Test
+    public void arrayConversionInPlaceAndBounds() {
+        double[] values = {1, 2.5, 3};
+        UnitConverter.convert(values, TimeUnits.WEEK, TimeUnits.DAY, values);
+        assertArrayEquals(new double[]{7, 17.5, 21}, values, 0.0);
+
+        try {
+            UnitConverter.convert(values, 1, 3, TimeUnits.WEEK, TimeUnits.DAY, new double[3], 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            UnitConverter.convert(new long[3], TimeUnits.WEEK, TimeUnits.DAY, new double[2]);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    private static double exact(long value, int from, int to) {
+        return BigDecimal.valueOf(value)
+                .multiply(BigDecimal.valueOf(TimeUnits.nanosPerUnit(from)))
+                .divide(BigDecimal.valueOf(TimeUnits.nanosPerUnit(to)), new MathContext(60))
+                .doubleValue();
+    }
+}